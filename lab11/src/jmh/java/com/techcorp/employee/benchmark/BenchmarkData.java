@@ -0,0 +1,76 @@
+package com.techcorp.employee.benchmark;
+
+import com.techcorp.employee.model.Position;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Syntetyczne dane pracowników dla benchmarków - deterministyczne (stały seed),
+ * więc wyniki z różnych commitów dotyczą tych samych danych.
+ */
+public final class BenchmarkData {
+    public static final int COMPANIES = 50;
+    private static final long SEED = 42L;
+    private static final Position[] POSITIONS = Position.values();
+
+    private BenchmarkData() {}
+
+    public static String company(int index) {
+        return "Company-" + (index % COMPANIES);
+    }
+
+    public static Path writeCsv(int size) throws IOException {
+        Path file = Files.createTempFile("employees-" + size + "-", ".csv");
+        file.toFile().deleteOnExit();
+        SplittableRandom random = new SplittableRandom(SEED);
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("firstName,lastName,email,company,position,salary\n");
+            for (int i = 0; i < size; i++) {
+                Position position = POSITIONS[random.nextInt(POSITIONS.length)];
+                out.write("First" + i + ",Last" + i + ",employee" + i + "@techcorp.com," + company(i) + ","
+                        + position.name() + "," + salary(random, position) + "\n");
+            }
+        }
+        return file;
+    }
+
+    public static Path writeXml(int size) throws IOException {
+        Path file = Files.createTempFile("employees-" + size + "-", ".xml");
+        file.toFile().deleteOnExit();
+        SplittableRandom random = new SplittableRandom(SEED);
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("<employees>\n");
+            for (int i = 0; i < size; i++) {
+                Position position = POSITIONS[random.nextInt(POSITIONS.length)];
+                out.write("  <employee><firstName>First" + i + "</firstName><lastName>Last" + i + "</lastName>"
+                        + "<email>employee" + i + "@techcorp.com</email><company>" + company(i) + "</company>"
+                        + "<position>" + position.name() + "</position><salary>" + salary(random, position) + "</salary></employee>\n");
+            }
+            out.write("</employees>\n");
+        }
+        return file;
+    }
+
+    // format zgodny z jsonplaceholder.typicode.com/users
+    public static String json(int size) {
+        StringBuilder json = new StringBuilder(size * 160).append('[');
+        for (int i = 0; i < size; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"id\":").append(i)
+                .append(",\"name\":\"First").append(i).append(" Last").append(i)
+                .append("\",\"username\":\"user").append(i)
+                .append("\",\"email\":\"employee").append(i).append("@techcorp.com\"")
+                .append(",\"company\":{\"name\":\"").append(company(i)).append("\",\"catchPhrase\":\"benchmark\"}}");
+        }
+        return json.append(']').toString();
+    }
+
+    private static String salary(SplittableRandom random, Position position) {
+        return String.format(Locale.ROOT, "%.2f", position.getSalary() * (0.8 + random.nextDouble() * 0.4));
+    }
+}
@@ -0,0 +1,69 @@
+package com.techcorp.employee.benchmark;
+
+import com.techcorp.employee.controller.FileUploadController;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Eksport CSV przez kontroler - treść zapisywana do strumienia liczącego bajty
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx4g"})
+public class ExportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private H2Fixture fixture;
+    private FileUploadController controller;
+    private String company;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = H2Fixture.start().seed(size);
+        controller = fixture.bean(FileUploadController.class);
+        company = BenchmarkData.company(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public long exportAll() throws IOException {
+        return export(null);
+    }
+
+    @Benchmark
+    public long exportSingleCompany() throws IOException {
+        return export(company);
+    }
+
+    private long export(String filter) throws IOException {
+        StreamingResponseBody body = controller.exportCsv(filter).getBody();
+        CountingOutputStream out = new CountingOutputStream();
+        body.writeTo(out);
+        return out.count;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.techcorp.employee.benchmark;
+
+import com.techcorp.employee.EmployeeManagementApplication;
+import com.techcorp.employee.model.ImportSummary;
+import com.techcorp.employee.service.ImportService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+
+/**
+ * Kontekst aplikacji na bazie H2 w pamięci (bez serwera HTTP) wypełniony syntetycznymi danymi.
+ */
+public final class H2Fixture implements AutoCloseable {
+    private final ConfigurableApplicationContext context;
+
+    private H2Fixture(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static H2Fixture start() {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(EmployeeManagementApplication.class)
+                .web(WebApplicationType.NONE)
+                // argumenty, a nie properties() - muszą nadpisać application.properties
+                .run("--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--app.bootstrap.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.h2.console.enabled=false");
+        return new H2Fixture(context);
+    }
+
+    // wypełnia tabelę pracowników importem CSV (ten sam kod co w aplikacji)
+    public H2Fixture seed(int size) throws IOException {
+        ImportSummary summary = bean(ImportService.class).importFromCsv(BenchmarkData.writeCsv(size), 0);
+        if (summary.importedCount() != size) {
+            throw new IllegalStateException("Seeding failed: " + summary);
+        }
+        return this;
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
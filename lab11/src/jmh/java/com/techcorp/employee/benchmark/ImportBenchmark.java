@@ -0,0 +1,50 @@
+package com.techcorp.employee.benchmark;
+
+import com.techcorp.employee.model.ImportSummary;
+import com.techcorp.employee.service.ImportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// Pełny import pliku: czytanie, walidacja, czyszczenie tabeli i zapis wsadowy
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx4g"})
+public class ImportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private H2Fixture fixture;
+    private ImportService importService;
+    private Path csv;
+    private Path xml;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = H2Fixture.start();
+        importService = fixture.bean(ImportService.class);
+        csv = BenchmarkData.writeCsv(size);
+        xml = BenchmarkData.writeXml(size);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public ImportSummary importCsv() throws IOException {
+        return importService.importFromCsv(csv, 0);
+    }
+
+    @Benchmark
+    public ImportSummary importXml() throws IOException {
+        return importService.importFromXml(xml, 0);
+    }
+}
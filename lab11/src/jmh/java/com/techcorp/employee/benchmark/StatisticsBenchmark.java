@@ -0,0 +1,54 @@
+package com.techcorp.employee.benchmark;
+
+import com.techcorp.employee.model.CompanyStatistics;
+import com.techcorp.employee.service.EmployeeService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Statystyki firm: agregacja w bazie (wszystkie firmy) oraz odczyty z indeksu statystyk
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx4g"})
+public class StatisticsBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private H2Fixture fixture;
+    private EmployeeService employeeService;
+    private String company;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = H2Fixture.start().seed(size);
+        employeeService = fixture.bean(EmployeeService.class);
+        company = BenchmarkData.company(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public Map<String, CompanyStatistics> allCompanies() {
+        return employeeService.getCompanyStatistics();
+    }
+
+    @Benchmark
+    public Optional<CompanyStatistics> singleCompany() {
+        return employeeService.getCompanyStatistics(company);
+    }
+
+    @Benchmark
+    public double averageSalary() {
+        return employeeService.getAverageSalary(null);
+    }
+}
@@ -0,0 +1,44 @@
+package com.techcorp.employee.service;
+
+import com.techcorp.employee.benchmark.BenchmarkData;
+import com.techcorp.employee.model.Employee;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Mapowanie odpowiedzi API (JSON) na pracowników - bez HTTP, parseBody jest pakietowe
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx4g"})
+public class ApiServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private ApiService apiService;
+    private String body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        apiService = new ApiService();
+        body = BenchmarkData.json(size);
+    }
+
+    @Benchmark
+    public List<Employee> parseBody() {
+        return apiService.parseBody(body);
+    }
+
+    // pracownicy przekazywani po jednym, bez listy wyników - tak czyta streamEmployeesFromApi
+    @Benchmark
+    public int parseBodyStreaming(Blackhole blackhole) throws IOException {
+        return apiService.parseBody(new StringReader(body), blackhole::consume);
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
 import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.FederatedFetchResult;
 import com.techcorp.employee.model.ImportSummary;
 import com.techcorp.employee.service.ApiService;
 import com.techcorp.employee.service.EmployeeService;
@@ -68,11 +69,12 @@ public class EmployeeManagementApplication {
             xmlEmployees.forEach(employeeService::addEmployee);
             System.out.println("Added from XML: " + xmlEmployees.size());
 
-            // Fetch employees from REST API (URL from properties injected into ApiService)
+            // Fetch employees from REST APIs concurrently (app.api.urls, or app.api.url when empty)
             System.out.println("\n=== Fetch from API ===");
-            List<Employee> apiEmployees = apiService.fetchEmployeesFromDefaultApi();
-            apiEmployees.forEach(employeeService::addEmployee);
-            System.out.println("Imported from API: " + apiEmployees.size());
+            FederatedFetchResult apiResult = apiService.fetchEmployeesFromConfiguredApis();
+            apiResult.employees().forEach(employeeService::addEmployee);
+            System.out.println("Imported from API: " + apiResult.employees().size() + " " + apiResult.fetchedBySource());
+            apiResult.failures().forEach((source, error) -> System.out.println("API source failed: " + source + " -> " + error));
 
             // Company statistics (example for 'TechCorp')
             System.out.println("\n=== Company statistics (TechCorp) ===");
@@ -5,13 +5,19 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.net.http.HttpClient;
+import java.time.Duration;
 
 @Configuration
 public class AppConfig {
 
+	// HTTP/2 (z powrotem do HTTP/1.1, gdy serwer go nie obsługuje) - równoległe żądania do jednego źródła
+	// dzielą połączenie zamiast otwierać kolejne
 	@Bean
 	public HttpClient httpClient() {
-		return HttpClient.newHttpClient();
+		return HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
 	}
 
 	@Bean
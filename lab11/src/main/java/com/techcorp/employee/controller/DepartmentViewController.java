@@ -1,10 +1,12 @@
 package com.techcorp.employee.controller;
 
+import com.techcorp.employee.dto.EmployeeListView;
 import com.techcorp.employee.model.Department;
 import com.techcorp.employee.model.Employee;
-import com.techcorp.employee.model.Position;
 import com.techcorp.employee.service.DepartmentService;
 import com.techcorp.employee.service.EmployeeService;
+import com.techcorp.employee.exception.FileNotFoundException;
+import com.techcorp.employee.service.FileDownloadService;
 import com.techcorp.employee.service.FileStorageService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -13,14 +15,15 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.validation.BindingResult;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.ResponseEntity;
-import org.springframework.http.MediaType;
-
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/departments")
@@ -29,55 +32,38 @@ public class DepartmentViewController {
 	private final DepartmentService departmentService;
 	private final EmployeeService employeeService;
 	private final FileStorageService fileStorageService;
+	private final FileDownloadService fileDownloadService;
 
 	@Value("${spring.servlet.multipart.max-file-size:10MB}")
 	private String maxFileSizeStr;
 
 	private static final String[] DOC_ALLOWED = new String[]{"pdf","doc","docx","txt","png","jpg","jpeg"};
 
-	public DepartmentViewController(DepartmentService departmentService, EmployeeService employeeService, FileStorageService fileStorageService) {
+	public DepartmentViewController(DepartmentService departmentService, EmployeeService employeeService, FileStorageService fileStorageService,
+									FileDownloadService fileDownloadService) {
 		this.departmentService = departmentService;
 		this.employeeService = employeeService;
 		this.fileStorageService = fileStorageService;
+		this.fileDownloadService = fileDownloadService;
 	}
 
 	@GetMapping
 	public String list(Model model) {
-		List<Department> departments = departmentService.getAllDepartments();
-		List<Employee> all = employeeService.getAllEmployees();
-		Map<Long, Long> counts = all.stream()
-				.filter(e -> e.getDepartmentId() != null)
-				.collect(Collectors.groupingBy(Employee::getDepartmentId, Collectors.counting()));
-		Map<Long, String> managerNames = departments.stream()
-				.collect(Collectors.toMap(Department::getId,
-						d -> {
-							if (d.getManagerEmail() == null) return "-";
-							return employeeService.findByEmail(d.getManagerEmail()).map(Employee::getFullName).orElse("-");
-						}));
-
-		model.addAttribute("departments", departments);
-		model.addAttribute("employeeCounts", counts);
-		model.addAttribute("managerNames", managerNames);
+		model.addAttribute("departments", departmentService.getDepartmentSummaries());
 		return "departments/list";
 	}
 
 	@GetMapping("/add")
 	public String showAddForm(Model model) {
 		model.addAttribute("department", new Department());
-		List<Employee> managers = employeeService.getAllEmployees().stream()
-				.filter(e -> e.getPosition() != null && e.getPosition().getPosition() <= Position.MANAGER.getPosition())
-				.collect(Collectors.toList());
-		model.addAttribute("managers", managers);
+		model.addAttribute("managers", employeeService.getManagerOptions());
 		return "departments/form";
 	}
 
 	@PostMapping
 	public String saveDepartment(@Valid @ModelAttribute("department") Department department, BindingResult bindingResult, Model model, RedirectAttributes redirectAttributes) {
 		if (bindingResult.hasErrors()) {
-			List<Employee> managers = employeeService.getAllEmployees().stream()
-					.filter(e -> e.getPosition() != null && e.getPosition().getPosition() <= Position.MANAGER.getPosition())
-					.collect(Collectors.toList());
-			model.addAttribute("managers", managers);
+			model.addAttribute("managers", employeeService.getManagerOptions());
 			return "departments/form";
 		}
 		if (department.getId() == null) {
@@ -98,10 +84,7 @@ public class DepartmentViewController {
 			return "redirect:/departments";
 		}
 		model.addAttribute("department", dept);
-		List<Employee> managers = employeeService.getAllEmployees().stream()
-				.filter(e -> e.getPosition() != null && e.getPosition().getPosition() <= Position.MANAGER.getPosition())
-				.collect(Collectors.toList());
-		model.addAttribute("managers", managers);
+		model.addAttribute("managers", employeeService.getManagerOptions());
 		return "departments/form";
 	}
 
@@ -120,9 +103,7 @@ public class DepartmentViewController {
 			redirectAttributes.addFlashAttribute("error", "Departament nie znaleziony");
 			return "redirect:/departments";
 		}
-		List<Employee> employees = employeeService.getAllEmployees().stream()
-				.filter(e -> e.getDepartmentId() != null && e.getDepartmentId().equals(id))
-				.collect(Collectors.toList());
+		List<EmployeeListView> employees = employeeService.findListViewByDepartment(id);
 		String managerName = dept.getManagerEmail() == null ? "-" : employeeService.findByEmail(dept.getManagerEmail()).map(Employee::getFullName).orElse("-");
 		model.addAttribute("department", dept);
 		model.addAttribute("employees", employees);
@@ -166,19 +147,20 @@ public class DepartmentViewController {
 	}
 
 	@GetMapping("/documents/{id}/download/{fileName}")
-	public ResponseEntity<Resource> downloadDepartmentDocument(@PathVariable("id") Long id, @PathVariable("fileName") String fileName) {
-		String path = "departments/" + id + "/" + fileName;
+	public void downloadDepartmentDocument(@PathVariable("id") Long id, @PathVariable("fileName") String fileName,
+										   HttpServletRequest request, HttpServletResponse response) throws IOException {
+		FileStorageService.StoredFile stored;
 		try {
-			Resource resource = fileStorageService.loadFileAsResource(path);
-			java.nio.file.Path p = fileStorageService.getFilePath(path);
-			String contentType = java.nio.file.Files.probeContentType(p);
-			if (contentType == null) contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
-			HttpHeaders headers = new HttpHeaders();
-			headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + p.getFileName().toString() + "\"");
-			return ResponseEntity.ok().headers(headers).contentLength(resource.contentLength()).contentType(MediaType.parseMediaType(contentType)).body(resource);
-		} catch (Exception ex) {
-			return ResponseEntity.notFound().build();
+			// nazwa z adresu nie może wyjść poza katalog działu
+			if (fileName.contains("/") || fileName.contains("..")) throw new FileNotFoundException("Invalid file name");
+			stored = fileStorageService.describe("departments/" + id + "/" + fileName);
+		} catch (FileNotFoundException ex) {
+			response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+			return;
 		}
+		// pod tą nazwą zawsze ta sama treść (nazwy z UUID), ETag i tak pozwala na tanie odświeżenie
+		fileDownloadService.serve(stored, ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build(),
+				CacheControl.maxAge(Duration.ofDays(1)).cachePrivate(), request, response);
 	}
 
 }
@@ -6,7 +6,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.techcorp.employee.dto.EmployeeCursorPage;
 import com.techcorp.employee.dto.EmployeeDTO;
+import com.techcorp.employee.dto.EmployeeSearchResult;
+import com.techcorp.employee.dto.EmployeeView;
 import com.techcorp.employee.dto.StatusUpdateDTO;
 import jakarta.validation.Valid;
 import com.techcorp.employee.model.Employee;
@@ -15,6 +18,8 @@ import com.techcorp.employee.model.Position;
 import com.techcorp.employee.service.EmployeeService;
 
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.springframework.data.domain.Page;
@@ -33,6 +38,9 @@ public class EmployeeController {
 		this.employeeService = employeeService;
 	}
 
+	private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+	private static final int MAX_SEARCH_RESULTS = 100;
+
 	// GET /api/employees with optional filters and pagination
 	@GetMapping
 	public ResponseEntity<Page<EmployeeDTO>> getAll(
@@ -43,17 +51,63 @@ public class EmployeeController {
 			@RequestParam(name = "departmentId", required = false) Long departmentId,
 			@PageableDefault(size = 20) Pageable pageable
 	) {
-		Specification<Employee> spec = Specification.where(EmployeeSpecification.byCompany(company))
-				.and(EmployeeSpecification.nameContains(name))
-				.and(parseStatus(status))
-				.and(parsePosition(position))
-				.and(EmployeeSpecification.byDepartmentId(departmentId));
+		Specification<Employee> spec = buildSpecification(company, name, status, position, departmentId);
 
-		Page<Employee> page = employeeService.findAll(spec, pageable);
+		Page<EmployeeView> page = employeeService.findViews(spec, pageable);
 		Page<EmployeeDTO> dtoPage = page.map(this::toDto);
 		return ResponseEntity.ok(dtoPage);
 	}
 
+	// GET /api/employees?after=<cursor>&size= - keyset pagination (pusty after = pierwsza strona)
+	@GetMapping(params = "after")
+	public ResponseEntity<EmployeeCursorPage> getAllAfter(
+			@RequestParam(name = "after") String after,
+			@RequestParam(name = "size", defaultValue = "20") int size,
+			@RequestParam(name = "company", required = false) String company,
+			@RequestParam(name = "name", required = false) String name,
+			@RequestParam(name = "status", required = false) String status,
+			@RequestParam(name = "position", required = false) String position,
+			@RequestParam(name = "departmentId", required = false) Long departmentId
+	) {
+		Long afterId;
+		try {
+			afterId = decodeCursor(after);
+		} catch (IllegalArgumentException ex) {
+			return ResponseEntity.badRequest().build();
+		}
+		int pageSize = Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+		Specification<Employee> spec = buildSpecification(company, name, status, position, departmentId);
+
+		// jeden rekord więcej niż strona - wiadomo, czy istnieje następna, bez zapytania count
+		List<EmployeeView> rows = employeeService.findViewsAfter(spec, afterId, pageSize + 1);
+		boolean hasNext = rows.size() > pageSize;
+		List<EmployeeView> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+		String nextCursor = hasNext ? encodeCursor(pageRows.get(pageRows.size() - 1).id()) : null;
+		List<EmployeeDTO> content = pageRows.stream().map(this::toDto).collect(Collectors.toList());
+		return ResponseEntity.ok(new EmployeeCursorPage(content, content.size(), nextCursor));
+	}
+
+	private Specification<Employee> buildSpecification(String company, String name, String status, String position, Long departmentId) {
+		return Specification.allOf(
+				EmployeeSpecification.byCompany(company),
+				EmployeeSpecification.nameContains(name),
+				parseStatus(status),
+				parsePosition(position),
+				EmployeeSpecification.byDepartmentId(departmentId));
+	}
+
+	// kursor nieprzezroczysty dla klienta: base64url("id:<ostatnie id>")
+	static String encodeCursor(Long lastId) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(("id:" + lastId).getBytes(StandardCharsets.UTF_8));
+	}
+
+	static Long decodeCursor(String cursor) {
+		if (cursor == null || cursor.isBlank()) return null;
+		String decoded = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+		if (!decoded.startsWith("id:")) throw new IllegalArgumentException("Invalid cursor");
+		return Long.valueOf(decoded.substring(3));
+	}
+
 	private Specification<Employee> parseStatus(String status) {
 		if (status == null || status.isBlank()) return (root, q, cb) -> cb.conjunction();
 		try {
@@ -74,6 +128,16 @@ public class EmployeeController {
 		}
 	}
 
+	// GET /api/employees/search?q=&limit= - pełnotekstowo z indeksu w pamięci: prefiksy słów, wszystkie słowa muszą pasować
+	@GetMapping("/search")
+	public ResponseEntity<EmployeeSearchResult> search(
+			@RequestParam(name = "q", defaultValue = "") String q,
+			@RequestParam(name = "limit", defaultValue = "20") int limit
+	) {
+		int effectiveLimit = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+		return ResponseEntity.ok(employeeService.search(q, effectiveLimit));
+	}
+
 	// GET /api/employees/{email}
 	@GetMapping("/{email}")
 	public ResponseEntity<EmployeeDTO> getByEmail(@PathVariable("email") String email) {
@@ -86,14 +150,11 @@ public class EmployeeController {
 	@PostMapping
 	public ResponseEntity<EmployeeDTO> create(@Valid @RequestBody EmployeeDTO dto) {
 		Employee toCreate = dtoToEmployee(dto, dto.getEmail());
-		boolean created = employeeService.addEmployee(toCreate);
-		if (!created) {
+		Employee createdEmployee = employeeService.createEmployee(toCreate).orElse(null);
+		if (createdEmployee == null) {
 			return ResponseEntity.status(HttpStatus.CONFLICT).build();
 		}
 
-		// fetch created entity
-		Employee createdEmployee = employeeService.findByEmail(dto.getEmail()).orElse(toCreate);
-
 		URI location = ServletUriComponentsBuilder.fromCurrentRequest()
 				.path("/{email}")
 				.buildAndExpand(createdEmployee.getEmail())
@@ -107,14 +168,10 @@ public class EmployeeController {
 	// PUT /api/employees/{email}
 	@PutMapping("/{email}")
 	public ResponseEntity<EmployeeDTO> update(@PathVariable("email") String email, @Valid @RequestBody EmployeeDTO dto) {
-		return employeeService.findByEmail(email)
-				.map(existing -> {
-					// create updated Employee preserving identity (email)
-					Employee updated = dtoToEmployee(dto, existing.getEmail());
-					return employeeService.updateEmployee(email, updated)
-							.map(e -> ResponseEntity.ok(toDto(e)))
-							.orElseGet(() -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
-				})
+		// email z ścieżki pozostaje tożsamością - updateEmployee go nie zmienia
+		Employee updated = dtoToEmployee(dto, email);
+		return employeeService.updateEmployee(email, updated)
+				.map(e -> ResponseEntity.ok(toDto(e)))
 				.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
 	}
 
@@ -131,9 +188,7 @@ public class EmployeeController {
 	public ResponseEntity<EmployeeDTO> patchStatus(@PathVariable("email") String email, @Valid @RequestBody StatusUpdateDTO dto) {
 		try {
 			EmploymentStatus status = EmploymentStatus.valueOf(dto.getStatus().trim().toUpperCase());
-			boolean ok = employeeService.updateStatus(email, status);
-			if (!ok) return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-			return employeeService.findByEmail(email)
+			return employeeService.changeStatus(email, status)
 					.map(e -> ResponseEntity.ok(toDto(e)))
 					.orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
 		} catch (IllegalArgumentException ex) {
@@ -184,6 +239,13 @@ public class EmployeeController {
 		return dto;
 	}
 
+	// projekcja ma już imię i nazwisko osobno - bez dzielenia fullName
+	private EmployeeDTO toDto(EmployeeView v) {
+		return new EmployeeDTO(v.id(), v.firstName(), v.lastName(), v.email(), v.companyName(),
+				v.position() == null ? null : v.position().name(), v.salary(),
+				v.status() == null ? null : v.status().name());
+	}
+
 	private Employee dtoToEmployee(EmployeeDTO dto, String emailOverride) {
 		String first = dto.getFirstName() == null ? "" : dto.getFirstName().trim();
 		String last = dto.getLastName() == null ? "" : dto.getLastName().trim();
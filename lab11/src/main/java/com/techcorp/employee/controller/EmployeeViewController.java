@@ -18,7 +18,16 @@ import com.techcorp.employee.model.ImportSummary;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.multipart.MultipartFile;
 import com.techcorp.employee.dto.EmployeeDTO;
+import com.techcorp.employee.dto.EmployeeView;
+import com.techcorp.employee.specification.EmployeeSpecification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Controller
@@ -34,6 +43,9 @@ public class EmployeeViewController {
 
 	private static final String[] CSV_ALLOWED = new String[]{"csv"};
 	private static final String[] XML_ALLOWED = new String[]{"xml"};
+	private static final int SEARCH_PAGE_SIZE = 20;
+	// kolejność zgodna z indeksem ix_employees_last_first_normalized
+	private static final Sort SEARCH_SORT = Sort.by("lastNameNormalized", "firstNameNormalized", "id");
 
 	@Autowired
 	public EmployeeViewController(EmployeeService employeeService, FileStorageService fileStorageService, ImportService importService) {
@@ -44,7 +56,7 @@ public class EmployeeViewController {
 
 	@GetMapping
 	public String listEmployees(Model model) {
-		var dtos = employeeService.getAllEmployees().stream().map(this::toDto).collect(Collectors.toList());
+		var dtos = employeeService.getAllEmployeeViews().stream().map(this::toDto).collect(Collectors.toList());
 		model.addAttribute("employees", dtos);
 		return "employees/list";
 	}
@@ -116,7 +128,9 @@ public class EmployeeViewController {
 	}
 
 	@GetMapping("/search")
-	public String showSearchForm() {
+	public String showSearchForm(Model model) {
+		model.addAttribute("positions", Position.values());
+		model.addAttribute("statuses", EmploymentStatus.values());
 		return "employees/search-form";
 	}
 
@@ -130,18 +144,19 @@ public class EmployeeViewController {
 	public String importFile(@RequestParam("file") MultipartFile file,
 							 @RequestParam("fileType") String fileType,
 							 RedirectAttributes redirectAttributes) {
+		String relative = null;
 		try {
 			long maxBytes = org.springframework.util.unit.DataSize.parse(java.util.Objects.requireNonNull(maxFileSizeStr)).toBytes();
 			if ("csv".equalsIgnoreCase(fileType)) {
 				fileStorageService.validateFile(file, maxBytes, CSV_ALLOWED);
-				String relative = fileStorageService.storeFileInSubDirectory(file, "imports");
+				relative = fileStorageService.storeFileInSubDirectory(file, "imports");
 				String fullPath = fileStorageService.getFilePath(relative).toString();
 				ImportSummary summary = importService.importCsv(fullPath);
 				redirectAttributes.addFlashAttribute("message", "Import zakończony: " + summary.importedCount() + " rekordów, błędy: " + summary.getFailedCount());
 				redirectAttributes.addFlashAttribute("importSummary", summary);
 			} else if ("xml".equalsIgnoreCase(fileType)) {
 				fileStorageService.validateFile(file, maxBytes, XML_ALLOWED);
-				String relative = fileStorageService.storeFileInSubDirectory(file, "imports");
+				relative = fileStorageService.storeFileInSubDirectory(file, "imports");
 				String fullPath = fileStorageService.getFilePath(relative).toString();
 				ImportSummary summary = importService.importXml(fullPath);
 				redirectAttributes.addFlashAttribute("message", "Import zakończony: " + summary.importedCount() + " rekordów, błędy: " + summary.getFailedCount());
@@ -151,22 +166,73 @@ public class EmployeeViewController {
 			}
 		} catch (Exception ex) {
 			redirectAttributes.addFlashAttribute("error", "Błąd podczas importu: " + ex.getMessage());
+		} finally {
+			// plik importu nie jest przechowywany po zakończeniu
+			if (relative != null) {
+				try {
+					fileStorageService.deleteFile(relative);
+				} catch (RuntimeException ignored) {
+					// brak pliku nie zmienia wyniku importu
+				}
+			}
 		}
 		return "redirect:/employees";
 	}
 
+	// wyszukiwanie w bazie przez Specification (prefiksy imienia/nazwiska/emaila po indeksach), stronicowane
 	@PostMapping("/search")
-	public String searchByCompany(@RequestParam("company") String company, Model model) {
-		var matches = employeeService.getAllEmployees().stream()
-			.filter(e -> company == null || company.isBlank() || (e.getCompanyName() != null && e.getCompanyName().equalsIgnoreCase(company.trim())))
-			.map(this::toDto)
-			.collect(Collectors.toList());
-		model.addAttribute("employees", matches);
-		model.addAttribute("query", company);
+	public String search(@RequestParam(name = "name", required = false) String name,
+						 @RequestParam(name = "email", required = false) String email,
+						 @RequestParam(name = "company", required = false) String company,
+						 @RequestParam(name = "status", required = false) String status,
+						 @RequestParam(name = "position", required = false) String position,
+						 @RequestParam(name = "page", defaultValue = "0") int page,
+						 Model model) {
+		EmploymentStatus st = parseEnum(EmploymentStatus.class, status);
+		Position pos = parseEnum(Position.class, position);
+		Specification<Employee> spec = Specification.allOf(
+				EmployeeSpecification.nameStartsWith(name),
+				EmployeeSpecification.emailStartsWith(email),
+				EmployeeSpecification.byCompany(company),
+				EmployeeSpecification.byStatus(st),
+				EmployeeSpecification.byPosition(pos));
+		Pageable pageable = PageRequest.of(Math.max(page, 0), SEARCH_PAGE_SIZE, SEARCH_SORT);
+		Page<EmployeeDTO> results = employeeService.findViews(spec, pageable).map(this::toDto);
+
+		model.addAttribute("employees", results.getContent());
+		model.addAttribute("page", results);
+		model.addAttribute("criteria", searchCriteria(name, email, company, st, pos));
+		model.addAttribute("query", describeCriteria(name, email, company, st, pos));
 		return "employees/search-results";
 	}
 
 	// --- helpers ---
+	private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+		if (value == null || value.isBlank()) return null;
+		try {
+			return Enum.valueOf(type, value.trim().toUpperCase());
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	// kryteria przekazywane z powrotem do formularzy stronicowania (ukryte pola)
+	private static Map<String, String> searchCriteria(String name, String email, String company, EmploymentStatus status, Position position) {
+		Map<String, String> criteria = new LinkedHashMap<>();
+		if (name != null && !name.isBlank()) criteria.put("name", name.trim());
+		if (email != null && !email.isBlank()) criteria.put("email", email.trim());
+		if (company != null && !company.isBlank()) criteria.put("company", company.trim());
+		if (status != null) criteria.put("status", status.name());
+		if (position != null) criteria.put("position", position.name());
+		return criteria;
+	}
+
+	private static String describeCriteria(String name, String email, String company, EmploymentStatus status, Position position) {
+		return searchCriteria(name, email, company, status, position).entrySet().stream()
+				.map(e -> e.getKey() + ": " + e.getValue())
+				.collect(Collectors.joining(", "));
+	}
+
 	private EmployeeDTO toDto(Employee e) {
 		String full = e.getFullName() == null ? "" : e.getFullName().trim();
 		String first = "";
@@ -193,6 +259,12 @@ public class EmployeeViewController {
 		return dto;
 	}
 
+	private EmployeeDTO toDto(EmployeeView v) {
+		return new EmployeeDTO(v.id(), v.firstName(), v.lastName(), v.email(), v.companyName(),
+				v.position() == null ? null : v.position().name(), v.salary(),
+				v.status() == null ? null : v.status().name());
+	}
+
 	private Employee dtoToEmployee(EmployeeDTO dto, String emailOverride) {
 		String first = dto.getFirstName() == null ? "" : dto.getFirstName().trim();
 		String last = dto.getLastName() == null ? "" : dto.getLastName().trim();
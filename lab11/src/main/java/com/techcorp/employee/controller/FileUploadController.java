@@ -1,28 +1,45 @@
 package com.techcorp.employee.controller;
+import com.techcorp.employee.model.BulkReportStatus;
+import com.techcorp.employee.model.ImportJobStatus;
+import com.techcorp.employee.model.ImportMode;
 import com.techcorp.employee.model.ImportSummary;
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.service.FileDownloadService;
 import com.techcorp.employee.service.FileStorageService;
-import com.techcorp.employee.service.ImportService;
+import com.techcorp.employee.service.PhotoThumbnailService;
+import com.techcorp.employee.service.ImportJobService;
 import com.techcorp.employee.exception.InvalidFileException;
 import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.util.unit.DataSize;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
-import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestParam;
 import com.techcorp.employee.service.EmployeeService;
-import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.dto.EmployeeExportRow;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.techcorp.employee.exception.InvalidDataException;
 import com.techcorp.employee.exception.FileNotFoundException;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -37,10 +54,12 @@ import java.net.URI;
 public class FileUploadController {
 
     private final FileStorageService fileStorageService;
-    private final ImportService importService;
+    private final ImportJobService importJobService;
     private final EmployeeService employeeService;
     private final ReportGeneratorService reportGeneratorService;
     private final EmployeeDocumentService employeeDocumentService;
+    private final FileDownloadService fileDownloadService;
+    private final PhotoThumbnailService photoThumbnailService;
 
     @Value("${spring.servlet.multipart.max-file-size}")
     private DataSize maxFileSize;
@@ -48,62 +67,94 @@ public class FileUploadController {
     private static final String[] XML_ALLOWED = new String[]{"xml"};
 
     @Autowired
-    public FileUploadController(FileStorageService fileStorageService, ImportService importService, EmployeeService employeeService, ReportGeneratorService reportGeneratorService, EmployeeDocumentService employeeDocumentService) {
+    public FileUploadController(FileStorageService fileStorageService, ImportJobService importJobService, EmployeeService employeeService, ReportGeneratorService reportGeneratorService, EmployeeDocumentService employeeDocumentService, FileDownloadService fileDownloadService, PhotoThumbnailService photoThumbnailService) {
         this.fileStorageService = fileStorageService;
-        this.importService = importService;
+        this.importJobService = importJobService;
         this.employeeService = employeeService;
         this.reportGeneratorService = reportGeneratorService;
         this.employeeDocumentService = employeeDocumentService;
+        this.fileDownloadService = fileDownloadService;
+        this.photoThumbnailService = photoThumbnailService;
     }
 
     @GetMapping("/export/csv")
-    public ResponseEntity<Resource> exportCsv(@RequestParam(value = "company", required = false) String company) {
-        try {
-            List<Employee> employees = employeeService.getAllEmployees();
-            if (company != null && !company.isBlank()) {
-                String companyTrim = company.trim();
-                employees = employees.stream()
-                        .filter(employee -> employee.getCompanyName() != null && employee.getCompanyName().trim().equalsIgnoreCase(companyTrim))
-                        .toList();
+    public ResponseEntity<StreamingResponseBody> exportCsv(@RequestParam(value = "company", required = false) String company) {
+        // wiersze zapisywane do odpowiedzi w trakcie czytania kursora - bez Content-Length, odpowiedź chunked
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writer.write("fullName,email,company,position,salary\n");
+            try {
+                employeeService.forEachExportRow(company, row -> {
+                    try {
+                        writeCsvRow(writer, row);
+                    } catch (IOException ioe) {
+                        throw new UncheckedIOException(ioe);
+                    }
+                });
+            } catch (UncheckedIOException uioe) {
+                throw uioe.getCause();
             }
+            writer.flush();
+        };
 
-            StringBuilder stringbuilder = new StringBuilder();
-            stringbuilder.append("fullName,email,company,position,salary\n");
-            for (Employee employee : employees) {
-                stringbuilder.append('"').append(employee.getFullName().replace("\"","\"\"")).append('"').append(',');
-                stringbuilder.append(employee.getEmail()).append(',');
-                stringbuilder.append('"').append(employee.getCompanyName() == null ? "" : employee.getCompanyName().replace("\"","\"\"")).append('"').append(',');
-                stringbuilder.append(employee.getPosition() == null ? "" : employee.getPosition().name()).append(',');
-                stringbuilder.append(String.format(java.util.Locale.ROOT, "%.2f", employee.getSalary())).append('\n');
-            }
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_TYPE, "text/csv; charset=UTF-8");
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=employees.csv");
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
 
-            byte[] bytes = stringbuilder.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8);
-            ByteArrayResource resource = new ByteArrayResource(Objects.requireNonNull(bytes));
+    private static void writeCsvRow(Writer writer, EmployeeExportRow row) throws IOException {
+        writer.write('"');
+        writer.write(row.getFullName().replace("\"", "\"\""));
+        writer.write("\",");
+        writer.write(row.getEmail());
+        writer.write(",\"");
+        writer.write(row.getCompanyName() == null ? "" : row.getCompanyName().replace("\"", "\"\""));
+        writer.write("\",");
+        writer.write(row.getPosition() == null ? "" : row.getPosition().name());
+        writer.write(',');
+        writer.write(String.format(Locale.ROOT, "%.2f", row.getSalary()));
+        writer.write('\n');
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_TYPE, "text/csv; charset=UTF-8");
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=employees.csv");
+    @PostMapping("/reports/statistics")
+    public ResponseEntity<BulkReportStatus> startBulkStatisticsReports() {
+        BulkReportStatus status = reportGeneratorService.startBulkReport();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setLocation(URI.create("/api/files/reports/statistics/jobs/" + status.jobId()));
+        return ResponseEntity.status(HttpStatus.ACCEPTED).headers(headers).body(status);
+    }
 
-            return ResponseEntity.ok().headers(headers).contentLength(bytes.length).body(resource);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+    @GetMapping("/reports/statistics/jobs/{jobId}")
+    public ResponseEntity<BulkReportStatus> bulkStatisticsReportStatus(@PathVariable("jobId") String jobId) {
+        return reportGeneratorService.getBulkReportStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
+    // wszystkie raporty w jednym ZIP-ie, zapisywanym do odpowiedzi w miarę renderowania
+    @GetMapping("/reports/statistics.zip")
+    public ResponseEntity<StreamingResponseBody> allStatisticsReportsZip() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.CONTENT_TYPE, "application/zip");
+        headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=statistics.zip");
+        return ResponseEntity.ok().headers(headers).body(reportGeneratorService::writeAllReportsZip);
+    }
+
+    // raport zapisany w katalogu raportów i wysyłany z dysku; niezmienione statystyki = ten sam ETag (304)
     @GetMapping("/reports/statistics/{companyName}")
-    public ResponseEntity<Resource> statisticsPdf(@PathVariable("companyName") String companyName) {
+    public void statisticsPdf(@PathVariable("companyName") String companyName,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        java.nio.file.Path report;
         try {
-            byte[] pdfBytes = reportGeneratorService.generateCompanyStatisticsPdf(companyName);
-            ByteArrayResource resource = new ByteArrayResource(Objects.requireNonNull(pdfBytes));
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_TYPE, "application/pdf");
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=statistics_" + companyName + ".pdf");
-
-            return ResponseEntity.ok().headers(headers).contentLength(pdfBytes.length).body(resource);
+            report = reportGeneratorService.generateCompanyStatisticsReport(companyName);
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            response.setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+            return;
         }
+        fileDownloadService.serve(fileStorageService.describe(report),
+                ContentDisposition.inline().filename("statistics_" + companyName + ".pdf", StandardCharsets.UTF_8).build(),
+                CacheControl.noCache().cachePrivate(), request, response);
     }
 
     @PostMapping("/photos/{email}")
@@ -132,12 +183,17 @@ public class FileUploadController {
             String relative = fileStorageService.storeFileWithNameInSubDirectory(file, "photos", desired);
 
             // update employee
-            var emp = empOpt.get();
-            emp.setPhotoFileName(relative);
+            String previous = empOpt.get().getPhotoFileName();
+            var emp = employeeService.changePhoto(email, relative);
+            if (emp.isEmpty()) return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Employee not found");
+            if (previous != null && !previous.isBlank() && !previous.equals(relative)) {
+                photoThumbnailService.photoRemoved(previous);
+            }
+            photoThumbnailService.photoChanged(relative);
 
             HttpHeaders headers = new HttpHeaders();
             headers.setLocation(URI.create(String.format("/api/files/photos/%s", email)));
-            return ResponseEntity.status(HttpStatus.CREATED).headers(headers).body(emp);
+            return ResponseEntity.status(HttpStatus.CREATED).headers(headers).body(emp.get());
 
         } catch (InvalidFileException ife) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ife.getMessage());
@@ -148,27 +204,37 @@ public class FileUploadController {
         }
     }
 
+    // adres zdjęcia stały, treść może się zmienić - przeglądarka zawsze pyta warunkowo (zwykle 304 bez treści).
+    // Miniatury (?size=64|256) do list pracowników trzymane w cache przeglądarki przez dobę bez pytania;
+    // nowe zdjęcie widać na liście najpóźniej po tym czasie. Brakująca miniatura generowana w tle - do tego
+    // czasu wysyłany oryginał bez zapisu w cache, żeby kolejne żądanie dostało już miniaturę.
     @GetMapping("/photos/{email}")
-    public ResponseEntity<Resource> getPhoto(@PathVariable("email") String email) {
+    public void getPhoto(@PathVariable("email") String email,
+                         @RequestParam(value = "size", required = false) Integer size,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (size != null && !PhotoThumbnailService.isSupportedSize(size)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unsupported thumbnail size: " + size);
+            return;
+        }
         var empOpt = employeeService.findByEmail(email);
-        if (empOpt.isEmpty()) return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        var emp = empOpt.get();
-        String photoPath = emp.getPhotoFileName();
-        if (photoPath == null || photoPath.isBlank()) return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-
-        try {
-            Resource resource = fileStorageService.loadFileAsResource(photoPath);
-            java.nio.file.Path p = fileStorageService.getFilePath(photoPath);
-            String contentType = java.nio.file.Files.probeContentType(p);
-            if (contentType == null) contentType = "application/octet-stream";
-
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_TYPE, contentType);
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + p.getFileName().toString() + "\"");
-            return ResponseEntity.ok().headers(headers).contentLength(resource.contentLength()).body(resource);
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        String photoPath = empOpt.map(Employee::getPhotoFileName).orElse(null);
+        if (photoPath == null || photoPath.isBlank()) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (size != null) {
+            Optional<String> thumbnail = photoThumbnailService.thumbnailIfReady(photoPath, size);
+            if (thumbnail.isPresent()) {
+                photoPath = thumbnail.get();
+                cacheControl = CacheControl.maxAge(Duration.ofDays(1)).cachePrivate();
+            } else {
+                cacheControl = CacheControl.noStore();
+            }
+        }
+        String fileName = photoPath.substring(photoPath.lastIndexOf('/') + 1);
+        sendStoredFile(photoPath, ContentDisposition.inline().filename(fileName, StandardCharsets.UTF_8).build(),
+                cacheControl, request, response);
     }
 
     @PostMapping("/documents/{email}")
@@ -194,23 +260,33 @@ public class FileUploadController {
         return ResponseEntity.ok(employeeDocumentService.listDocuments(email));
     }
 
+    // treść dokumentu o danym id się nie zmienia (nowy plik = nowy dokument), więc może leżeć w cache przeglądarki
     @GetMapping("/documents/{email}/{documentId}")
-    public ResponseEntity<Resource> downloadDocument(@PathVariable("email") String email, @PathVariable("documentId") long documentId) {
+    public void downloadDocument(@PathVariable("email") String email, @PathVariable("documentId") long documentId,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        EmployeeDocument doc;
         try {
-            EmployeeDocument doc = employeeDocumentService.getDocument(email, documentId);
-            Resource resource = fileStorageService.loadFileAsResource(doc.getFilePath());
-            String contentType = java.nio.file.Files.probeContentType(fileStorageService.getFilePath(doc.getFilePath()));
-            if (contentType == null) contentType = "application/octet-stream";
+            doc = employeeDocumentService.getDocument(email, documentId);
+        } catch (FileNotFoundException fnf) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        String fileName = doc.getOriginalFileName() == null ? doc.getFileName() : doc.getOriginalFileName();
+        sendStoredFile(doc.getFilePath(), ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build(),
+                CacheControl.maxAge(Duration.ofDays(1)).cachePrivate(), request, response);
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.add(HttpHeaders.CONTENT_TYPE, contentType);
-            headers.add(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + doc.getOriginalFileName() + "\"");
-            return ResponseEntity.ok().headers(headers).contentLength(resource.contentLength()).body(resource);
+    // plik z magazynu przez FileDownloadService (zakresy, 304); 404, gdy pliku brak na dysku
+    private void sendStoredFile(String relativePath, ContentDisposition disposition, CacheControl cacheControl,
+                                HttpServletRequest request, HttpServletResponse response) throws IOException {
+        FileStorageService.StoredFile stored;
+        try {
+            stored = fileStorageService.describe(relativePath);
         } catch (FileNotFoundException fnf) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        } catch (IOException ioe) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
         }
+        fileDownloadService.serve(stored, disposition, cacheControl, request, response);
     }
 
     @DeleteMapping("/documents/{email}/{documentId}")
@@ -223,43 +299,68 @@ public class FileUploadController {
         }
     }
 
+    // import w tle: plik zapisywany w żądaniu, przetwarzanie w kolejce zadań - 202 z adresem statusu
+    // mode=merge zapisuje tylko różnicę względem bazy, domyślnie (replace) plik zastępuje całą tabelę
     @PostMapping("/import/csv")
-    public ResponseEntity<ImportSummary> importCsv(@RequestParam("file") MultipartFile file) {
-        try {
-            fileStorageService.validateFile(file, maxFileSize.toBytes(), CSV_ALLOWED);
-            String relative = fileStorageService.storeFileInSubDirectory(file, "imports");
-            String fullPath = fileStorageService.getFilePath(relative).toString();
-            ImportSummary summary = importService.importCsv(fullPath);
-            return ResponseEntity.ok(summary);
-        
-        } catch (InvalidFileException exception) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ImportSummary(0, List.of(exception.getMessage())));
-        
-        } catch (IOException exception) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ImportSummary(0, List.of(exception.getMessage())));
-        
-        } catch (Exception exception) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ImportSummary(0, List.of(exception.getMessage() == null ? exception.toString() : exception.getMessage())));
-        }
+    public ResponseEntity<?> importCsv(@RequestParam("file") MultipartFile file,
+                                       @RequestParam(value = "mode", defaultValue = "replace") String mode) {
+        return startImport(file, CSV_ALLOWED, "csv", mode);
     }
 
     @PostMapping("/import/xml")
-    public ResponseEntity<ImportSummary> importXml(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> importXml(@RequestParam("file") MultipartFile file,
+                                       @RequestParam(value = "mode", defaultValue = "replace") String mode) {
+        return startImport(file, XML_ALLOWED, "xml", mode);
+    }
+
+    @GetMapping("/import/jobs/{jobId}")
+    public ResponseEntity<ImportJobStatus> importJobStatus(@PathVariable("jobId") String jobId) {
+        return importJobService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    private ResponseEntity<?> startImport(MultipartFile file, String[] allowed, String format, String mode) {
+        ImportMode importMode;
         try {
-            fileStorageService.validateFile(file, maxFileSize.toBytes(), XML_ALLOWED);
-            String relative = fileStorageService.storeFileInSubDirectory(file, "imports");
+            importMode = ImportMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException invalid) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ImportSummary(0, List.of("Invalid import mode: " + mode)));
+        }
+        String relative = null;
+        try {
+            fileStorageService.validateFile(file, maxFileSize.toBytes(), allowed);
+            relative = fileStorageService.storeFileInSubDirectory(file, "imports");
             String fullPath = fileStorageService.getFilePath(relative).toString();
-            ImportSummary summary = importService.importXml(fullPath);
-            return ResponseEntity.ok(summary);
+            ImportJobStatus status = importJobService.submit(format, fullPath, importMode);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setLocation(URI.create("/api/files/import/jobs/" + status.jobId()));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).headers(headers).body(status);
 
         } catch (InvalidFileException exception) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new ImportSummary(0, List.of(exception.getMessage())));
-        
-        } catch (IOException exception) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ImportSummary(0, List.of(exception.getMessage())));
-        
+
+        } catch (RejectedExecutionException exception) {
+            // kolejka importów pełna - klient ponawia później zamiast blokować kolejny wątek serwera
+            discardUpload(relative);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(new ImportSummary(0, List.of("Import queue is full, try again later")));
+
         } catch (Exception exception) {
+            discardUpload(relative);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ImportSummary(0, List.of(exception.getMessage() == null ? exception.toString() : exception.getMessage())));
         }
     }
-}
\ No newline at end of file
+
+    // plik zapisany pod imports/ bez zadania, które by go zwolniło - usuwany od razu
+    private void discardUpload(String relative) {
+        if (relative == null) {
+            return;
+        }
+        try {
+            fileStorageService.deleteFile(relative);
+        } catch (RuntimeException ignored) {
+            // błąd zgłaszany i tak
+        }
+    }
+}
@@ -2,7 +2,6 @@ package com.techcorp.employee.controller;
 
 import com.techcorp.employee.dto.CompanyStatisticsDTO;
 import com.techcorp.employee.model.CompanyStatistics;
-import com.techcorp.employee.model.Employee;
 import com.techcorp.employee.service.EmployeeService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,16 +25,7 @@ public class StatisticsController {
 
     @GetMapping("/salary/average")
     public ResponseEntity<Map<String, Double>> averageSalary(@RequestParam(value = "company", required = false) String company) {
-        double avg;
-        if (company == null || company.isBlank()) {
-            avg = employeeService.getAllEmployees().stream().mapToDouble(Employee::getSalary).average().orElse(0.0);
-        } else {
-            String cmp = company.trim();
-            avg = employeeService.getAllEmployees().stream()
-                    .filter(e -> cmp.equals(e.getCompanyName()))
-                    .mapToDouble(Employee::getSalary)
-                    .average().orElse(0.0);
-        }
+        double avg = employeeService.getAverageSalary(company);
         return ResponseEntity.ok(Map.of("averageSalary", avg));
     }
 
@@ -44,23 +34,16 @@ public class StatisticsController {
         if (companyName == null) return ResponseEntity.notFound().build();
         String key = companyName.trim();
 
-        Map<String, CompanyStatistics> stats = employeeService.getCompanyStatistics();
-        CompanyStatistics cs = stats.get(key);
+        CompanyStatistics cs = employeeService.getCompanyStatistics(key).orElse(null);
         if (cs == null) {
             return ResponseEntity.notFound().build();
         }
 
-        // compute highest salary for the company by scanning employees
-        double highestSalary = employeeService.getAllEmployees().stream()
-                .filter(e -> key.equals(e.getCompanyName()))
-                .mapToDouble(Employee::getSalary)
-                .max().orElse(0.0);
-
         CompanyStatisticsDTO dto = new CompanyStatisticsDTO();
         dto.setCompanyName(key);
         dto.setEmployeeCount(cs.getEmployeeCount());
         dto.setAverageSalary(cs.getAverageSalary());
-        dto.setHighestSalary(highestSalary);
+        dto.setHighestSalary(cs.getHighestSalary());
         dto.setTopEarnerName(cs.getHighestPaidFullName());
 
         return ResponseEntity.ok(dto);
@@ -68,9 +51,8 @@ public class StatisticsController {
 
     @GetMapping("/positions")
     public ResponseEntity<Map<String, Integer>> positions() {
-        Map<String, Integer> counts = employeeService.getAllEmployees().stream()
-                .filter(e -> e.getPosition() != null)
-                .collect(Collectors.groupingBy(e -> e.getPosition().name(), Collectors.collectingAndThen(Collectors.counting(), Long::intValue)));
+        Map<String, Integer> counts = employeeService.getPositionDistribution().entrySet().stream()
+                .collect(Collectors.toMap(e -> e.getKey().name(), e -> e.getValue().intValue()));
         return ResponseEntity.ok(counts);
     }
 
@@ -51,8 +51,7 @@ public class StatisticsViewController {
 
     @GetMapping("/company/{name}")
     public String companyDetails(@PathVariable("name") String name, Model model) {
-        Map<String, CompanyStatistics> stats = employeeService.getCompanyStatistics();
-        CompanyStatistics cs = stats.getOrDefault(name, new CompanyStatistics(0,0.0,""));
+        CompanyStatistics cs = employeeService.getCompanyStatistics(name).orElse(new CompanyStatistics(0,0.0,""));
         // collect employees for company
         List<Employee> employees = employeeService.getAllEmployees().stream()
                 .filter(e -> e.getCompanyName() != null && e.getCompanyName().equalsIgnoreCase(name))
@@ -0,0 +1,62 @@
+package com.techcorp.employee.dao;
+
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.EmploymentStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Zapis masowy pracowników przez JDBC batch - encje z IDENTITY wyłączają batching w Hibernate.
+ * Metody muszą być wołane wewnątrz transakcji (JdbcTemplate korzysta z połączenia transakcji JPA).
+ */
+@Repository
+public class JdbcEmployeeBatchDAO {
+	private static final String INSERT_SQL = "INSERT INTO employees (first_name, last_name, email, company, position, salary, status, email_normalized, company_normalized, first_name_normalized, last_name_normalized, content_hash) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public JdbcEmployeeBatchDAO(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public int deleteAll() {
+		return jdbcTemplate.update("DELETE FROM employees");
+	}
+
+	public int insertBatch(List<Employee> employees) {
+		if (employees == null || employees.isEmpty()) return 0;
+		int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				Employee employee = employees.get(i);
+				ps.setString(1, employee.getFirstName());
+				ps.setString(2, employee.getLastName());
+				ps.setString(3, employee.getEmail());
+				ps.setString(4, employee.getCompanyName());
+				if (employee.getPosition() == null) ps.setNull(5, Types.VARCHAR);
+				else ps.setString(5, employee.getPosition().name());
+				ps.setDouble(6, employee.getSalary());
+				EmploymentStatus status = employee.getStatus() == null ? EmploymentStatus.ACTIVE : employee.getStatus();
+				ps.setString(7, status.name());
+				// kolumny znormalizowane utrzymywane przez encję - przy zapisie JDBC liczone tutaj
+				ps.setString(8, Employee.normalize(employee.getEmail()));
+				ps.setString(9, Employee.normalize(employee.getCompanyName()));
+				ps.setString(10, Employee.normalize(employee.getFirstName()));
+				ps.setString(11, Employee.normalize(employee.getLastName()));
+				ps.setLong(12, employee.computeContentHash());
+			}
+
+			@Override
+			public int getBatchSize() {
+				return employees.size();
+			}
+		});
+		return counts.length;
+	}
+}
@@ -0,0 +1,116 @@
+package com.techcorp.employee.dao;
+
+import com.techcorp.employee.model.Employee;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * Zapytania importu w trybie scalania: odczyt bieżących wierszy partii po email_normalized (indeks unikalny),
+ * aktualizacja zmienionych wierszy po id i usuwanie wierszy nieobecnych w pliku.
+ * Metody zapisujące muszą być wołane wewnątrz transakcji.
+ */
+@Repository
+public class JdbcEmployeeMergeDAO {
+	// = ANY(tablica) - jeden parametr zamiast IN z tysiącem znaczników, H2 przeszukuje indeks dla każdego elementu
+	private static final String FIND_BY_EMAILS_SQL = "SELECT " + JdbcEmployeeWriteDAO.COLUMNS + ", email_normalized "
+			+ "FROM employees WHERE email_normalized = ANY(?)";
+
+	private static final String FIND_IDS_BY_EMAILS_SQL = "SELECT id, email_normalized FROM employees WHERE email_normalized = ANY(?)";
+
+	// status, zdjęcie i dział nie pochodzą z pliku - zostają bez zmian
+	private static final String UPDATE_SQL = "UPDATE employees SET first_name = ?, last_name = ?, email = ?, company = ?, position = ?, "
+			+ "salary = ?, company_normalized = ?, first_name_normalized = ?, last_name_normalized = ?, content_hash = ? WHERE id = ?";
+
+	private static final String DELETE_BY_IDS_SQL = "SELECT " + JdbcEmployeeWriteDAO.COLUMNS + " FROM OLD TABLE ("
+			+ "DELETE FROM employees WHERE id = ANY(?))";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public JdbcEmployeeMergeDAO(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public long maxId() {
+		Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM employees", Long.class);
+		return max == null ? 0L : max;
+	}
+
+	/**
+	 * Bieżące wiersze o podanych (znormalizowanych) emailach, kluczem jest email_normalized.
+	 */
+	public Map<String, Employee> findByEmails(Collection<String> emailsNormalized) {
+		Map<String, Employee> result = new HashMap<>();
+		if (emailsNormalized.isEmpty()) return result;
+		jdbcTemplate.query(FIND_BY_EMAILS_SQL, rs -> {
+			result.put(rs.getString("email_normalized"), JdbcEmployeeWriteDAO.ROW_MAPPER.mapRow(rs, rs.getRow()));
+		}, (Object) emailsNormalized.toArray(new String[0]));
+		return result;
+	}
+
+	public Map<String, Long> findIdsByEmails(Collection<String> emailsNormalized) {
+		Map<String, Long> result = new HashMap<>();
+		if (emailsNormalized.isEmpty()) return result;
+		jdbcTemplate.query(FIND_IDS_BY_EMAILS_SQL, rs -> {
+			result.put(rs.getString("email_normalized"), rs.getLong("id"));
+		}, (Object) emailsNormalized.toArray(new String[0]));
+		return result;
+	}
+
+	/**
+	 * Nadpisuje pola importowane wierszy o id ustawionych w encjach.
+	 */
+	public int updateBatch(List<Employee> employees) {
+		if (employees == null || employees.isEmpty()) return 0;
+		int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				Employee employee = employees.get(i);
+				ps.setString(1, employee.getFirstName());
+				ps.setString(2, employee.getLastName());
+				ps.setString(3, employee.getEmail());
+				ps.setString(4, employee.getCompanyName());
+				if (employee.getPosition() == null) ps.setNull(5, Types.VARCHAR);
+				else ps.setString(5, employee.getPosition().name());
+				ps.setDouble(6, employee.getSalary());
+				ps.setString(7, Employee.normalize(employee.getCompanyName()));
+				ps.setString(8, Employee.normalize(employee.getFirstName()));
+				ps.setString(9, Employee.normalize(employee.getLastName()));
+				ps.setLong(10, employee.computeContentHash());
+				ps.setLong(11, employee.getId());
+			}
+
+			@Override
+			public int getBatchSize() {
+				return employees.size();
+			}
+		});
+		return counts.length;
+	}
+
+	// przekazuje id wszystkich wierszy o id <= maxId (wiersze dodane później, np. przez bieżący import, pomijane)
+	public void forEachIdUpTo(long maxId, LongConsumer action) {
+		jdbcTemplate.query("SELECT id FROM employees WHERE id <= ?", rs -> {
+			action.accept(rs.getLong(1));
+		}, maxId);
+	}
+
+	/**
+	 * Usuwa wiersze o podanych id i zwraca je w stanie sprzed usunięcia.
+	 */
+	public List<Employee> deleteByIds(long[] ids) {
+		if (ids.length == 0) return List.of();
+		Long[] boxed = new Long[ids.length];
+		for (int i = 0; i < ids.length; i++) boxed[i] = ids[i];
+		return jdbcTemplate.query(DELETE_BY_IDS_SQL, JdbcEmployeeWriteDAO.ROW_MAPPER, (Object) boxed);
+	}
+}
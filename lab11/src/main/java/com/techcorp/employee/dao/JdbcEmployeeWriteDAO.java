@@ -0,0 +1,102 @@
+package com.techcorp.employee.dao;
+
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.EmploymentStatus;
+import com.techcorp.employee.model.Position;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Zmiany pojedynczego pracownika jednym poleceniem SQL - UPDATE/DELETE opakowane w OLD TABLE (H2)
+ * zwraca stan wiersza sprzed zmiany, więc nie trzeba go wcześniej odczytywać.
+ * Zapis omija kontekst utrwalania JPA - encje wczytane wcześniej w tym samym żądaniu nie są odświeżane.
+ */
+@Repository
+public class JdbcEmployeeWriteDAO {
+	static final String COLUMNS = "id, first_name, last_name, email, company, position, salary, status, photo_file_name, department_id, content_hash";
+
+	private static final String UPDATE_STATUS_SQL = "SELECT " + COLUMNS + " FROM OLD TABLE ("
+			+ "UPDATE employees SET status = ? WHERE email_normalized = ?)";
+
+	private static final String UPDATE_DETAILS_SQL = "SELECT " + COLUMNS + " FROM OLD TABLE ("
+			+ "UPDATE employees SET first_name = ?, last_name = ?, company = ?, position = ?, salary = ?, status = ?, "
+			+ "first_name_normalized = ?, last_name_normalized = ?, company_normalized = ?, content_hash = NULL WHERE email_normalized = ?)";
+
+	private static final String UPDATE_PHOTO_SQL = "SELECT " + COLUMNS + " FROM OLD TABLE ("
+			+ "UPDATE employees SET photo_file_name = ? WHERE email_normalized = ?)";
+
+	private static final String DELETE_SQL = "SELECT " + COLUMNS + " FROM OLD TABLE ("
+			+ "DELETE FROM employees WHERE email_normalized = ?)";
+
+	static final RowMapper<Employee> ROW_MAPPER = (rs, rowNum) -> {
+		String position = rs.getString("position");
+		Employee employee = new Employee(rs.getLong("id"), "", rs.getString("email"), rs.getString("company"),
+				position == null ? null : Position.valueOf(position), rs.getDouble("salary"));
+		employee.setFirstName(rs.getString("first_name"));
+		employee.setLastName(rs.getString("last_name"));
+		String status = rs.getString("status");
+		employee.setStatus(status == null ? null : EmploymentStatus.valueOf(status));
+		employee.setPhotoFileName(rs.getString("photo_file_name"));
+		long departmentId = rs.getLong("department_id");
+		employee.setDepartmentId(rs.wasNull() ? null : departmentId);
+		long contentHash = rs.getLong("content_hash");
+		employee.setContentHash(rs.wasNull() ? null : contentHash);
+		return employee;
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public JdbcEmployeeWriteDAO(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Ustawia status i zwraca wiersz sprzed zmiany (pusty = brak pracownika o tym emailu).
+	 */
+	public Optional<Employee> updateStatus(String emailNormalized, EmploymentStatus status) {
+		return single(jdbcTemplate.query(UPDATE_STATUS_SQL, ROW_MAPPER, status.name(), emailNormalized));
+	}
+
+	/**
+	 * Nadpisuje dane pracownika (imię, nazwisko, firma, stanowisko, pensja, status) i zwraca wiersz sprzed zmiany.
+	 * Email, zdjęcie i dział pozostają bez zmian. Skrót zawartości jest zerowany - kolejny import w trybie
+	 * scalania potraktuje wiersz jako zmieniony.
+	 */
+	public Optional<Employee> updateDetails(String emailNormalized, Employee updated) {
+		EmploymentStatus status = updated.getStatus() == null ? EmploymentStatus.ACTIVE : updated.getStatus();
+		return single(jdbcTemplate.query(UPDATE_DETAILS_SQL, ROW_MAPPER,
+				updated.getFirstName(),
+				updated.getLastName(),
+				updated.getCompanyName(),
+				updated.getPosition() == null ? null : updated.getPosition().name(),
+				updated.getSalary(),
+				status.name(),
+				Employee.normalize(updated.getFirstName()),
+				Employee.normalize(updated.getLastName()),
+				Employee.normalize(updated.getCompanyName()),
+				emailNormalized));
+	}
+
+	/**
+	 * Ustawia ścieżkę zdjęcia (względną w magazynie plików) i zwraca wiersz sprzed zmiany.
+	 */
+	public Optional<Employee> updatePhoto(String emailNormalized, String photoFileName) {
+		return single(jdbcTemplate.query(UPDATE_PHOTO_SQL, ROW_MAPPER, photoFileName, emailNormalized));
+	}
+
+	/**
+	 * Usuwa pracownika i zwraca usunięty wiersz.
+	 */
+	public Optional<Employee> delete(String emailNormalized) {
+		return single(jdbcTemplate.query(DELETE_SQL, ROW_MAPPER, emailNormalized));
+	}
+
+	// email_normalized jest unikalny - co najwyżej jeden wiersz
+	private static Optional<Employee> single(List<Employee> rows) {
+		return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+	}
+}
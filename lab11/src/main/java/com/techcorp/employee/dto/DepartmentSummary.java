@@ -0,0 +1,9 @@
+package com.techcorp.employee.dto;
+
+/**
+ * Wiersz listy departamentów: dane działu, liczba pracowników i imię managera z jednego zapytania (join + group by).
+ * managerName null, gdy dział nie ma managera lub email nie wskazuje żadnego pracownika.
+ */
+public record DepartmentSummary(Long id, String name, String location, double budget, String managerEmail,
+                                long employeeCount, String managerName) {
+}
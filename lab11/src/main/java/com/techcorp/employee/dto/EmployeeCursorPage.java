@@ -0,0 +1,9 @@
+package com.techcorp.employee.dto;
+
+import java.util.List;
+
+/**
+ * Strona wyników w trybie keyset: nextCursor przekazywany jako ?after= w kolejnym żądaniu (null = koniec danych)
+ */
+public record EmployeeCursorPage(List<EmployeeDTO> content, int size, String nextCursor) {
+}
@@ -0,0 +1,17 @@
+package com.techcorp.employee.dto;
+
+import com.techcorp.employee.model.Position;
+
+// Projection for CSV export: rows are not managed entities, so a long cursor does not grow the persistence context
+public interface EmployeeExportRow {
+    String getFirstName();
+    String getLastName();
+    String getEmail();
+    String getCompanyName();
+    Position getPosition();
+    double getSalary();
+
+    default String getFullName() {
+        return ((getFirstName() == null ? "" : getFirstName()) + " " + (getLastName() == null ? "" : getLastName())).trim();
+    }
+}
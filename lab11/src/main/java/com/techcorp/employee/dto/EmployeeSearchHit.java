@@ -0,0 +1,8 @@
+package com.techcorp.employee.dto;
+
+/**
+ * Trafienie wyszukiwania pełnotekstowego - dane z indeksu w pamięci, bez odczytu z bazy.
+ */
+public record EmployeeSearchHit(Long id, String firstName, String lastName, String email, String companyName,
+                                String departmentName, double score) {
+}
@@ -0,0 +1,9 @@
+package com.techcorp.employee.dto;
+
+import java.util.List;
+
+/**
+ * Wynik wyszukiwania: total = liczba wszystkich dopasowanych pracowników, hits = najlepsze z nich wg score.
+ */
+public record EmployeeSearchResult(String query, int total, List<EmployeeSearchHit> hits) {
+}
@@ -0,0 +1,8 @@
+package com.techcorp.employee.dto;
+
+/**
+ * Pola pracownika indeksowane przez wyszukiwarkę pełnotekstową (z nazwą działu) - jeden wiersz na pracownika.
+ */
+public record EmployeeSearchRow(Long id, String firstName, String lastName, String email, String companyName,
+                                Long departmentId, String departmentName) {
+}
@@ -0,0 +1,12 @@
+package com.techcorp.employee.dto;
+
+import com.techcorp.employee.model.EmploymentStatus;
+import com.techcorp.employee.model.Position;
+
+/**
+ * Projekcja wiersza listy pracowników - tylko kolumny potrzebne w EmployeeDTO, budowana wyrażeniem konstruktora
+ * (bez encji, proxy działu i migawek dirty-checking).
+ */
+public record EmployeeView(Long id, String firstName, String lastName, String email, String companyName,
+                           Position position, double salary, EmploymentStatus status) {
+}
@@ -0,0 +1,7 @@
+package com.techcorp.employee.dto;
+
+/**
+ * Pozycja listy wyboru managera w formularzu działu - tylko email i imię, bez ładowania encji.
+ */
+public record ManagerOption(String email, String fullName) {
+}
@@ -0,0 +1,12 @@
+package com.techcorp.employee.model;
+
+/**
+ * Stan zadania generowania raportów PDF dla wszystkich firm: postęp i przepustowość
+ */
+public record BulkReportStatus(String jobId, String state, int total, int completed, int failed,
+                               long elapsedMillis, double reportsPerSecond) {
+
+    public boolean isFinished() {
+        return completed + failed >= total;
+    }
+}
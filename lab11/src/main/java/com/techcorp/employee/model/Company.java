@@ -19,7 +19,7 @@ public class Company {
 
     public boolean addEmployee(Employee employee) {
         if(employee.getCompanyName() == null && employees.add(employee)) {
-            employee.companyName = name;
+            employee.setCompanyName(name);
             if(employee.getPosition() == null) {
                 employee.setPosition(Position.STAZYSTA);
             }
@@ -30,7 +30,7 @@ public class Company {
 
     public boolean removeEmployee(Employee employee) {
         if (Objects.equals(employee.companyName, this.name) && employees.remove(employee)) {
-            employee.companyName = null;
+            employee.setCompanyName(null);
             employee.setPosition(null);
             return true;
         }
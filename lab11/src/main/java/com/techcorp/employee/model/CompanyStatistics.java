@@ -4,13 +4,24 @@ public class CompanyStatistics {
     private final String companyName;
     private final int employeeCount;
     private final double averageSalary;
+    private final double highestSalary;
     private final String highestPaidFullName;
 
+    // Constructor used by aggregate JPQL queries (count/avg/max computed by the database)
+    public CompanyStatistics(String companyName, long employeeCount, double averageSalary, double highestSalary, String highestPaidFullName) {
+        this.companyName = companyName;
+        this.employeeCount = Math.toIntExact(employeeCount);
+        this.averageSalary = averageSalary;
+        this.highestSalary = highestSalary;
+        this.highestPaidFullName = highestPaidFullName == null ? "" : highestPaidFullName;
+    }
+
     // New constructor including company name
     public CompanyStatistics(String companyName, int employeeCount, double averageSalary, String highestPaidFullName) {
         this.companyName = companyName;
         this.employeeCount = employeeCount;
         this.averageSalary = averageSalary;
+        this.highestSalary = 0.0;
         this.highestPaidFullName = highestPaidFullName;
     }
 
@@ -22,6 +33,7 @@ public class CompanyStatistics {
     public String getCompanyName() { return companyName; }
     public int getEmployeeCount() { return employeeCount; }
     public double getAverageSalary() { return averageSalary; }
+    public double getHighestSalary() { return highestSalary; }
     public String getHighestPaidFullName() { return highestPaidFullName; }
 
     @Override
@@ -1,6 +1,8 @@
 package com.techcorp.employee.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import java.util.ArrayList;
@@ -8,7 +10,12 @@ import java.util.List;
 import java.util.Objects;
 
 @Entity
-@Table(name = "departments")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "department")
+@Table(name = "departments", indexes = {
+		@Index(name = "ix_departments_name_normalized", columnList = "name_normalized"),
+		@Index(name = "ix_departments_manager_email", columnList = "managerEmail")
+})
 public class Department {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,6 +31,10 @@ public class Department {
 
 	private String managerEmail;
 
+	// trim + lower(name) - wyszukiwanie po nazwie bez wielkości liter przez indeks
+	@Column(name = "name_normalized")
+	private String nameNormalized;
+
 	@OneToMany(mappedBy = "department", cascade = CascadeType.ALL, orphanRemoval = false)
 	private List<Employee> employees = new ArrayList<>();
 
@@ -35,13 +46,17 @@ public class Department {
 		this.location = location;
 		this.budget = budget;
 		this.managerEmail = managerEmail;
+		this.nameNormalized = Employee.normalize(name);
 	}
 
 	public Long getId() { return id; }
 	public void setId(Long id) { this.id = id; }
 
 	public String getName() { return name; }
-	public void setName(String name) { this.name = name; }
+	public void setName(String name) {
+		this.name = name;
+		this.nameNormalized = Employee.normalize(name);
+	}
 
 	public String getLocation() { return location; }
 	public void setLocation(String location) { this.location = location; }
@@ -55,6 +70,14 @@ public class Department {
 	public List<Employee> getEmployees() { return employees; }
 	public void setEmployees(List<Employee> employees) { this.employees = employees; }
 
+	public String getNameNormalized() { return nameNormalized; }
+
+	@PrePersist
+	@PreUpdate
+	void normalize() {
+		this.nameNormalized = Employee.normalize(name);
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) return true;
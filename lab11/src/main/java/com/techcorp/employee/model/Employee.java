@@ -1,12 +1,27 @@
 package com.techcorp.employee.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Locale;
 import java.util.Objects;
 
 @Entity
-@Table(name = "employees")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "employee")
+@NaturalIdCache(region = "employee-natural-id")
+// unikalność email_normalized zapewnia klucz naturalny (Hibernate tworzy dla niego unique constraint)
+@Table(name = "employees", indexes = {
+        @Index(name = "ix_employees_company_normalized", columnList = "company_normalized"),
+        @Index(name = "ix_employees_last_first_normalized", columnList = "last_name_normalized, first_name_normalized"),
+        @Index(name = "ix_employees_first_name_normalized", columnList = "first_name_normalized"),
+        @Index(name = "ix_employees_department_id", columnList = "department_id"),
+        @Index(name = "ix_employees_status", columnList = "status")
+})
 public class Employee {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -42,6 +57,28 @@ public class Employee {
     @JoinColumn(name = "department_id")
     private Department department;
 
+    // kolumny znormalizowane (trim + lower) - wyszukiwanie bez wielkości liter trafia w indeks zamiast lower(kolumna)
+    @NaturalId(mutable = true)
+    @Column(name = "email_normalized", nullable = false)
+    private String emailNormalized;
+
+    @Column(name = "company_normalized")
+    private String companyNormalized;
+
+    @Column(name = "first_name_normalized", nullable = false)
+    private String firstNameNormalized = "";
+
+    @Column(name = "last_name_normalized", nullable = false)
+    private String lastNameNormalized = "";
+
+    // skrót pól ustawianych przez import (imię, nazwisko, email, firma, stanowisko, pensja) -
+    // import w trybie scalania porównuje go z wierszem z pliku zamiast wszystkich kolumn
+    @Column(name = "content_hash")
+    private Long contentHash;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     public Employee() {}
 
     public Employee(Long id, String fullName, String email, String companyName, Position position, double salary) {
@@ -53,6 +90,7 @@ public class Employee {
         this.salary = salary;
         this.status = EmploymentStatus.ACTIVE;
         this.photoFileName = null;
+        normalize();
     }
 
     // Backwards-compatible constructor - sets id to null
@@ -64,10 +102,16 @@ public class Employee {
     public void setId(Long id) { this.id = id; }
 
     public String getFirstName() { return firstName; }
-    public void setFirstName(String firstName) { this.firstName = firstName == null ? "" : firstName; }
+    public void setFirstName(String firstName) {
+        this.firstName = firstName == null ? "" : firstName;
+        this.firstNameNormalized = normalize(this.firstName);
+    }
 
     public String getLastName() { return lastName; }
-    public void setLastName(String lastName) { this.lastName = lastName == null ? "" : lastName; }
+    public void setLastName(String lastName) {
+        this.lastName = lastName == null ? "" : lastName;
+        this.lastNameNormalized = normalize(this.lastName);
+    }
 
     public String getFullName() {
         String f = firstName == null ? "" : firstName.trim();
@@ -76,22 +120,28 @@ public class Employee {
     }
     public void setFullName(String fullName) {
         String fn = fullName == null ? "" : fullName.trim();
-        if (fn.isEmpty()) { this.firstName = ""; this.lastName = ""; return; }
+        if (fn.isEmpty()) { setFirstName(""); setLastName(""); return; }
         int idx = fn.indexOf(' ');
         if (idx > 0) {
-            this.firstName = fn.substring(0, idx);
-            this.lastName = fn.substring(idx + 1);
+            setFirstName(fn.substring(0, idx));
+            setLastName(fn.substring(idx + 1));
         } else {
-            this.firstName = fn;
-            this.lastName = "";
+            setFirstName(fn);
+            setLastName("");
         }
     }
 
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) {
+        this.email = email;
+        this.emailNormalized = normalize(email);
+    }
 
     public String getCompanyName() { return companyName; }
-    public void setCompanyName(String companyName) { this.companyName = companyName; }
+    public void setCompanyName(String companyName) {
+        this.companyName = companyName;
+        this.companyNormalized = normalize(companyName);
+    }
 
     public Position getPosition() { return position; }
     public double getSalary() { return salary; }
@@ -127,6 +177,54 @@ public class Employee {
         }
     }
 
+    public String getEmailNormalized() { return emailNormalized; }
+    public Long getContentHash() { return contentHash; }
+    public void setContentHash(Long contentHash) { this.contentHash = contentHash; }
+
+    /**
+     * Skrót FNV-1a (64 bit) bieżących wartości pól importowanych - ta sama wartość dla tego samego wiersza pliku.
+     */
+    public long computeContentHash() {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hashField(hash, firstName);
+        hash = hashField(hash, lastName);
+        hash = hashField(hash, email);
+        hash = hashField(hash, companyName);
+        hash = hashField(hash, position == null ? null : position.name());
+        return hashField(hash, Double.toString(salary));
+    }
+
+    private static long hashField(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+            }
+        }
+        // separator pól, inny dla null - "a"+"" i ""+"a" albo null i "" dają różne skróty
+        return (hash ^ (value == null ? 0x1e : 0x1f)) * FNV_PRIME;
+    }
+    public String getCompanyNormalized() { return companyNormalized; }
+
+    /**
+     * Postać używana w kolumnach *_normalized i w zapytaniach po nich.
+     */
+    public static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // pola mogą być zmienione z pominięciem setterów (np. Company) - przelicz przed zapisem
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        this.emailNormalized = normalize(email);
+        this.companyNormalized = normalize(companyName);
+        this.firstNameNormalized = firstName == null ? "" : normalize(firstName);
+        this.lastNameNormalized = lastName == null ? "" : normalize(lastName);
+        this.contentHash = computeContentHash();
+    }
+
     @Override
     public boolean equals(Object object) {
         if (this == object) return true;
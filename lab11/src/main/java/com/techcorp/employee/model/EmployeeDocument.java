@@ -1,14 +1,41 @@
 package com.techcorp.employee.model;
 
+import jakarta.persistence.*;
+
 import java.time.Instant;
 
+@Entity
+@Table(name = "employee_documents", indexes = {
+		// lista dokumentów pracownika: równość po emailu + sortowanie po dacie z jednego indeksu
+		@Index(name = "ix_employee_documents_email_uploaded", columnList = "employee_email_normalized, upload_date"),
+		@Index(name = "ix_employee_documents_upload_date", columnList = "upload_date")
+})
 public class EmployeeDocument {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
 	private long id;
+
+	@Column(name = "employee_email", nullable = false)
 	private String employeeEmail;
+
+	// trim + lower(email) - bez gettera, nie trafia do JSON
+	@Column(name = "employee_email_normalized", nullable = false)
+	private String employeeEmailNormalized;
+
+	@Column(name = "file_name")
 	private String fileName; // stored unique file name or relative path
+
+	@Column(name = "original_file_name")
 	private String originalFileName;
+
+	// DocumentType nie ma jeszcze pól - nie ma czego zapisywać
+	@Transient
 	private DocumentType fileType;
+
+	@Column(name = "upload_date", nullable = false)
 	private Instant uploadDate;
+
+	@Column(name = "file_path", nullable = false)
 	private String filePath; // relative path under uploads root (e.g. documents/email/uuid.pdf)
 
 	public EmployeeDocument() {}
@@ -16,6 +43,7 @@ public class EmployeeDocument {
 	public EmployeeDocument(long id, String employeeEmail, String fileName, String originalFileName, DocumentType fileType, Instant uploadDate, String filePath) {
 		this.id = id;
 		this.employeeEmail = employeeEmail;
+		this.employeeEmailNormalized = Employee.normalize(employeeEmail);
 		this.fileName = fileName;
 		this.originalFileName = originalFileName;
 		this.fileType = fileType;
@@ -27,7 +55,10 @@ public class EmployeeDocument {
 	public void setId(long id) { this.id = id; }
 
 	public String getEmployeeEmail() { return employeeEmail; }
-	public void setEmployeeEmail(String employeeEmail) { this.employeeEmail = employeeEmail; }
+	public void setEmployeeEmail(String employeeEmail) {
+		this.employeeEmail = employeeEmail;
+		this.employeeEmailNormalized = Employee.normalize(employeeEmail);
+	}
 
 	public String getFileName() { return fileName; }
 	public void setFileName(String fileName) { this.fileName = fileName; }
@@ -0,0 +1,13 @@
+package com.techcorp.employee.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wynik pobrania pracowników z wielu źródeł API: pracownicy po scaleniu (ten sam email - wygrywa wcześniejsze
+ * źródło na liście), liczba pracowników z każdego źródła, błędy źródeł, które się nie udały, i liczba pominiętych
+ * duplikatów.
+ */
+public record FederatedFetchResult(List<Employee> employees, Map<String, Integer> fetchedBySource,
+                                   Map<String, String> failures, int duplicates) {
+}
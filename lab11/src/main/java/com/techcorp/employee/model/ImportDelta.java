@@ -0,0 +1,7 @@
+package com.techcorp.employee.model;
+
+/**
+ * Różnica zastosowana przez import w trybie MERGE: wiersze dodane, zmienione, usunięte (brak w pliku) i bez zmian
+ */
+public record ImportDelta(int inserted, int updated, int deleted, int unchanged) {
+}
@@ -0,0 +1,16 @@
+package com.techcorp.employee.model;
+
+/**
+ * Stan zadania importu pliku:
+ * QUEUED - czeka w kolejce, RUNNING - w trakcie, FINISHED - zakończone, FAILED - przerwane błędem.
+ */
+public enum ImportJobState {
+    QUEUED,
+    RUNNING,
+    FINISHED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == FINISHED || this == FAILED;
+    }
+}
@@ -0,0 +1,17 @@
+package com.techcorp.employee.model;
+
+import java.util.List;
+
+/**
+ * Stan zadania importu pliku ({@link ImportJobState}), postęp, przepustowość (rekordy/s)
+ * oraz błędy - komunikaty walidacji po zakończeniu albo przyczyna niepowodzenia.
+ * {@code delta} wypełniane tylko po zakończonym imporcie w trybie MERGE.
+ */
+public record ImportJobStatus(String jobId, String format, ImportMode mode, ImportJobState state, long rowsParsed, long rowsPersisted,
+                              long errorCount, List<String> errors, long elapsedMillis, double rowsPerSecond,
+                              ImportDelta delta) {
+
+    public boolean isFinished() {
+        return state != null && state.isFinished();
+    }
+}
@@ -0,0 +1,11 @@
+package com.techcorp.employee.model;
+
+/**
+ * Tryb importu pliku pracowników:
+ * REPLACE - tabela czyszczona i wypełniana od nowa,
+ * MERGE - klucz to znormalizowany email, zapisywana tylko różnica (nowe, zmienione i brakujące w pliku wiersze).
+ */
+public enum ImportMode {
+    REPLACE,
+    MERGE
+}
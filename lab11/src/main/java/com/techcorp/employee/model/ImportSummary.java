@@ -3,9 +3,15 @@ package com.techcorp.employee.model;
 import java.util.List;
 
 /**
- * Wynik importu CSV: ile wierszy dodano oraz lista błędów
+ * Wynik importu CSV: ile wierszy dodano oraz lista błędów.
+ * W trybie MERGE importedCount to liczba poprawnych wierszy pliku, a delta - co faktycznie zmieniono w tabeli
+ * (null w trybie REPLACE).
  */
-public record ImportSummary(int importedCount, List<String> errors) {
+public record ImportSummary(int importedCount, List<String> errors, ImportDelta delta) {
+
+    public ImportSummary(int importedCount, List<String> errors) {
+        this(importedCount, errors, null);
+    }
 
     // dla testów - ile błędów
     public int getFailedCount() {
@@ -17,6 +23,7 @@ public record ImportSummary(int importedCount, List<String> errors) {
         return "ImportSummary{" +
                 "importedCount=" + importedCount +
                 ", errors=" + errors +
+                (delta == null ? "" : ", delta=" + delta) +
                 '}';
     }
 }
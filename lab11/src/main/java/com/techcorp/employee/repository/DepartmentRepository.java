@@ -1,19 +1,44 @@
 package com.techcorp.employee.repository;
 
+import com.techcorp.employee.dto.DepartmentSummary;
 import com.techcorp.employee.model.Department;
+import com.techcorp.employee.model.Employee;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
 
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+
 public interface DepartmentRepository extends JpaRepository<Department, Long>, JpaSpecificationExecutor<Department> {
-	Optional<Department> findByNameIgnoreCase(String name);
-	boolean existsByNameIgnoreCase(String name);
+	Optional<Department> findFirstByNameNormalized(String nameNormalized);
+	boolean existsByNameNormalized(String nameNormalized);
+
+	default Optional<Department> findByNameIgnoreCase(String name) {
+		return findFirstByNameNormalized(Employee.normalize(name));
+	}
+
+	default boolean existsByNameIgnoreCase(String name) {
+		return existsByNameNormalized(Employee.normalize(name));
+	}
 	Optional<Department> findByManagerEmailIgnoreCase(String managerEmail);
 	List<Department> findByLocationIgnoreCase(String location);
 	Page<Department> findAllByNameContainingIgnoreCase(String namePart, Pageable pageable);
+
+	// lista działów jednym zapytaniem: liczba pracowników (group by) + manager po znormalizowanym emailu (natural id)
+	@QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+	@Query("select new com.techcorp.employee.dto.DepartmentSummary(d.id, d.name, d.location, d.budget, d.managerEmail, count(e.id), " +
+	       "trim(concat(m.firstName, ' ', m.lastName))) " +
+	       "from Department d left join d.employees e " +
+	       "left join Employee m on m.emailNormalized = lower(trim(d.managerEmail)) " +
+	       "group by d.id, d.name, d.location, d.budget, d.managerEmail, m.firstName, m.lastName " +
+	       "order by d.name, d.id")
+	List<DepartmentSummary> findAllSummaries();
 }
  
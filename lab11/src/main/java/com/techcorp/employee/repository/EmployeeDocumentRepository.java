@@ -0,0 +1,16 @@
+package com.techcorp.employee.repository;
+
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.EmployeeDocument;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface EmployeeDocumentRepository extends JpaRepository<EmployeeDocument, Long> {
+    // indeks (employee_email_normalized, upload_date) - bez sortowania w pamięci
+    List<EmployeeDocument> findByEmployeeEmailNormalizedOrderByUploadDateAscIdAsc(String employeeEmailNormalized);
+
+    default List<EmployeeDocument> findByEmployeeEmail(String email) {
+        return findByEmployeeEmailNormalizedOrderByUploadDateAscIdAsc(Employee.normalize(email));
+    }
+}
@@ -0,0 +1,13 @@
+package com.techcorp.employee.repository;
+
+import com.techcorp.employee.model.Employee;
+
+import java.util.Optional;
+
+/**
+ * Wyszukiwanie pracownika po natural id (znormalizowany email) - trafia w cache natural id
+ * i cache encji zamiast wykonywać zapytanie przy każdym odczycie.
+ */
+public interface EmployeeNaturalIdRepository {
+    Optional<Employee> findByNaturalEmail(String emailNormalized);
+}
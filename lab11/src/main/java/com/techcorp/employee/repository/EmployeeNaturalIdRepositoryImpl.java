@@ -0,0 +1,25 @@
+package com.techcorp.employee.repository;
+
+import com.techcorp.employee.model.Employee;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class EmployeeNaturalIdRepositoryImpl implements EmployeeNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // transakcja potrzebna, by unwrap zwrócił sesję powiązaną z bieżącym kontekstem utrwalania
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Employee> findByNaturalEmail(String emailNormalized) {
+        if (emailNormalized == null) return Optional.empty();
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Employee.class)
+                .loadOptional(emailNormalized);
+    }
+}
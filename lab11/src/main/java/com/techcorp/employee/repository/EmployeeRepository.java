@@ -1,29 +1,111 @@
 package com.techcorp.employee.repository;
 
+import com.techcorp.employee.model.CompanyStatistics;
 import com.techcorp.employee.model.Employee;
 import com.techcorp.employee.model.EmploymentStatus;
+import com.techcorp.employee.dto.EmployeeExportRow;
 import com.techcorp.employee.dto.EmployeeListView;
+import com.techcorp.employee.dto.EmployeeSearchRow;
+import com.techcorp.employee.dto.EmployeeView;
+import com.techcorp.employee.dto.ManagerOption;
+import com.techcorp.employee.model.Position;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSpecificationExecutor<Employee> {
-    Optional<Employee> findByEmailIgnoreCase(String email);
-    boolean existsByEmailIgnoreCase(String email);
-    void deleteByEmailIgnoreCase(String email);
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSpecificationExecutor<Employee>, EmployeeNaturalIdRepository, EmployeeViewRepository {
+    // zapytania po kolumnie email_normalized (unikalny indeks) zamiast lower(email) = ?
+    boolean existsByEmailNormalized(String emailNormalized);
+    void deleteByEmailNormalized(String emailNormalized);
+
+    default Optional<Employee> findByEmailIgnoreCase(String email) {
+        return findByNaturalEmail(Employee.normalize(email));
+    }
+
+    default boolean existsByEmailIgnoreCase(String email) {
+        return existsByEmailNormalized(Employee.normalize(email));
+    }
+
+    default void deleteByEmailIgnoreCase(String email) {
+        deleteByEmailNormalized(Employee.normalize(email));
+    }
     List<Employee> findByStatus(EmploymentStatus status);
 
-    // Projection-based list query: fetch only required columns
+    // Projection-based list query: fetch only required columns (results kept in the query cache)
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query("select e.firstName as firstName, e.lastName as lastName, e.position as position, d.name as departmentName from Employee e left join e.department d")
     List<EmployeeListView> findAllListView();
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     @Query(value = "select e.firstName as firstName, e.lastName as lastName, e.position as position, d.name as departmentName from Employee e left join e.department d",
            countQuery = "select count(e) from Employee e")
     Page<EmployeeListView> findAllListView(Pageable pageable);
+
+    // Company statistics aggregated by the database (count / avg / max + top earner via correlated subquery)
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.techcorp.employee.model.CompanyStatistics(e.companyName, count(e), avg(e.salary), max(e.salary), " +
+           "(select trim(concat(x.firstName, ' ', x.lastName)) from Employee x " +
+           " where x.companyName = e.companyName or (x.companyName is null and e.companyName is null) " +
+           " order by x.salary desc limit 1)) " +
+           "from Employee e group by e.companyName")
+    List<CompanyStatistics> aggregateCompanyStatistics();
+
+    // Single-company variant: only rows of the given company are scanned
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.techcorp.employee.model.CompanyStatistics(e.companyName, count(e), avg(e.salary), max(e.salary), " +
+           "(select trim(concat(x.firstName, ' ', x.lastName)) from Employee x " +
+           " where x.companyName = e.companyName order by x.salary desc limit 1)) " +
+           "from Employee e where e.companyName = :company group by e.companyName")
+    Optional<CompanyStatistics> aggregateCompanyStatistics(@Param("company") String company);
+
+    // Full employee list as DTO rows (constructor expression - no entity hydration)
+    @Query("select new com.techcorp.employee.dto.EmployeeView(e.id, e.firstName, e.lastName, e.email, e.companyName, e.position, e.salary, e.status) " +
+           "from Employee e order by e.id")
+    List<EmployeeView> findAllViews();
+
+    // Full-text search index rebuild: indexed fields of every employee with the department name
+    @Query("select new com.techcorp.employee.dto.EmployeeSearchRow(e.id, e.firstName, e.lastName, e.email, e.companyName, d.id, d.name) " +
+           "from Employee e left join e.department d order by e.id")
+    List<EmployeeSearchRow> findSearchRows();
+
+    // Department details: list-view rows of a single department
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select e.firstName as firstName, e.lastName as lastName, e.position as position, d.name as departmentName " +
+           "from Employee e join e.department d where d.id = :departmentId order by e.lastNameNormalized, e.firstNameNormalized")
+    List<EmployeeListView> findListViewByDepartmentId(@Param("departmentId") Long departmentId);
+
+    // Manager dropdown: only email + name of employees holding one of the given positions
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select new com.techcorp.employee.dto.ManagerOption(e.email, trim(concat(e.firstName, ' ', e.lastName))) " +
+           "from Employee e where e.position in :positions order by e.lastNameNormalized, e.firstNameNormalized")
+    List<ManagerOption> findManagerOptions(@Param("positions") Collection<Position> positions);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select e.position, count(e) from Employee e group by e.position")
+    List<Object[]> countGroupedByPosition();
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    @Query("select e.status, count(e) from Employee e group by e.status")
+    List<Object[]> countGroupedByStatus();
+
+    // CSV export cursor: company filter in the query, rows fetched from the driver in chunks (requires an open transaction)
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select e.firstName as firstName, e.lastName as lastName, e.email as email, e.companyName as companyName, " +
+           "e.position as position, e.salary as salary from Employee e " +
+           "where :company is null or e.companyNormalized = :company order by e.id")
+    Stream<EmployeeExportRow> streamExportRows(@Param("company") String company);
 }
- 
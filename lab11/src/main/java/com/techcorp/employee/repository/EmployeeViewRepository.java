@@ -0,0 +1,19 @@
+package com.techcorp.employee.repository;
+
+import com.techcorp.employee.dto.EmployeeView;
+import com.techcorp.employee.model.Employee;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Odczyty list pracowników jako EmployeeView z filtrowaniem przez Specification.
+ */
+public interface EmployeeViewRepository {
+    Page<EmployeeView> findViews(Specification<Employee> spec, Pageable pageable);
+
+    List<EmployeeView> findViews(Specification<Employee> spec, Sort sort, int limit);
+}
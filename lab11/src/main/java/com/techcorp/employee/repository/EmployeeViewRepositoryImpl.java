@@ -0,0 +1,66 @@
+package com.techcorp.employee.repository;
+
+import com.techcorp.employee.dto.EmployeeView;
+import com.techcorp.employee.model.Employee;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Transactional(readOnly = true)
+class EmployeeViewRepositoryImpl implements EmployeeViewRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<EmployeeView> findViews(Specification<Employee> spec, Pageable pageable) {
+        TypedQuery<EmployeeView> query = viewQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<EmployeeView> findViews(Specification<Employee> spec, Sort sort, int limit) {
+        return viewQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    // select new EmployeeView(...) - tylko kolumny DTO, wiersze nie trafiają do kontekstu utrwalania
+    private TypedQuery<EmployeeView> viewQuery(Specification<Employee> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EmployeeView> query = cb.createQuery(EmployeeView.class);
+        Root<Employee> root = query.from(Employee.class);
+        query.select(cb.construct(EmployeeView.class,
+                root.get("id"), root.get("firstName"), root.get("lastName"), root.get("email"),
+                root.get("companyName"), root.get("position"), root.get("salary"), root.get("status")));
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        if (sort.isSorted()) query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Employee> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Employee> root = query.from(Employee.class);
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) query.where(predicate);
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
@@ -1,17 +1,54 @@
 package com.techcorp.employee.service;
 
+import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-import com.google.gson.*;
-import com.google.gson.JsonObject;
+import com.google.gson.Gson;
+import com.google.gson.Strictness;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
 import com.techcorp.employee.exception.ApiException;
 import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.FederatedFetchResult;
 import com.techcorp.employee.model.Position;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -24,62 +61,124 @@ import org.springframework.stereotype.Service;
  *  - company.name -> companyName
  * Dla JSON: wszystkim przypisuje stanowisko PROGRAMISTA i podstawową stawkę Programista.getBaseSalary()
  * Dla CSV: oczekuje wierszy (firstName,lastName,email,companyName,position,salary)
+ * Wiele źródeł (app.api.urls) pobieranych równolegle: każde z własnym limitem czasu, ponowieniami z rosnącym
+ * opóźnieniem i bezpiecznikiem (circuit breaker), który po serii błędów przestaje odpytywać niedziałające źródło.
  */
 @Service
 public class ApiService {
+    private static final Logger logger = LoggerFactory.getLogger(ApiService.class);
+
+    /**
+     * Zasady pobierania z jednego źródła: limit czasu jednej próby (do końca odczytu treści), liczba prób,
+     * opóźnienie przed drugą próbą (kolejne x2, z losowym rozrzutem), liczba kolejnych błędów otwierająca
+     * bezpiecznik i czas, przez jaki źródło nie jest odpytywane.
+     */
+    record FetchPolicy(Duration timeout, int maxAttempts, Duration retryBackoff,
+                       int circuitFailureThreshold, Duration circuitOpenDuration) {
+        static final FetchPolicy DEFAULT = new FetchPolicy(Duration.ofSeconds(10), 3, Duration.ofMillis(200),
+                5, Duration.ofSeconds(30));
+    }
+
     private final HttpClient httpClient;
     private final Gson gson;
     private final String defaultApiUrl;
+    private final List<String> sourceUrls;
+    private final FetchPolicy policy;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    // treść odpowiedzi czytana blokująco jako strumień - wątki wirtualne, nie wątki HttpClienta
+    private final ExecutorService bodyReaders = Executors.newVirtualThreadPerTaskExecutor();
 
     @Autowired
-    public ApiService(HttpClient httpClient, Gson gson, @Value("${app.api.url}") String defaultApiUrl) {
+    public ApiService(HttpClient httpClient, Gson gson, @Value("${app.api.url}") String defaultApiUrl,
+                      @Value("${app.api.urls:}") List<String> sourceUrls,
+                      @Value("${app.api.timeout:10s}") Duration timeout,
+                      @Value("${app.api.max-attempts:3}") int maxAttempts,
+                      @Value("${app.api.retry-backoff:200ms}") Duration retryBackoff,
+                      @Value("${app.api.circuit-failure-threshold:5}") int circuitFailureThreshold,
+                      @Value("${app.api.circuit-open-duration:30s}") Duration circuitOpenDuration) {
         this.httpClient = (httpClient == null) ? HttpClient.newHttpClient() : httpClient;
         this.gson = (gson == null) ? new Gson() : gson;
         this.defaultApiUrl = (defaultApiUrl == null) ? "" : defaultApiUrl;
+        this.sourceUrls = (sourceUrls == null) ? List.of() : List.copyOf(sourceUrls);
+        this.policy = new FetchPolicy(timeout, Math.max(1, maxAttempts), retryBackoff,
+                Math.max(1, circuitFailureThreshold), circuitOpenDuration);
     }
 
     // Konstruktor do wstrzykiwania HttpClient (testowanie)
     ApiService(HttpClient httpClient) {
+        this(httpClient, FetchPolicy.DEFAULT);
+    }
+
+    ApiService(HttpClient httpClient, FetchPolicy policy) {
         this.httpClient = (httpClient == null) ? HttpClient.newHttpClient() : httpClient;
         this.gson = new Gson();
         this.defaultApiUrl = "";
+        this.sourceUrls = List.of();
+        this.policy = Objects.requireNonNull(policy, "policy must not be null");
     }
 
     // Konstruktor bezargumentowy na potrzeby testów, NIE używany przez Spring
     ApiService() {
-        this.httpClient = HttpClient.newHttpClient();
-        this.gson = new Gson();
-        this.defaultApiUrl = "";
+        this(null, FetchPolicy.DEFAULT);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bodyReaders.shutdownNow();
     }
 
     /**
      * Wykonuje GET i mapuje dane. Rzuca ApiException w przypadku błędów HTTP lub parsowania.
      * Obsługuje JSON array (stare API) oraz CSV (firstName,lastName,email,companyName,position,salary).
      */
+    @Timed(value = "employee.api.fetch", description = "External employee API fetch and mapping")
     public List<Employee> fetchEmployeesFromApi(String url) throws ApiException {
+        List<Employee> result = new ArrayList<>();
+        streamEmployeesFromApi(url, result::add);
+        return result;
+    }
+
+    /**
+     * Jak fetchEmployeesFromApi, ale pracownicy przekazywani do consumer po jednym, w trakcie odczytu odpowiedzi -
+     * treść nie jest nigdzie trzymana w całości. Limit czasu z app.api.timeout obejmuje oczekiwanie na nagłówki.
+     *
+     * @return liczba przekazanych pracowników
+     */
+    @Timed(value = "employee.api.fetch", description = "External employee API fetch and mapping")
+    public int streamEmployeesFromApi(String url, Consumer<Employee> consumer) throws ApiException {
         HttpRequest request = HttpRequest.newBuilder()
                 .uri(URI.create(url))
+                .timeout(policy.timeout())
                 .GET()
                 .build();
 
-        HttpResponse<String> response;
+        HttpResponse<InputStream> response;
         try {
-            response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        } catch (IOException | InterruptedException e) {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (HttpTimeoutException e) {
+            throw new ApiException("Timed out fetching " + url, e);
+        } catch (IOException e) {
+            throw new ApiException("HTTP request failed", e);
+        } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new ApiException("HTTP request failed", e);
         }
 
-        int status = response.statusCode();
-        if (status < 200 || status >= 300) {
-            throw new ApiException("Unexpected HTTP status: " + status);
+        try (InputStream body = response.body()) {
+            int status = response.statusCode();
+            if (status < 200 || status >= 300) {
+                throw new ApiException("Unexpected HTTP status: " + status);
+            }
+            return parseBody(new InputStreamReader(body, charsetOf(response)), consumer);
+        } catch (MalformedBodyException e) {
+            throw new ApiException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new ApiException("Could not read API response", e);
         }
-
-        String body = response.body();
-        return parseBody(body);
     }
 
     // Ułatwienie: pobranie z domyślnego adresu z konfiguracji
+    @Timed(value = "employee.api.fetch", description = "External employee API fetch and mapping")
     public List<Employee> fetchEmployeesFromDefaultApi() throws ApiException {
         if (defaultApiUrl == null || defaultApiUrl.isBlank()) {
             throw new ApiException("Default API URL is not configured");
@@ -87,102 +186,401 @@ public class ApiService {
         return fetchEmployeesFromApi(defaultApiUrl);
     }
 
-    // testowalne bez HTTP
-    List<Employee> parseBody(String body) {
-        if (body == null) body = "";
+    /**
+     * Pobiera pracowników ze źródeł z app.api.urls, a gdy lista jest pusta - z domyślnego app.api.url.
+     */
+    @Timed(value = "employee.api.fetch.federated", description = "Concurrent fetch from all configured employee APIs")
+    public FederatedFetchResult fetchEmployeesFromConfiguredApis() {
+        return fetchEmployeesFromApis(sourceUrls.isEmpty() ? List.of(defaultApiUrl) : sourceUrls);
+    }
 
-        // Najpierw spróbuj JSON array
-        JsonElement root = null;
+    /**
+     * Odpytuje wszystkie źródła naraz i scala wyniki w kolejności listy (nie kolejności odpowiedzi), więc wynik
+     * nie zależy od tego, które źródło odpowie pierwsze. Błąd jednego źródła trafia do failures i nie przerywa
+     * pozostałych. Czas całości ogranicza najwolniejsze źródło: limit czasu x liczba prób + opóźnienia.
+     */
+    @Timed(value = "employee.api.fetch.federated", description = "Concurrent fetch from all configured employee APIs")
+    public FederatedFetchResult fetchEmployeesFromApis(List<String> urls) {
+        List<String> sources = urls.stream()
+                .filter(url -> url != null && !url.isBlank())
+                .map(String::trim)
+                .distinct()
+                .toList();
+        List<CompletableFuture<List<Employee>>> fetches = sources.stream().map(this::fetchEmployeesAsync).toList();
+
+        List<Employee> employees = new ArrayList<>();
+        Set<String> seenEmails = new HashSet<>();
+        Map<String, Integer> fetchedBySource = new LinkedHashMap<>();
+        Map<String, String> failures = new LinkedHashMap<>();
+        int duplicates = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            String source = sources.get(i);
+            List<Employee> fetched;
+            try {
+                fetched = fetches.get(i).join();
+            } catch (CompletionException | CancellationException e) {
+                Throwable cause = unwrap(e);
+                logger.warn("Employee API {} failed: {}", source, cause.getMessage());
+                failures.put(source, cause.getMessage());
+                continue;
+            }
+            fetchedBySource.put(source, fetched.size());
+            for (Employee employee : fetched) {
+                String email = Employee.normalize(employee.getEmail());
+                if (email == null || email.isEmpty() || seenEmails.add(email)) {
+                    employees.add(employee);
+                } else {
+                    duplicates++;
+                }
+            }
+        }
+        return new FederatedFetchResult(employees, fetchedBySource, failures, duplicates);
+    }
+
+    /**
+     * Nieblokujące pobranie z jednego źródła z limitem czasu, ponowieniami i bezpiecznikiem.
+     * Future kończy się ApiException, gdy wszystkie próby zawiodą albo bezpiecznik źródła jest otwarty.
+     */
+    public CompletableFuture<List<Employee>> fetchEmployeesAsync(String url) {
+        HttpRequest request;
         try {
-            // Use the injected Gson instance to parse JSON
-            root = gson.fromJson(body, JsonElement.class);
-        } catch (JsonSyntaxException ignored) {
-            // if invalid JSON, don't throw. CSV parsing below
+            request = HttpRequest.newBuilder(URI.create(url)).timeout(policy.timeout()).GET().build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new ApiException("Invalid API URL: " + url, e));
+        }
+        CircuitBreaker breaker = circuitBreakers.computeIfAbsent(url, key -> new CircuitBreaker(policy));
+        return attempt(url, request, breaker, 1);
+    }
+
+    private CompletableFuture<List<Employee>> attempt(String url, HttpRequest request, CircuitBreaker breaker, int attempt) {
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new ApiException("Circuit open for " + url));
+        }
+        return send(request).handle((employees, failure) -> {
+            if (failure == null) {
+                breaker.onSuccess();
+                return CompletableFuture.completedFuture(employees);
+            }
+            Throwable cause = unwrap(failure);
+            if (!isRetryable(cause)) {
+                // źródło odpowiada (np. 404, niepoprawna treść) - ponowienie nic nie zmieni, bezpiecznik bez zmian
+                breaker.onSuccess();
+                return CompletableFuture.<List<Employee>>failedFuture(toApiException(url, cause));
+            }
+            breaker.onFailure();
+            if (attempt >= policy.maxAttempts()) {
+                return CompletableFuture.<List<Employee>>failedFuture(toApiException(url, cause));
+            }
+            long delay = backoffMillis(attempt);
+            logger.debug("Employee API {} attempt {} failed ({}), retrying in {} ms", url, attempt, cause.getMessage(), delay);
+            return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> attempt(url, request, breaker, attempt + 1));
+        }).thenCompose(Function.identity());
+    }
+
+    // jedna próba: nagłówki asynchronicznie, treść czytana jako strumień; limit czasu obejmuje też odczyt treści
+    private CompletableFuture<List<Employee>> send(HttpRequest request) {
+        AtomicReference<InputStream> body = new AtomicReference<>();
+        AtomicBoolean abandoned = new AtomicBoolean();
+        CompletableFuture<HttpResponse<InputStream>> exchange =
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream());
+        CompletableFuture<List<Employee>> parsed = exchange.thenApplyAsync(response -> {
+            try (InputStream in = response.body()) {
+                body.set(in);
+                if (abandoned.get()) {
+                    // limit czasu minął, zanim zadanie ruszyło - treść zamykana bez odczytu
+                    return List.of();
+                }
+                int status = response.statusCode();
+                if (status < 200 || status >= 300) {
+                    throw new CompletionException(new UnexpectedStatusException(status));
+                }
+                List<Employee> employees = new ArrayList<>();
+                parseBody(new InputStreamReader(in, charsetOf(response)), employees::add);
+                return employees;
+            } catch (MalformedBodyException e) {
+                throw new CompletionException(new ApiException(e.getMessage(), e));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, bodyReaders);
+        return parsed.orTimeout(policy.timeout().toMillis(), TimeUnit.MILLISECONDS).whenComplete((employees, failure) -> {
+            if (failure != null) {
+                abandoned.set(true);
+                exchange.cancel(true);
+                InputStream in = body.get();
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException ignored) {
+                        // połączenie i tak porzucone
+                    }
+                }
+            }
+        });
+    }
+
+    private long backoffMillis(int attempt) {
+        long base = policy.retryBackoff().toMillis() << Math.min(attempt - 1, 16);
+        // rozrzut 50-100% - ponowienia wielu klientów nie trafiają w źródło w tej samej chwili
+        return base <= 1 ? base : ThreadLocalRandom.current().nextLong(base / 2, base + 1);
+    }
+
+    private static boolean isRetryable(Throwable cause) {
+        if (cause instanceof UnexpectedStatusException unexpected) {
+            return unexpected.status >= 500 || unexpected.status == 429;
+        }
+        return cause instanceof IOException || cause instanceof TimeoutException;
+    }
+
+    private static ApiException toApiException(String url, Throwable cause) {
+        if (cause instanceof ApiException apiException) return apiException;
+        // brak nagłówków w czasie (HttpTimeoutException) albo zbyt długi odczyt treści (TimeoutException)
+        if (cause instanceof TimeoutException || cause instanceof HttpTimeoutException) {
+            return new ApiException("Timed out fetching " + url, (Exception) cause);
+        }
+        return new ApiException("HTTP request to " + url + " failed: " + cause.getMessage(),
+                cause instanceof Exception exception ? exception : new ExecutionException(cause));
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        Throwable cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
         }
+        return cause;
+    }
 
+    /**
+     * Niepoprawna treść odpowiedzi (np. urwany JSON) - ponowienie nie pomoże, w przeciwieństwie do błędu połączenia.
+     */
+    static final class MalformedBodyException extends IOException {
+        MalformedBodyException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private static final class UnexpectedStatusException extends ApiException {
+        private final int status;
+
+        UnexpectedStatusException(int status) {
+            super("Unexpected HTTP status: " + status);
+            this.status = status;
+        }
+    }
+
+    /**
+     * Bezpiecznik jednego źródła: po {@code circuitFailureThreshold} kolejnych błędach źródło nie jest odpytywane
+     * przez {@code circuitOpenDuration}; potem przepuszczana jest jedna próba - sukces zamyka bezpiecznik,
+     * błąd otwiera go ponownie.
+     */
+    static final class CircuitBreaker {
+        private final FetchPolicy policy;
+        private int consecutiveFailures;
+        private long openUntilNanos;
+        private boolean trialInFlight;
+
+        CircuitBreaker(FetchPolicy policy) {
+            this.policy = policy;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (consecutiveFailures < policy.circuitFailureThreshold()) return true;
+            if (System.nanoTime() - openUntilNanos < 0 || trialInFlight) return false;
+            trialInFlight = true;
+            return true;
+        }
+
+        synchronized void onSuccess() {
+            consecutiveFailures = 0;
+            trialInFlight = false;
+        }
+
+        synchronized void onFailure() {
+            trialInFlight = false;
+            if (++consecutiveFailures >= policy.circuitFailureThreshold()) {
+                openUntilNanos = System.nanoTime() + policy.circuitOpenDuration().toNanos();
+            }
+        }
+    }
+
+    // kodowanie z Content-Type (jak BodyHandlers.ofString), domyślnie UTF-8
+    private static Charset charsetOf(HttpResponse<?> response) {
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        for (String parameter : contentType.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.regionMatches(true, 0, "charset=", 0, 8)) {
+                try {
+                    return Charset.forName(trimmed.substring(8).replace("\"", "").trim());
+                } catch (IllegalArgumentException unsupported) {
+                    break;
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    // testowalne bez HTTP
+    List<Employee> parseBody(String body) {
         List<Employee> result = new ArrayList<>();
+        try {
+            parseBody(new StringReader(body == null ? "" : body), result::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
 
-        if (root != null && root.isJsonArray()) {
-            JsonArray array = root.getAsJsonArray();
-            for (JsonElement element : array) {
-                if (!element.isJsonObject()) continue;
-                JsonObject object = element.getAsJsonObject();
+    /**
+     * Mapuje treść rekord po rekordzie: tablica JSON czytana JsonReaderem obiekt po obiekcie, wszystko inne
+     * jako CSV linia po linii. Pamięć zależy od rozmiaru jednego rekordu, nie całej odpowiedzi.
+     * Niepoprawny JSON przerywa odczyt wyjątkiem (pracownicy sprzed błędu zostali już przekazani).
+     *
+     * @return liczba przekazanych pracowników
+     */
+    int parseBody(Reader body, Consumer<Employee> consumer) throws IOException {
+        BufferedReader reader = body instanceof BufferedReader buffered ? buffered : new BufferedReader(body);
+        // pierwszy znak poza białymi znakami decyduje o formacie; nie jest konsumowany
+        int first;
+        do {
+            reader.mark(1);
+            first = reader.read();
+        } while (first != -1 && Character.isWhitespace(first));
+        if (first == -1) return 0;
+        reader.reset();
+        return first == '[' ? parseJsonArray(reader, consumer) : parseCsv(reader, consumer);
+    }
 
-                String fullName = safeGetString(object, "name"); // używamy jako fullname
-                String email = safeGetString(object, "email");
+    // format jsonplaceholder: [{"name": ..., "email": ..., "company": {"name": ...}}, ...]
+    private int parseJsonArray(Reader body, Consumer<Employee> consumer) throws IOException {
+        JsonReader reader = gson.newJsonReader(body);
+        // tak samo pobłażliwie jak Gson.fromJson
+        reader.setStrictness(Strictness.LENIENT);
+        int count = 0;
+        try {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                    reader.skipValue();
+                    continue;
+                }
+                String fullName = ""; // używamy jako fullname
+                String email = "";
                 String companyName = "";
-                if (object.has("company") && object.get("company").isJsonObject()) {
-                    companyName = safeGetString(object.getAsJsonObject("company"), "name");
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "name" -> fullName = nextString(reader);
+                        case "email" -> email = nextString(reader);
+                        case "company" -> companyName = nextCompanyName(reader);
+                        default -> reader.skipValue();
+                    }
                 }
+                reader.endObject();
 
                 Position position = Position.PROGRAMISTA;
                 double salary = position.getSalary();
-                Employee emp = new Employee(null, fullName, email, companyName, position, salary);
-                result.add(emp);
+                consumer.accept(new Employee(null, fullName, email, companyName, position, salary));
+                count++;
+            }
+            reader.endArray();
+        } catch (MalformedJsonException | EOFException malformed) {
+            // błąd treści, nie transportu - odróżniany od IOException połączenia
+            throw new MalformedBodyException("Malformed JSON response: " + malformed.getMessage(), malformed);
+        }
+        return count;
+    }
+
+    // wartość jako tekst: brak/null/obiekt/tablica -> "", liczba i boolean -> ich zapis
+    private static String nextString(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING, NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            case NULL:
+                reader.nextNull();
+                return "";
+            default:
+                reader.skipValue();
+                return "";
+        }
+    }
+
+    private static String nextCompanyName(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return "";
+        }
+        String name = "";
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("name")) {
+                name = nextString(reader);
+            } else {
+                reader.skipValue();
             }
-            return result;
         }
+        reader.endObject();
+        return name;
+    }
 
-        // CSV parsing - skopiowane z fetchEmployeesFromApi
-        String[] lines = body.split("\\r?\\n");
-        int index = 0;
+    private int parseCsv(BufferedReader reader, Consumer<Employee> consumer) throws IOException {
+        String line = reader.readLine();
         // pomiń puste linie na początku
-        while (index < lines.length && lines[index].trim().isEmpty()) index++;
+        while (line != null && line.trim().isEmpty()) line = reader.readLine();
 
         // wykrycie nagłówka
-        if (index < lines.length) {
-            String first = lines[index].toLowerCase();
-            if (first.contains("email") || first.contains("firstname") || first.contains("firstname".toLowerCase())) {
-                index++;
-            }
-        }
-
-        for (; index < lines.length; index++) {
-            String line = lines[index].trim();
-            if (line.isEmpty()) continue;
-            List<String> fields = parseCsvLine(line);
-            if (fields.size() < 6) continue;
-            String firstName = fields.get(0).trim();
-            String lastName = fields.get(1).trim();
-            String email = fields.get(2).trim();
-            String companyName = fields.get(3).trim();
-            String positionString = fields.get(4).trim();
-            String salaryString = fields.get(5).trim();
-
-            String fullName = firstName;
-            if (!lastName.isEmpty()) fullName = firstName + " " + lastName;
-
-            Position position = Position.PROGRAMISTA;
-            if (!positionString.isEmpty()) {
-                try {
-                    position = Position.valueOf(positionString.trim().toUpperCase());
-                } catch (IllegalArgumentException ignored) {
-                    // jeżeli nie można sparsować - zostawiamy domyślne PROGRAMISTA
-                }
+        if (line != null) {
+            String first = line.toLowerCase();
+            if (first.contains("email") || first.contains("firstname")) {
+                line = reader.readLine();
             }
+        }
 
-            double salary = position.getSalary();
-            if (!salaryString.isEmpty()) {
-                try {
-                    salary = Double.parseDouble(salaryString.replace(',', '.'));
-                } catch (NumberFormatException ignored) {
-                }
+        int count = 0;
+        for (; line != null; line = reader.readLine()) {
+            Employee employee = parseCsvRecord(line.trim());
+            if (employee != null) {
+                consumer.accept(employee);
+                count++;
             }
-
-            Employee employee = new Employee(null, fullName, email, companyName, position, salary);
-            result.add(employee);
         }
-
-        return result;
+        return count;
     }
 
-    private String safeGetString(JsonObject object, String member) {
-        if (!object.has(member) || object.get(member).isJsonNull()) return "";
-        try {
-            return object.get(member).getAsString();
-        } catch (ClassCastException | IllegalStateException exception) {
-            return "";
+    private Employee parseCsvRecord(String line) {
+        if (line.isEmpty()) return null;
+        List<String> fields = parseCsvLine(line);
+        if (fields.size() < 6) return null;
+        String firstName = fields.get(0).trim();
+        String lastName = fields.get(1).trim();
+        String email = fields.get(2).trim();
+        String companyName = fields.get(3).trim();
+        String positionString = fields.get(4).trim();
+        String salaryString = fields.get(5).trim();
+
+        String fullName = firstName;
+        if (!lastName.isEmpty()) fullName = firstName + " " + lastName;
+
+        Position position = Position.PROGRAMISTA;
+        if (!positionString.isEmpty()) {
+            try {
+                position = Position.valueOf(positionString.trim().toUpperCase());
+            } catch (IllegalArgumentException ignored) {
+                // jeżeli nie można sparsować - zostawiamy domyślne PROGRAMISTA
+            }
         }
+
+        double salary = position.getSalary();
+        if (!salaryString.isEmpty()) {
+            try {
+                salary = Double.parseDouble(salaryString.replace(',', '.'));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        return new Employee(null, fullName, email, companyName, position, salary);
     }
 
     // csv parser
@@ -1,28 +1,41 @@
 package com.techcorp.employee.service;
 
+import com.techcorp.employee.dto.DepartmentSummary;
 import com.techcorp.employee.model.Department;
 import com.techcorp.employee.repository.DepartmentRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
 @Service
 public class DepartmentService {
 	private final DepartmentRepository repository;
+	private final EmployeeSearchIndex searchIndex;
+	private final EmployeeService employeeService;
 
-	public DepartmentService(DepartmentRepository repository) {
+	public DepartmentService(DepartmentRepository repository, EmployeeSearchIndex searchIndex, EmployeeService employeeService) {
 		this.repository = repository;
+		this.searchIndex = searchIndex;
+		this.employeeService = employeeService;
 	}
 
 	public Department addDepartment(Department department) {
 		if (department == null) return null;
-		return repository.save(department);
+		Department saved = repository.save(department);
+		searchIndex.departmentChanged(saved.getId(), saved.getName());
+		return saved;
 	}
 
 	public List<Department> getAllDepartments() {
 		return repository.findAll();
 	}
 
+	// działy z liczbą pracowników i imieniem managera - jedno zapytanie niezależnie od liczby działów
+	public List<DepartmentSummary> getDepartmentSummaries() {
+		return repository.findAllSummaries();
+	}
+
 	public Optional<Department> findById(Long id) {
 		if (id == null) return Optional.empty();
 		return repository.findById(id);
@@ -32,13 +45,22 @@ public class DepartmentService {
 		if (id == null || updated == null) return Optional.empty();
 		if (!repository.existsById(id)) return Optional.empty();
 		updated.setId(id);
-		return Optional.of(repository.save(updated));
+		Department saved = repository.save(updated);
+		// nazwa działu jest indeksowana przy jego pracownikach
+		searchIndex.departmentChanged(id, saved.getName());
+		return Optional.of(saved);
 	}
 
+	// Department.employees ma CascadeType.ALL - razem z działem usuwani są jego pracownicy,
+	// więc indeksy w pamięci dostają ich usunięcie tak samo jak przy removeEmployee
+	@Transactional
 	public boolean removeDepartment(Long id) {
 		if (id == null) return false;
-		if (!repository.existsById(id)) return false;
-		repository.deleteById(id);
+		Optional<Department> department = repository.findById(id);
+		if (department.isEmpty()) return false;
+		employeeService.departmentEmployeesRemoved(department.get().getEmployees());
+		repository.delete(department.get());
+		searchIndex.departmentChanged(id, null);
 		return true;
 	}
 }
@@ -3,30 +3,58 @@ package com.techcorp.employee.service;
 import com.techcorp.employee.exception.FileNotFoundException;
 import com.techcorp.employee.exception.InvalidDataException;
 import com.techcorp.employee.model.DocumentType;
+import com.techcorp.employee.model.Employee;
 import com.techcorp.employee.model.EmployeeDocument;
+import com.techcorp.employee.repository.EmployeeDocumentRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Metadane dokumentów pracowników w tabeli employee_documents. Listy dokumentów pracownika trzymane w ograniczonym
+ * cache (Caffeine, najdawniej używane wypadają) jako niemodyfikowalne kopie: odczyt bez blokad, zapis podmienia
+ * listę na nową (copy-on-write), usunięcie pracownika usuwa jego listę. Brakująca lista wczytywana z bazy poza
+ * mapą; trafia do cache tylko, gdy w trakcie wczytywania nie trwał ani nie zakończył się żaden zapis dokumentu -
+ * inaczej mogłaby nie zawierać dokumentu zapisanego w międzyczasie.
+ */
 @Service
 public class EmployeeDocumentService {
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+
     private final FileStorageService fileStorageService;
     private final EmployeeService employeeService;
-    private final Map<Long, EmployeeDocument> documents = new ConcurrentHashMap<>();
-    private final Map<String, List<Long>> byEmail = new ConcurrentHashMap<>();
-    private final AtomicLong idGen = new AtomicLong(1);
+    private final EmployeeDocumentRepository documentRepository;
+    private final Map<String, List<EmployeeDocument>> byEmail;
+    // zapisy rozpoczęte / zakończone (zakończony = zmiana w bazie i w cache)
+    private final AtomicLong writesStarted = new AtomicLong();
+    private final AtomicLong writesFinished = new AtomicLong();
 
-    public EmployeeDocumentService(FileStorageService fileStorageService, EmployeeService employeeService) {
+    @Autowired
+    public EmployeeDocumentService(FileStorageService fileStorageService, EmployeeService employeeService,
+                                   EmployeeDocumentRepository documentRepository,
+                                   @Value("${app.documents.cache-size:" + DEFAULT_CACHE_SIZE + "}") int cacheSize) {
         this.fileStorageService = fileStorageService;
         this.employeeService = employeeService;
+        this.documentRepository = documentRepository;
+        this.byEmail = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, cacheSize))
+                .<String, List<EmployeeDocument>>build()
+                .asMap();
+    }
+
+    public EmployeeDocumentService(FileStorageService fileStorageService, EmployeeService employeeService,
+                                   EmployeeDocumentRepository documentRepository) {
+        this(fileStorageService, employeeService, documentRepository, DEFAULT_CACHE_SIZE);
     }
 
     public EmployeeDocument storeDocument(String email, MultipartFile file, DocumentType type) throws IOException, InvalidDataException {
@@ -40,47 +68,111 @@ public class EmployeeDocumentService {
         String safeEmail = email.replaceAll("[^A-Za-z0-9@._-]", "_");
         String relativePath = fileStorageService.storeFileInSubDirectory(file, "documents/" + safeEmail);
 
-        long id = idGen.getAndIncrement();
         Instant now = Instant.now();
         String original = file.getOriginalFilename();
         String storedFileName = relativePath.contains("/") ? relativePath.substring(relativePath.lastIndexOf('/') + 1) : relativePath;
 
-        EmployeeDocument doc = new EmployeeDocument(id, email, storedFileName, original, type, now, relativePath);
-        documents.put(id, doc);
-        byEmail.computeIfAbsent(email.toLowerCase(), k -> Collections.synchronizedList(new ArrayList<>())).add(id);
-        return doc;
+        writesStarted.incrementAndGet();
+        try {
+            EmployeeDocument doc;
+            try {
+                doc = documentRepository.save(new EmployeeDocument(0, email, storedFileName, original, type, now, relativePath));
+            } catch (RuntimeException e) {
+                // bez metadanych plik byłby nieosiągalny
+                fileStorageService.deleteFile(relativePath);
+                throw e;
+            }
+            byEmail.computeIfPresent(Employee.normalize(email), (key, documents) -> withDocument(documents, doc));
+            return doc;
+        } finally {
+            writesFinished.incrementAndGet();
+        }
     }
 
     public List<EmployeeDocument> listDocuments(String email) {
         if (email == null || email.isBlank()) return List.of();
-        List<Long> ids = byEmail.get(email.toLowerCase());
-        if (ids == null) return List.of();
-        List<EmployeeDocument> out = new ArrayList<>();
-        for (Long id : ids) {
-            EmployeeDocument d = documents.get(id);
-            if (d != null) out.add(d);
+        String key = Employee.normalize(email);
+        List<EmployeeDocument> cached = byEmail.get(key);
+        if (cached != null) return cached;
+
+        // najpierw zakończone, potem rozpoczęte: równe = żaden zapis nie był w toku przed zapytaniem
+        long finished = writesFinished.get();
+        long started = writesStarted.get();
+        List<EmployeeDocument> loaded = List.copyOf(documentRepository.findByEmployeeEmailNormalizedOrderByUploadDateAscIdAsc(key));
+        if (started != finished) return loaded;
+        List<EmployeeDocument> existing = byEmail.putIfAbsent(key, loaded);
+        if (existing != null) return existing;
+        // zapis rozpoczęty w trakcie wczytywania mógł nie znaleźć listy w cache - wczytana może być nieaktualna
+        if (writesStarted.get() != started) byEmail.remove(key, loaded);
+        return loaded;
+    }
+
+    @EventListener
+    public void employeeRemoved(EmployeeRemovedEvent event) {
+        if (event.isAllEmployees()) {
+            byEmail.clear();
+        } else {
+            byEmail.remove(event.emailNormalized());
         }
-        return out;
     }
 
     public EmployeeDocument getDocument(String email, long id) {
-        EmployeeDocument d = documents.get(id);
+        EmployeeDocument d = findDocument(email, id);
         if (d == null) throw new FileNotFoundException("Document not found: " + id);
         if (!d.getEmployeeEmail().equalsIgnoreCase(email)) throw new FileNotFoundException("Document not found for employee");
         return d;
     }
 
     public void deleteDocument(String email, long id) {
-        EmployeeDocument d = documents.get(id);
+        EmployeeDocument d = findDocument(email, id);
         if (d == null) throw new FileNotFoundException("Document not found: " + id);
         if (!d.getEmployeeEmail().equalsIgnoreCase(email)) throw new FileNotFoundException("Document not found for employee");
 
+        // remove metadata first - a missing file is harmless, an entry pointing at nothing is not
+        writesStarted.incrementAndGet();
+        try {
+            documentRepository.deleteById(id);
+            byEmail.computeIfPresent(Employee.normalize(email), (key, documents) -> withoutDocument(documents, id));
+        } finally {
+            writesFinished.incrementAndGet();
+        }
+
         // delete file
-        fileStorageService.deleteFile(d.getFilePath());
+        try {
+            fileStorageService.deleteFile(d.getFilePath());
+        } catch (FileNotFoundException alreadyGone) {
+            // metadane usunięte, pliku już nie było
+        }
+    }
+
+    // dokument z listy w cache, a gdy jej nie ma - pojedynczy odczyt po kluczu
+    private EmployeeDocument findDocument(String email, long id) {
+        List<EmployeeDocument> cached = email == null ? null : byEmail.get(Employee.normalize(email));
+        if (cached != null) {
+            for (EmployeeDocument document : cached) {
+                if (document.getId() == id) return document;
+            }
+            return null;
+        }
+        return documentRepository.findById(id).orElse(null);
+    }
 
-        // remove metadata
-        documents.remove(id);
-        List<Long> ids = byEmail.get(email.toLowerCase());
-        if (ids != null) ids.remove(id);
+    private static List<EmployeeDocument> withDocument(List<EmployeeDocument> documents, EmployeeDocument added) {
+        // lista wczytana z bazy już po zapisie zawiera ten dokument
+        for (EmployeeDocument document : documents) {
+            if (document.getId() == added.getId()) return documents;
+        }
+        List<EmployeeDocument> copy = new ArrayList<>(documents.size() + 1);
+        copy.addAll(documents);
+        copy.add(added);
+        return List.copyOf(copy);
+    }
+
+    private static List<EmployeeDocument> withoutDocument(List<EmployeeDocument> documents, long id) {
+        List<EmployeeDocument> copy = new ArrayList<>(documents.size());
+        for (EmployeeDocument document : documents) {
+            if (document.getId() != id) copy.add(document);
+        }
+        return copy.size() == documents.size() ? documents : List.copyOf(copy);
     }
 }
@@ -0,0 +1,16 @@
+package com.techcorp.employee.service;
+
+/**
+ * Pracownik usunięty (publikowane po zatwierdzeniu transakcji) - dla cache trzymanych per pracownik poza Hibernate.
+ * {@code emailNormalized == null} oznacza usunięcie wszystkich (import zastępujący tabelę).
+ */
+public record EmployeeRemovedEvent(String emailNormalized) {
+
+    public static EmployeeRemovedEvent allEmployees() {
+        return new EmployeeRemovedEvent(null);
+    }
+
+    public boolean isAllEmployees() {
+        return emailNormalized == null;
+    }
+}
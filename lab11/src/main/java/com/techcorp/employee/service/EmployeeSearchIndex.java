@@ -0,0 +1,492 @@
+package com.techcorp.employee.service;
+
+import com.techcorp.employee.dto.EmployeeSearchHit;
+import com.techcorp.employee.dto.EmployeeSearchResult;
+import com.techcorp.employee.dto.EmployeeSearchRow;
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.repository.EmployeeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * Odwrócony indeks pełnotekstowy pracowników w pamięci: imię, nazwisko, email, firma i nazwa działu.
+ * Term -> rosnąca lista id zakodowana różnicowo (varint); słownik termów jest posortowany, więc zapytanie
+ * prefiksowe to zakres słownika. Słowa zapytania łączone przez AND, wyniki rankowane wagą pola i dokładnością
+ * dopasowania. Aktualizowany przyrostowo przez zapisy w EmployeeService (po zatwierdzeniu transakcji).
+ */
+@Component
+public class EmployeeSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeSearchIndex.class);
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final String[] NO_TERMS = new String[0];
+
+    // wagi pól w rankingu - trafienie w nazwisko znaczy więcej niż w firmę czy dział
+    enum Field {
+        FIRST_NAME(4), LAST_NAME(5), EMAIL(3), COMPANY(2), DEPARTMENT(1);
+
+        final int weight;
+
+        Field(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    // zindeksowany pracownik: pola zwracane w wyniku + termy każdego pola (do usuwania z list i do rankingu)
+    private record Document(Long id, String firstName, String lastName, String email, String companyName,
+                            Long departmentId, String[][] fieldTerms) {
+    }
+
+    private record Scored(Document document, double score) {
+    }
+
+    private static final Comparator<Scored> RANKING = Comparator.comparingDouble(Scored::score).reversed()
+            .thenComparing(s -> s.document().id());
+
+    private final EmployeeRepository repository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<Long, String> departmentNames = new HashMap<>();
+
+    public EmployeeSearchIndex(EmployeeRepository repository) {
+        this.repository = Objects.requireNonNull(repository, "repository must not be null");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // --- write side ---
+
+    /**
+     * Odbudowuje indeks jednym zapytaniem projekcji (id rosnąco - listy id budowane dopisywaniem na koniec).
+     */
+    public void rebuild() {
+        List<EmployeeSearchRow> rows = repository.findSearchRows();
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            documents.clear();
+            departmentNames.clear();
+            for (EmployeeSearchRow row : rows) {
+                if (row.departmentId() != null && row.departmentName() != null) {
+                    departmentNames.put(row.departmentId(), row.departmentName());
+                }
+                post(document(row.id(), row.firstName(), row.lastName(), row.email(), row.companyName(), row.departmentId()));
+            }
+            terms.values().forEach(Postings::trim);
+            logger.info("Search index rebuilt: {} employees, {} terms, {} bytes of postings",
+                    documents.size(), terms.size(), postingsBytesLocked());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Dodaje pracownika albo zastępuje jego poprzednią wersję w indeksie.
+     */
+    public void index(Employee employee) {
+        if (employee == null || employee.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            unpost(documents.remove(employee.getId()));
+            post(document(employee.getId(), employee.getFirstName(), employee.getLastName(), employee.getEmail(),
+                    employee.getCompanyName(), employee.getDepartmentId()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long employeeId) {
+        if (employeeId == null) return;
+        lock.writeLock().lock();
+        try {
+            unpost(documents.remove(employeeId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Nowa nazwa działu (null = dział usunięty) - przeindeksowuje tylko pracowników tego działu.
+     */
+    public void departmentChanged(Long departmentId, String name) {
+        if (departmentId == null) return;
+        lock.writeLock().lock();
+        try {
+            String previous = name == null ? departmentNames.remove(departmentId) : departmentNames.put(departmentId, name);
+            if (Objects.equals(previous, name)) return;
+            List<Document> affected = documents.values().stream()
+                    .filter(d -> departmentId.equals(d.departmentId()))
+                    .toList();
+            for (Document d : affected) {
+                unpost(documents.remove(d.id()));
+                post(document(d.id(), d.firstName(), d.lastName(), d.email(), d.companyName(), d.departmentId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            documents.clear();
+            departmentNames.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // --- read side ---
+
+    /**
+     * Każde słowo zapytania jest prefiksem termu, pracownik musi pasować do wszystkich słów (AND).
+     * Zwraca do limit najlepszych trafień oraz łączną liczbę dopasowanych pracowników.
+     */
+    public EmployeeSearchResult search(String query, int limit) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.size() > MAX_QUERY_TERMS) queryTerms = queryTerms.subList(0, MAX_QUERY_TERMS);
+        if (queryTerms.isEmpty()) return new EmployeeSearchResult(query, 0, List.of());
+
+        lock.readLock().lock();
+        try {
+            List<List<Postings>> expansions = new ArrayList<>(queryTerms.size());
+            for (String term : queryTerms) {
+                List<Postings> matching = new ArrayList<>(terms.subMap(term, true, term + Character.MAX_VALUE, false).values());
+                if (matching.isEmpty()) return new EmployeeSearchResult(query, 0, List.of());
+                expansions.add(matching);
+            }
+            // najrzadsze słowo najpierw - kolejne już tylko zawężają zbiór kandydatów
+            expansions.sort(Comparator.comparingLong(EmployeeSearchIndex::totalSize));
+            long[] candidates = union(expansions.get(0));
+            for (int i = 1; i < expansions.size() && candidates.length > 0; i++) {
+                candidates = retain(candidates, expansions.get(i));
+            }
+
+            int k = Math.max(0, limit);
+            PriorityQueue<Scored> best = new PriorityQueue<>(RANKING.reversed());
+            for (long id : candidates) {
+                Document document = documents.get(id);
+                if (document == null || k == 0) continue;
+                best.offer(new Scored(document, score(document, queryTerms)));
+                if (best.size() > k) best.poll();
+            }
+            List<EmployeeSearchHit> hits = best.stream()
+                    .sorted(RANKING)
+                    .map(s -> toHit(s.document(), s.score()))
+                    .toList();
+            return new EmployeeSearchResult(query, candidates.length, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // rozmiar list id w bajtach (bloki varint + bufory zmian)
+    public long postingsBytes() {
+        lock.readLock().lock();
+        try {
+            return postingsBytesLocked();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Małe litery, bez znaków diakrytycznych ("Łukasz" -> "lukasz"), podział na litery/cyfry - te same reguły
+     * dla indeksowanych pól i zapytania.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text.toLowerCase(Locale.ROOT), Normalizer.Form.NFD))
+                .replaceAll("")
+                .replace('ł', 'l');
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : NON_WORD.split(folded)) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return List.copyOf(tokens);
+    }
+
+    // --- internals (wywoływane pod blokadą) ---
+
+    private Document document(Long id, String firstName, String lastName, String email, String companyName, Long departmentId) {
+        String[][] fieldTerms = new String[Field.values().length][];
+        fieldTerms[Field.FIRST_NAME.ordinal()] = tokenize(firstName).toArray(NO_TERMS);
+        fieldTerms[Field.LAST_NAME.ordinal()] = tokenize(lastName).toArray(NO_TERMS);
+        fieldTerms[Field.EMAIL.ordinal()] = tokenize(email).toArray(NO_TERMS);
+        fieldTerms[Field.COMPANY.ordinal()] = tokenize(companyName).toArray(NO_TERMS);
+        fieldTerms[Field.DEPARTMENT.ordinal()] = departmentId == null ? NO_TERMS
+                : tokenize(departmentNames.get(departmentId)).toArray(NO_TERMS);
+        return new Document(id, firstName, lastName, email, companyName, departmentId, fieldTerms);
+    }
+
+    private void post(Document document) {
+        documents.put(document.id(), document);
+        for (String term : distinctTerms(document)) {
+            terms.computeIfAbsent(term, t -> new Postings()).add(document.id());
+        }
+    }
+
+    private void unpost(Document document) {
+        if (document == null) return;
+        for (String term : distinctTerms(document)) {
+            Postings postings = terms.get(term);
+            if (postings == null) continue;
+            postings.remove(document.id());
+            if (postings.size() == 0) terms.remove(term);
+        }
+    }
+
+    // to samo słowo w kilku polach (np. imię i email) trafia na listę id tylko raz
+    private static Set<String> distinctTerms(Document document) {
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String[] fieldTerms : document.fieldTerms()) distinct.addAll(Arrays.asList(fieldTerms));
+        return distinct;
+    }
+
+    // dla każdego słowa zapytania najlepsze pole: waga pola x (2 za całe słowo, 1..2 za prefiks wg pokrycia)
+    private static double score(Document document, List<String> queryTerms) {
+        double score = 0;
+        for (String queryTerm : queryTerms) {
+            double best = 0;
+            for (Field field : Field.values()) {
+                for (String term : document.fieldTerms()[field.ordinal()]) {
+                    if (!term.startsWith(queryTerm)) continue;
+                    double match = field.weight * (1.0 + (double) queryTerm.length() / term.length());
+                    if (match > best) best = match;
+                }
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private EmployeeSearchHit toHit(Document document, double score) {
+        String departmentName = document.departmentId() == null ? null : departmentNames.get(document.departmentId());
+        return new EmployeeSearchHit(document.id(), document.firstName(), document.lastName(), document.email(),
+                document.companyName(), departmentName, score);
+    }
+
+    private static long totalSize(List<Postings> postings) {
+        long total = 0;
+        for (Postings p : postings) total += p.size();
+        return total;
+    }
+
+    // suma list wszystkich termów z danym prefiksem - posortowana, bez powtórzeń
+    private static long[] union(List<Postings> postings) {
+        if (postings.size() == 1) return postings.get(0).toArray();
+        long[] ids = new long[(int) totalSize(postings)];
+        int[] n = {0};
+        for (Postings p : postings) p.forEach(id -> ids[n[0]++] = id);
+        Arrays.sort(ids);
+        int unique = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) ids[unique++] = ids[i];
+        }
+        return unique == ids.length ? ids : Arrays.copyOf(ids, unique);
+    }
+
+    // zostawia kandydatów obecnych na którejkolwiek z list
+    private static long[] retain(long[] candidates, List<Postings> postings) {
+        boolean[] keep = new boolean[candidates.length];
+        for (Postings p : postings) {
+            p.forEach(id -> {
+                int i = Arrays.binarySearch(candidates, id);
+                if (i >= 0) keep[i] = true;
+            });
+        }
+        int kept = 0;
+        for (int i = 0; i < candidates.length; i++) {
+            if (keep[i]) candidates[kept++] = candidates[i];
+        }
+        return Arrays.copyOf(candidates, kept);
+    }
+
+    private long postingsBytesLocked() {
+        long bytes = 0;
+        for (Postings p : terms.values()) bytes += p.bytes();
+        return bytes;
+    }
+
+    /**
+     * Lista id jednego termu: blok varint z różnicami kolejnych id (rosnąco) oraz małe posortowane bufory
+     * dodanych i usuniętych id, scalane z blokiem po przekroczeniu limitu. Id większe od ostatniego w bloku
+     * (autoinkrementacja) dopisywane są od razu na koniec bloku.
+     */
+    static final class Postings {
+        private static final int PENDING_LIMIT = 64;
+        private static final byte[] EMPTY_BLOCK = new byte[0];
+
+        private byte[] block = EMPTY_BLOCK;
+        private int blockLength;
+        private int blockCount;
+        private long lastId;
+        // added: id spoza bloku, removed: id z bloku do pominięcia
+        private SortedLongs added;
+        private SortedLongs removed;
+
+        void add(long id) {
+            if (removed != null && removed.remove(id)) return;
+            if ((added == null || added.count == 0) && (blockCount == 0 || id > lastId)) {
+                append(id);
+                return;
+            }
+            if (added == null) added = new SortedLongs();
+            added.add(id);
+            compactIfNeeded();
+        }
+
+        void remove(long id) {
+            if (added != null && added.remove(id)) return;
+            if (removed == null) removed = new SortedLongs();
+            removed.add(id);
+            compactIfNeeded();
+        }
+
+        int size() {
+            return blockCount + (added == null ? 0 : added.count) - (removed == null ? 0 : removed.count);
+        }
+
+        long bytes() {
+            return block.length + 8L * ((added == null ? 0 : added.values.length) + (removed == null ? 0 : removed.values.length));
+        }
+
+        // id rosnąco: dekodowanie bloku scalane z buforem dodanych, z pominięciem usuniętych
+        void forEach(LongConsumer action) {
+            long[] addedIds = added == null ? null : added.values;
+            int addedCount = added == null ? 0 : added.count;
+            long[] removedIds = removed == null ? null : removed.values;
+            int removedCount = removed == null ? 0 : removed.count;
+            int a = 0;
+            int r = 0;
+            int pos = 0;
+            long id = 0;
+            for (int n = 0; n < blockCount; n++) {
+                long gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = block[pos++];
+                    gap |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += gap;
+                while (a < addedCount && addedIds[a] < id) action.accept(addedIds[a++]);
+                while (r < removedCount && removedIds[r] < id) r++;
+                if (r < removedCount && removedIds[r] == id) continue;
+                action.accept(id);
+            }
+            while (a < addedCount) action.accept(addedIds[a++]);
+        }
+
+        long[] toArray() {
+            long[] ids = new long[size()];
+            int[] n = {0};
+            forEach(id -> ids[n[0]++] = id);
+            return ids;
+        }
+
+        // po odbudowie indeksu - obcina zapas bloku zostawiony przez podwajanie
+        void trim() {
+            if (block.length != blockLength) block = Arrays.copyOf(block, blockLength);
+        }
+
+        private void compactIfNeeded() {
+            int pending = (added == null ? 0 : added.count) + (removed == null ? 0 : removed.count);
+            if (pending <= PENDING_LIMIT) return;
+            long[] ids = toArray();
+            block = EMPTY_BLOCK;
+            blockLength = 0;
+            blockCount = 0;
+            lastId = 0;
+            added = null;
+            removed = null;
+            for (long id : ids) append(id);
+            trim();
+        }
+
+        private void append(long id) {
+            if (block.length - blockLength < 10) {
+                block = Arrays.copyOf(block, Math.max(16, block.length * 2));
+            }
+            long gap = blockCount == 0 ? id : id - lastId;
+            while ((gap & ~0x7FL) != 0) {
+                block[blockLength++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            block[blockLength++] = (byte) gap;
+            lastId = id;
+            blockCount++;
+        }
+    }
+
+    // mały posortowany zbiór long bez opakowywania - bufory zmian listy id
+    private static final class SortedLongs {
+        private long[] values = new long[4];
+        private int count;
+
+        void add(long value) {
+            int i = Arrays.binarySearch(values, 0, count, value);
+            if (i >= 0) return;
+            i = -i - 1;
+            if (count == values.length) values = Arrays.copyOf(values, count * 2);
+            System.arraycopy(values, i, values, i + 1, count - i);
+            values[i] = value;
+            count++;
+        }
+
+        boolean remove(long value) {
+            int i = Arrays.binarySearch(values, 0, count, value);
+            if (i < 0) return false;
+            System.arraycopy(values, i + 1, values, i, count - i - 1);
+            count--;
+            return true;
+        }
+    }
+}
@@ -2,22 +2,48 @@ package com.techcorp.employee.service;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.sql.SQLException;
 import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
+import com.techcorp.employee.dao.JdbcEmployeeBatchDAO;
+import com.techcorp.employee.dao.JdbcEmployeeMergeDAO;
+import com.techcorp.employee.dao.JdbcEmployeeWriteDAO;
+import com.techcorp.employee.dto.EmployeeExportRow;
+import com.techcorp.employee.dto.EmployeeListView;
+import com.techcorp.employee.dto.EmployeeSearchResult;
+import com.techcorp.employee.dto.EmployeeView;
+import com.techcorp.employee.dto.ManagerOption;
 import com.techcorp.employee.model.CompanyStatistics;
 import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.ImportDelta;
+import com.techcorp.employee.model.ImportSummary;
 import com.techcorp.employee.model.EmploymentStatus;
 import com.techcorp.employee.model.Position;
 import com.techcorp.employee.repository.EmployeeRepository;
+import com.techcorp.employee.specification.EmployeeSpecification;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 /**
@@ -27,74 +53,216 @@ import org.springframework.data.jpa.domain.Specification;
 @Service
 @Validated
 public class EmployeeService {
+    private static final int IMPORT_BATCH_SIZE = 1000;
+    private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
+
     private final EmployeeRepository repository;
-    public EmployeeService(EmployeeRepository repository) {
+    private final StatisticsIndex statisticsIndex;
+    private final EmployeeSearchIndex searchIndex;
+    private final JdbcEmployeeBatchDAO batchDAO;
+    private final JdbcEmployeeWriteDAO writeDAO;
+    private final JdbcEmployeeMergeDAO mergeDAO;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheImplementor secondLevelCache;
+    private final SessionFactoryImplementor sessionFactory;
+    // tabele encji Employee - zapytania z cache zależne od nich tracą ważność po zapisie JDBC
+    private final String[] employeeQuerySpaces;
+    private final ApplicationEventPublisher events;
+
+    public EmployeeService(EmployeeRepository repository, StatisticsIndex statisticsIndex, EmployeeSearchIndex searchIndex,
+                           JdbcEmployeeBatchDAO batchDAO, JdbcEmployeeWriteDAO writeDAO, JdbcEmployeeMergeDAO mergeDAO,
+                           PlatformTransactionManager transactionManager, EntityManagerFactory entityManagerFactory,
+                           ApplicationEventPublisher events) {
         this.repository = Objects.requireNonNull(repository, "repository must not be null");
+        this.statisticsIndex = Objects.requireNonNull(statisticsIndex, "statisticsIndex must not be null");
+        this.searchIndex = Objects.requireNonNull(searchIndex, "searchIndex must not be null");
+        this.batchDAO = Objects.requireNonNull(batchDAO, "batchDAO must not be null");
+        this.writeDAO = Objects.requireNonNull(writeDAO, "writeDAO must not be null");
+        this.mergeDAO = Objects.requireNonNull(mergeDAO, "mergeDAO must not be null");
+        // import MERGE zatwierdza każdą partię osobno - transakcje programowe zamiast jednej @Transactional
+        this.transactionTemplate = new TransactionTemplate(Objects.requireNonNull(transactionManager, "transactionManager must not be null"));
+        this.sessionFactory = Objects.requireNonNull(entityManagerFactory, "entityManagerFactory must not be null")
+                .unwrap(SessionFactoryImplementor.class);
+        this.secondLevelCache = sessionFactory.getCache();
+        this.employeeQuerySpaces = sessionFactory.getMappingMetamodel().getEntityDescriptor(Employee.class)
+                .getSynchronizedQuerySpaces();
+        this.events = Objects.requireNonNull(events, "events must not be null");
     }
 
     public boolean addEmployee(@Valid @NotNull Employee employee) {
-        if (employee == null || employee.getEmail() == null || employee.getEmail().isBlank()) return false;
-        String emailKey = employee.getEmail().toLowerCase(Locale.ROOT);
-        if (repository.existsByEmailIgnoreCase(emailKey)) return false;
-        repository.save(employee);
-        return true;
+        return createEmployee(employee).isPresent();
+    }
+
+    /**
+     * Dodaje pracownika jednym INSERT-em - duplikat emaila wykrywa unikalny indeks email_normalized,
+     * bez wcześniejszego sprawdzania istnienia. Zwraca zapisaną encję lub pusty Optional przy duplikacie.
+     */
+    public Optional<Employee> createEmployee(@Valid @NotNull Employee employee) {
+        if (employee == null || employee.getEmail() == null || employee.getEmail().isBlank()) return Optional.empty();
+        // id z żądania ignorowane - save z ustawionym id robi merge (SELECT + UPDATE cudzego wiersza)
+        employee.setId(null);
+        Employee saved;
+        try {
+            saved = repository.save(employee);
+        } catch (DataIntegrityViolationException ex) {
+            if (isUniqueViolation(ex)) return Optional.empty();
+            throw ex;
+        }
+        afterCommit(() -> {
+            statisticsIndex.add(saved);
+            searchIndex.index(saved);
+        });
+        return Optional.of(saved);
     }
 
     public List<Employee> getAllEmployees() {
         return repository.findAll();
     }
 
+    // lista do widoków: projekcja EmployeeView zamiast encji
+    public List<EmployeeView> getAllEmployeeViews() {
+        return repository.findAllViews();
+    }
+
+    /**
+     * Przekazuje wiersze eksportu do konsumenta prosto z kursora bazy - bez ładowania całej tabeli.
+     * Firma porównywana bez wielkości liter i spacji; null/pusta = wszyscy pracownicy.
+     */
+    @Transactional(readOnly = true)
+    public void forEachExportRow(String company, Consumer<EmployeeExportRow> consumer) {
+        String filter = (company == null || company.isBlank()) ? null : Employee.normalize(company);
+        try (Stream<EmployeeExportRow> rows = repository.streamExportRows(filter)) {
+            rows.forEach(consumer);
+        }
+    }
+
     public Optional<Employee> findByEmail(@NotBlank String email) {
         if (email == null || email.isBlank()) return Optional.empty();
         return repository.findByEmailIgnoreCase(email.toLowerCase(Locale.ROOT));
     }
 
+    // kandydaci na managera działu: stanowiska od MANAGER w górę hierarchii
+    public List<ManagerOption> getManagerOptions() {
+        List<Position> positions = Arrays.stream(Position.values())
+                .filter(p -> p.getPosition() <= Position.MANAGER.getPosition())
+                .collect(Collectors.toList());
+        return repository.findManagerOptions(positions);
+    }
+
+    public List<EmployeeListView> findListViewByDepartment(Long departmentId) {
+        if (departmentId == null) return List.of();
+        return repository.findListViewByDepartmentId(departmentId);
+    }
+
     public List<Employee> findByStatus(@NotNull EmploymentStatus status) {
         if (status == null) return List.of();
         return repository.findByStatus(status);
     }
 
     public boolean updateStatus(@NotBlank String email, @NotNull EmploymentStatus status) {
-        if (email == null || email.isBlank() || status == null) return false;
-        String key = email.toLowerCase(Locale.ROOT);
-        Optional<Employee> existingOpt = repository.findByEmailIgnoreCase(key);
-        if (existingOpt.isEmpty()) return false;
-        Employee existing = existingOpt.get();
-        existing.setStatus(status);
-        repository.save(existing);
-        return true;
+        return changeStatus(email, status).isPresent();
+    }
+
+    /**
+     * Zmienia status jednym UPDATE i zwraca pracownika po zmianie (pusty = nie znaleziono).
+     */
+    public Optional<Employee> changeStatus(@NotBlank String email, @NotNull EmploymentStatus status) {
+        if (email == null || email.isBlank() || status == null) return Optional.empty();
+        Optional<Employee> previousRow = writeDAO.updateStatus(Employee.normalize(email), status);
+        if (previousRow.isEmpty()) return Optional.empty();
+        Employee employee = previousRow.get();
+        EmploymentStatus previous = employee.getStatus();
+        employee.setStatus(status);
+        afterCommit(() -> {
+            evictCached(employee.getId());
+            statisticsIndex.statusChanged(previous, status);
+        });
+        return Optional.of(employee);
+    }
+
+    /**
+     * Zapisuje ścieżkę zdjęcia pracownika i zwraca wiersz po zmianie (pusty = brak pracownika).
+     */
+    public Optional<Employee> changePhoto(@NotBlank String email, String photoFileName) {
+        if (email == null || email.isBlank()) return Optional.empty();
+        Optional<Employee> previousRow = writeDAO.updatePhoto(Employee.normalize(email), photoFileName);
+        previousRow.ifPresent(employee -> {
+            employee.setPhotoFileName(photoFileName);
+            afterCommit(() -> evictCached(employee.getId()));
+        });
+        return previousRow;
     }
 
     public java.util.Map<com.techcorp.employee.model.EmploymentStatus, Long> getStatusDistribution() {
-        return repository.findAll().stream()
-                .collect(Collectors.groupingBy(Employee::getStatus, Collectors.counting()));
+        return statisticsIndex.statusDistribution();
+    }
+
+    public Map<Position, Long> getPositionDistribution() {
+        return statisticsIndex.positionDistribution();
+    }
+
+    // średnia pensja (wszystkich lub jednej firmy) z indeksu statystyk
+    public double getAverageSalary(String companyName) {
+        if (companyName == null || companyName.isBlank()) return statisticsIndex.averageSalary();
+        return statisticsIndex.averageSalary(companyName.trim());
     }
 
+    // jeden DELETE - o 404 decyduje liczba usuniętych wierszy
     public boolean removeEmployee(@NotBlank String email) {
         if (email == null || email.isBlank()) return false;
-        String key = email.toLowerCase(Locale.ROOT);
-        Optional<Employee> existing = repository.findByEmailIgnoreCase(key);
-        if (existing.isEmpty()) return false;
-        repository.deleteByEmailIgnoreCase(key);
+        Optional<Employee> removedRow = writeDAO.delete(Employee.normalize(email));
+        if (removedRow.isEmpty()) return false;
+        StatisticsIndex.Snapshot removed = StatisticsIndex.Snapshot.of(removedRow.get());
+        Long removedId = removedRow.get().getId();
+        afterCommit(() -> {
+            evictCached(removedId);
+            // usunięty email mógłby nadal wskazywać stare id w cache natural id
+            secondLevelCache.evictNaturalIdData(Employee.class);
+            statisticsIndex.remove(removed);
+            searchIndex.remove(removedId);
+            events.publishEvent(new EmployeeRemovedEvent(Employee.normalize(email)));
+        });
         return true;
     }
 
+    /**
+     * Pracownicy usuwani kaskadowo razem z działem - wywoływane w transakcji usuwającej dział, przed usunięciem.
+     * Cache drugiego poziomu Hibernate unieważnia sam; indeksy w pamięci aktualizowane po zatwierdzeniu.
+     */
+    public void departmentEmployeesRemoved(List<Employee> removed) {
+        if (removed == null || removed.isEmpty()) return;
+        List<Long> removedIds = removed.stream().map(Employee::getId).toList();
+        List<String> removedEmails = removed.stream().map(e -> Employee.normalize(e.getEmail())).toList();
+        List<StatisticsIndex.Snapshot> removedRows = removed.stream().map(StatisticsIndex.Snapshot::of).toList();
+        afterCommit(() -> {
+            removedRows.forEach(statisticsIndex::remove);
+            removedIds.forEach(searchIndex::remove);
+            removedEmails.forEach(email -> events.publishEvent(new EmployeeRemovedEvent(email)));
+        });
+    }
+
+    /**
+     * Nadpisuje dane pracownika jednym UPDATE (email, zdjęcie i dział bez zmian) i zwraca stan po zmianie.
+     */
     public Optional<Employee> updateEmployee(@NotBlank String email, @Valid @NotNull Employee updated) {
         if (email == null || email.isBlank() || updated == null) return Optional.empty();
-        String key = email.toLowerCase(Locale.ROOT);
-        Optional<Employee> existingOpt = repository.findByEmailIgnoreCase(key);
-        if (existingOpt.isEmpty()) return Optional.empty();
-        Employee existing = existingOpt.get();
-
-        // create a new Employee instance preserving the identity (email)
-        String newFullName = updated.getFullName() == null ? existing.getFullName() : updated.getFullName();
-        String newCompany = updated.getCompanyName();
-        Position newPosition = updated.getPosition();
-        double newSalary = updated.getSalary();
+        Optional<Employee> previousRow = writeDAO.updateDetails(Employee.normalize(email), updated);
+        if (previousRow.isEmpty()) return Optional.empty();
+        Employee existing = previousRow.get();
+        StatisticsIndex.Snapshot before = StatisticsIndex.Snapshot.of(existing);
 
-        Employee replacement = new Employee(existing.getId(), newFullName, existing.getEmail(), newCompany, newPosition, newSalary);
-        repository.save(replacement);
-        return Optional.of(replacement);
+        existing.setFirstName(updated.getFirstName());
+        existing.setLastName(updated.getLastName());
+        existing.setCompanyName(updated.getCompanyName());
+        existing.setPosition(updated.getPosition());
+        existing.setSalary(updated.getSalary());
+        existing.setStatus(updated.getStatus());
+        afterCommit(() -> {
+            evictCached(existing.getId());
+            statisticsIndex.update(before, existing);
+            searchIndex.index(existing);
+        });
+        return Optional.of(existing);
     }
 
 
@@ -111,25 +279,36 @@ public class EmployeeService {
                 .collect(Collectors.toList());
     }
 
-    // tworzy mapę statystyk firmy (nazwa firmy -> statystyki)
+    // tworzy mapę statystyk firmy (nazwa firmy -> statystyki), agregacja wykonywana przez bazę danych
     public Map<String, CompanyStatistics> getCompanyStatistics() {
-        // Build statistics via stream for now (can be replaced by query)
-        Map<String, List<Employee>> grouped = repository.findAll().stream()
-                .collect(Collectors.groupingBy(e -> {
-                    String company = e.getCompanyName();
-                    return (company == null || company.isBlank()) ? "unknown" : company;
-                }));
-
         Map<String, CompanyStatistics> result = new HashMap<>();
-        grouped.forEach((company, list) -> {
-            int count = list.size();
-            double avg = list.stream().mapToDouble(Employee::getSalary).average().orElse(0.0);
-            String highest = list.stream().max(Comparator.comparingDouble(Employee::getSalary)).map(Employee::getFullName).orElse("");
-            result.put(company, new CompanyStatistics(company, count, avg, highest));
-        });
+        for (CompanyStatistics row : repository.aggregateCompanyStatistics()) {
+            String company = row.getCompanyName();
+            String key = (company == null || company.isBlank()) ? "unknown" : company;
+            result.merge(key, withCompanyName(row, key), EmployeeService::mergeStatistics);
+        }
         return result;
     }
 
+    // statystyki pojedynczej firmy - odczyt z indeksu statystyk
+    public Optional<CompanyStatistics> getCompanyStatistics(String companyName) {
+        if (companyName == null || companyName.isBlank()) return Optional.empty();
+        return statisticsIndex.companyStatistics(companyName.trim());
+    }
+
+    private static CompanyStatistics withCompanyName(CompanyStatistics cs, String companyName) {
+        return new CompanyStatistics(companyName, cs.getEmployeeCount(), cs.getAverageSalary(), cs.getHighestSalary(), cs.getHighestPaidFullName());
+    }
+
+    // null and blank company names both end up under "unknown"
+    private static CompanyStatistics mergeStatistics(CompanyStatistics a, CompanyStatistics b) {
+        long count = (long) a.getEmployeeCount() + b.getEmployeeCount();
+        double avg = count == 0 ? 0.0
+                : (a.getAverageSalary() * a.getEmployeeCount() + b.getAverageSalary() * b.getEmployeeCount()) / count;
+        CompanyStatistics top = a.getHighestSalary() >= b.getHighestSalary() ? a : b;
+        return new CompanyStatistics(a.getCompanyName(), count, avg, top.getHighestSalary(), top.getHighestPaidFullName());
+    }
+
     // raport w formacie "Imię Nazwisko (email): aktualne_wynagrodzenie < bazowe_wynagrodzenie"
     public List<String> salaryConsistencyReport() {
         return validateSalaryConsistency().stream()
@@ -143,13 +322,237 @@ public class EmployeeService {
         if (employees.stream().anyMatch(Objects::isNull)) {
             throw new IllegalArgumentException("Employee list contains null elements");
         }
-        repository.deleteAll();
-        repository.saveAll(employees);
+        batchDAO.deleteAll();
+        for (int from = 0; from < employees.size(); from += IMPORT_BATCH_SIZE) {
+            batchDAO.insertBatch(employees.subList(from, Math.min(from + IMPORT_BATCH_SIZE, employees.size())));
+        }
+        afterCommit(() -> {
+            evictAllCached();
+            statisticsIndex.replaceAll(employees);
+            searchIndex.rebuild();
+        });
         return employees.size();
     }
 
+    /**
+     * Import strumieniowy w jednej transakcji: tabela czyszczona przy pierwszej niepustej partii,
+     * każda partia zapisywana przez JDBC batch. Pamięć ograniczona rozmiarem partii, nie pliku.
+     */
+    @Transactional
+    public int importEmployeeBatches(@NotNull Iterator<List<Employee>> batches) {
+        int count = 0;
+        boolean cleared = false;
+        while (batches.hasNext()) {
+            List<Employee> batch = batches.next();
+            if (batch == null || batch.isEmpty()) continue;
+            if (!cleared) {
+                batchDAO.deleteAll();
+                cleared = true;
+            }
+            count += batchDAO.insertBatch(batch);
+        }
+        if (cleared) afterCommit(() -> {
+            evictAllCached();
+            statisticsIndex.rebuild();
+            searchIndex.rebuild();
+        });
+        return count;
+    }
+
+    /**
+     * Wyszukiwanie pełnotekstowe (prefiksy słów, AND) z indeksu w pamięci - bez zapytania do bazy.
+     */
+    public EmployeeSearchResult search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    /**
+     * Import w trybie scalania: klucz to znormalizowany email, a porównanie skrótu zawartości (content_hash)
+     * wyznacza wiersze nowe, zmienione i niezmienione - zapisywana jest tylko różnica, partiami przez JDBC batch.
+     * Każda partia to osobna krótka transakcja; wiersze nieobecne w pliku usuwane są na końcu i tylko wtedy,
+     * gdy cały plik został przeczytany (powtórzenie przerwanego importu doprowadza tabelę do tego samego stanu).
+     * Status, dział i zdjęcie istniejących pracowników nie są zmieniane.
+     */
+    public ImportSummary mergeEmployeeBatches(@NotNull Iterator<List<Employee>> batches) {
+        // wiersze dodane po tym punkcie (m.in. przez ten import) nigdy nie są kandydatami do usunięcia
+        long maxIdBefore = mergeDAO.maxId();
+        MatchedIds matched = new MatchedIds();
+        int[] counts = new int[3];
+        int accepted = 0;
+        while (batches.hasNext()) {
+            List<Employee> batch = batches.next();
+            if (batch == null || batch.isEmpty()) continue;
+            accepted += batch.size();
+            transactionTemplate.executeWithoutResult(tx -> mergeBatch(batch, matched, counts));
+        }
+        // pusty plik nie usuwa wszystkich pracowników - tak jak import REPLACE nie czyści wtedy tabeli
+        int deleted = accepted == 0 ? 0 : deleteUnmatched(maxIdBefore, matched);
+        return new ImportSummary(accepted, List.of(), new ImportDelta(counts[0], counts[1], deleted, counts[2]));
+    }
+
+    // counts: [dodane, zmienione, bez zmian]
+    private void mergeBatch(List<Employee> batch, MatchedIds matched, int[] counts) {
+        Map<String, Employee> current = mergeDAO.findByEmails(batch.stream().map(e -> Employee.normalize(e.getEmail())).toList());
+        List<Employee> inserts = new ArrayList<>();
+        List<Employee> updates = new ArrayList<>();
+        List<StatisticsIndex.Snapshot> updatedBefore = new ArrayList<>();
+        for (Employee employee : batch) {
+            Employee existing = current.get(Employee.normalize(employee.getEmail()));
+            if (existing == null) {
+                inserts.add(employee);
+                continue;
+            }
+            matched.add(existing.getId());
+            if (existing.getContentHash() != null && existing.getContentHash() == employee.computeContentHash()) {
+                counts[2]++;
+                continue;
+            }
+            // pola spoza pliku przepisane z bazy - indeksy dostają pełny stan wiersza po zmianie
+            employee.setId(existing.getId());
+            employee.setStatus(existing.getStatus());
+            employee.setDepartmentId(existing.getDepartmentId());
+            employee.setPhotoFileName(existing.getPhotoFileName());
+            updates.add(employee);
+            updatedBefore.add(StatisticsIndex.Snapshot.of(existing));
+        }
+        batchDAO.insertBatch(inserts);
+        if (!inserts.isEmpty()) {
+            Map<String, Long> ids = mergeDAO.findIdsByEmails(inserts.stream().map(e -> Employee.normalize(e.getEmail())).toList());
+            inserts.forEach(e -> e.setId(ids.get(Employee.normalize(e.getEmail()))));
+        }
+        mergeDAO.updateBatch(updates);
+        counts[0] += inserts.size();
+        counts[1] += updates.size();
+        if (inserts.isEmpty() && updates.isEmpty()) return;
+        afterCommit(() -> {
+            for (Employee inserted : inserts) {
+                statisticsIndex.add(inserted);
+                searchIndex.index(inserted);
+            }
+            for (int i = 0; i < updates.size(); i++) {
+                Employee updated = updates.get(i);
+                secondLevelCache.evictEntityData(Employee.class, updated.getId());
+                statisticsIndex.update(updatedBefore.get(i), updated);
+                searchIndex.index(updated);
+            }
+            evictEmployeeQueries();
+        });
+    }
+
+    // id wierszy dopasowanych przez import scalający: tablica long posortowana przed pierwszym wyszukiwaniem
+    // (id BIGINT - nie musi mieścić się w int, jak wymagałby BitSet)
+    private static final class MatchedIds {
+        private long[] ids = new long[64];
+        private int size;
+        private boolean sorted = true;
+
+        void add(long id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+            sorted = false;
+        }
+
+        boolean contains(long id) {
+            if (!sorted) {
+                Arrays.sort(ids, 0, size);
+                sorted = true;
+            }
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+    }
+
+    // usuwa wiersze sprzed importu, których email nie wystąpił w pliku - partiami, każda w osobnej transakcji
+    private int deleteUnmatched(long maxIdBefore, MatchedIds matched) {
+        long[][] stale = {new long[64]};
+        int[] staleCount = {0};
+        mergeDAO.forEachIdUpTo(maxIdBefore, id -> {
+            if (matched.contains(id)) return;
+            if (staleCount[0] == stale[0].length) stale[0] = Arrays.copyOf(stale[0], staleCount[0] * 2);
+            stale[0][staleCount[0]++] = id;
+        });
+        int deleted = 0;
+        for (int from = 0; from < staleCount[0]; from += IMPORT_BATCH_SIZE) {
+            long[] chunk = Arrays.copyOfRange(stale[0], from, Math.min(from + IMPORT_BATCH_SIZE, staleCount[0]));
+            deleted += transactionTemplate.execute(tx -> {
+                List<Employee> removed = mergeDAO.deleteByIds(chunk);
+                afterCommit(() -> {
+                    for (Employee employee : removed) {
+                        secondLevelCache.evictEntityData(Employee.class, employee.getId());
+                        statisticsIndex.remove(employee);
+                        searchIndex.remove(employee.getId());
+                        events.publishEvent(new EmployeeRemovedEvent(Employee.normalize(employee.getEmail())));
+                    }
+                    secondLevelCache.evictNaturalIdData(Employee.class);
+                    evictEmployeeQueries();
+                });
+                return removed.size();
+            });
+        }
+        return deleted;
+    }
+
     public Page<Employee> findAll(Specification<Employee> spec, Pageable pageable) {
         Pageable effectivePageable = pageable != null ? pageable : PageRequest.of(0, 20);
         return repository.findAll(spec, effectivePageable);
     }
+
+    // jak findAll, ale wiersze jako EmployeeView - tylko kolumny DTO
+    public Page<EmployeeView> findViews(Specification<Employee> spec, Pageable pageable) {
+        Pageable effectivePageable = pageable != null ? pageable : PageRequest.of(0, 20);
+        return repository.findViews(spec, effectivePageable);
+    }
+
+    /**
+     * Pagination keyset: do limit pracowników o id większym niż afterId, rosnąco po id.
+     * Bez zapytania count i bez OFFSET - koszt strony nie zależy od jej głębokości.
+     */
+    public List<EmployeeView> findViewsAfter(Specification<Employee> spec, Long afterId, int limit) {
+        Specification<Employee> seek = EmployeeSpecification.idGreaterThan(afterId);
+        Specification<Employee> effectiveSpec = spec == null ? seek : spec.and(seek);
+        return repository.findViews(effectiveSpec, Sort.by("id"), limit);
+    }
+
+    // zapisy JDBC omijają Hibernate - cache drugiego poziomu trzeba unieważnić ręcznie
+    private void evictCached(Long employeeId) {
+        secondLevelCache.evictEntityData(Employee.class, employeeId);
+        evictEmployeeQueries();
+    }
+
+    private void evictAllCached() {
+        secondLevelCache.evictEntityData(Employee.class);
+        secondLevelCache.evictNaturalIdData(Employee.class);
+        evictEmployeeQueries();
+        events.publishEvent(EmployeeRemovedEvent.allEmployees());
+    }
+
+    // znacznik czasu zmiany tabeli employees - jak po zapisie przez Hibernate; wyniki zapytań o inne tabele
+    // (np. same działy) zostają w cache, zapytania o pracowników są odrzucane przy następnym odczycie
+    private void evictEmployeeQueries() {
+        if (!sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled()) return;
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            secondLevelCache.getTimestampsCache().invalidate(employeeQuerySpaces, (SharedSessionContractImplementor) session);
+        }
+    }
+
+    // naruszenie unikalności (SQLSTATE 23505) - inne naruszenia więzów to błąd danych, nie duplikat
+    private static boolean isUniqueViolation(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && UNIQUE_VIOLATION_SQL_STATE.equals(sql.getSQLState())) return true;
+        }
+        return false;
+    }
+
+    // indeks statystyk aktualizowany dopiero po zatwierdzeniu transakcji (rollback nie rozspójnia liczników)
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,112 @@
+package com.techcorp.employee.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Wysyłka zapisanych plików: warunkowe GET (ETag / Last-Modified, 304), pojedynczy zakres bajtów (206, 416),
+ * HEAD bez treści. Treść nie przechodzi przez bufory aplikacji - pod Tomcatem przez sendfile,
+ * w pozostałych kontenerach przez FileChannel.transferTo do strumienia odpowiedzi.
+ */
+@Service
+public class FileDownloadService {
+    // atrybuty żądania Tomcata (org.apache.catalina.Globals) - kontener sam wysyła zakres pliku po zakończeniu żądania
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    // małe pliki szybciej zapisać od razu niż oddawać poller-owi Tomcata (ten sam próg co DefaultServlet)
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    /**
+     * @param disposition  nagłówek Content-Disposition albo null
+     * @param cacheControl polityka cache przeglądarki; ETag i tak pozwala na tanie odświeżenie
+     */
+    public void serve(FileStorageService.StoredFile file, ContentDisposition disposition, CacheControl cacheControl,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String cacheHeader = cacheControl.getHeaderValue();
+        if (cacheHeader != null) response.setHeader(HttpHeaders.CACHE_CONTROL, cacheHeader);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // ustawia ETag i Last-Modified; przy zgodnym If-None-Match / If-Modified-Since status 304 bez treści
+        if (new ServletWebRequest(request, response).checkNotModified(file.etag(), file.lastModified())) {
+            return;
+        }
+
+        long size = file.size();
+        long start = 0;
+        long end = size - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && size > 0 && rangeStillValid(request, file)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException malformed) {
+                ranges = List.of();  // niepoprawny nagłówek Range jest ignorowany (RFC 9110)
+            }
+            // kilka zakresów (multipart/byteranges) obsługiwane jako cały plik - też dozwolona odpowiedź
+            if (ranges.size() == 1) {
+                try {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                } catch (IllegalArgumentException invalidRange) {
+                    start = size;
+                }
+                // HttpRange nie odrzuca początku za końcem pliku
+                if (start >= size || end < start) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(file.contentType());
+        response.setContentLengthLong(length);
+        if (disposition != null) response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+        if ("HEAD".equals(request.getMethod()) || length == 0) return;
+
+        if (length >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long sent = channel.transferTo(position, end + 1 - position, out);
+                if (sent <= 0) break;  // plik skrócony w trakcie wysyłki
+                position += sent;
+            }
+        }
+    }
+
+    // If-Range: zakres tylko dla niezmienionego pliku (ten sam silny ETag albo data), inaczej cały plik
+    private static boolean rangeStillValid(HttpServletRequest request, FileStorageService.StoredFile file) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"")) return ifRange.equals(file.etag());
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == file.lastModified() / 1000;
+        } catch (IllegalArgumentException invalidDate) {
+            return false;
+        }
+    }
+}
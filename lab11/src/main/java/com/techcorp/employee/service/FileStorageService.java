@@ -2,6 +2,7 @@ package com.techcorp.employee.service;
 import com.techcorp.employee.exception.FileStorageException;
 import com.techcorp.employee.exception.FileNotFoundException;
 import com.techcorp.employee.exception.InvalidFileException;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -9,19 +10,57 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
+import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Pliki przechowywane adresowo po treści: każda unikalna treść zapisana raz jako blob
+ * (blobs/xx/&lt;sha256&gt;.ext), a ścieżki zwracane wywołującym (documents/..., photos/..., imports/...)
+ * to twarde linki do blobu. Licznikiem referencji jest licznik linków systemu plików - przeżywa restart
+ * bez osobnych metadanych; blob bez referencji usuwany razem z ostatnią z nich.
+ * Bez widoku atrybutów "unix" (np. Windows) pliki zapisywane jak dawniej, bez deduplikacji.
+ */
 @Service
 public class FileStorageService {
+    private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final int LOCK_STRIPES = 64;
+
     private final Path fileStorageLocation;
     private final long maxFileSize;
+    private final boolean contentAddressed;
+    private final Path blobRoot;
+    private final Path blobTempDir;
+    // klucz pliku (i-węzeł) -> blob, do znalezienia blobu dla usuwanej referencji
+    private final Map<Object, Path> blobsByFileKey = new ConcurrentHashMap<>();
+    private final Object[] digestLocks = new Object[LOCK_STRIPES];
+    // metadane do pobierania (typ MIME, ETag) per plik - ważne, dopóki plik ma ten sam i-węzeł, rozmiar i czas
+    private final Map<Path, CachedMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    /**
+     * Plik gotowy do wysłania: rozmiar, czas modyfikacji (ms), typ MIME i silny ETag (w cudzysłowie).
+     */
+    public record StoredFile(Path path, long size, long lastModified, String contentType, String etag) {}
+
+    private record CachedMetadata(Object fileKey, StoredFile file) {}
 
     public FileStorageService(@Value("${app.upload.directory}") String uploadDirectory,
                               @Value("${spring.servlet.multipart.max-file-size}") String maxFileSizeString) {
@@ -29,12 +68,37 @@ public class FileStorageService {
         // parse max file size from application.properties
         String maxFileSizeNonNull = Objects.requireNonNull(maxFileSizeString, "spring.servlet.multipart.max-file-size must not be null");
         this.maxFileSize = DataSize.parse(maxFileSizeNonNull).toBytes();
+        this.blobRoot = this.fileStorageLocation.resolve(BLOB_DIRECTORY);
+        this.blobTempDir = this.blobRoot.resolve("tmp");
+        this.contentAddressed = this.fileStorageLocation.getFileSystem().supportedFileAttributeViews().contains("unix");
+        for (int i = 0; i < LOCK_STRIPES; i++) digestLocks[i] = new Object();
         try {
             Files.createDirectories(this.fileStorageLocation);
+            if (contentAddressed) {
+                Files.createDirectories(this.blobTempDir);
+                indexBlobs();
+                logger.info("File storage at {}: {} stored blobs", this.fileStorageLocation, blobsByFileKey.size());
+            }
         } catch (Exception exception) {
             throw new FileStorageException("Could not create the directory where the uploaded files will be stored.", exception);
         }
     }
+
+    // odbudowa indeksu po restarcie: bloby bez referencji i pozostałości przerwanych zapisów są usuwane
+    private void indexBlobs() throws IOException {
+        try (java.util.stream.Stream<Path> leftovers = Files.list(blobTempDir)) {
+            for (Path leftover : leftovers.toList()) Files.deleteIfExists(leftover);
+        }
+        try (java.util.stream.Stream<Path> blobs = Files.walk(blobRoot, 2)) {
+            for (Path blob : blobs.filter(p -> Files.isRegularFile(p) && !p.getParent().equals(blobTempDir)).toList()) {
+                if (linkCount(blob) <= 1) {
+                    Files.delete(blob);
+                } else {
+                    blobsByFileKey.put(fileKey(blob), blob);
+                }
+            }
+        }
+    }
     
     public java.nio.file.Path getFilePath(String fileName) {
         return this.fileStorageLocation.resolve(fileName).normalize();
@@ -44,6 +108,7 @@ public class FileStorageService {
      * Store file into a subdirectory under the configured storage location.
      * Returns the relative path (subdir/uniqueFileName) stored.
      */
+    @Timed(value = "employee.storage.store", description = "Uploaded file storage")
     public String storeFileInSubDirectory(MultipartFile file, String subDir) {
         if (file == null) {
             throw new InvalidFileException("File must not be null");
@@ -67,7 +132,9 @@ public class FileStorageService {
             java.nio.file.Path dirPath = this.fileStorageLocation.resolve(safeSubDir).toAbsolutePath().normalize();
             Files.createDirectories(dirPath);
             Path targetLocation = dirPath.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            try (InputStream in = file.getInputStream()) {
+                storeContent(in, targetLocation, fileExtension);
+            }
             // return path relative to storage root
             java.nio.file.Path relative = this.fileStorageLocation.relativize(targetLocation);
             return relative.toString().replace('\\', '/');
@@ -80,6 +147,7 @@ public class FileStorageService {
      * Store file into a subdirectory under the configured storage location using a specific filename.
      * Returns the relative path (subdir/filename) stored.
      */
+    @Timed(value = "employee.storage.store", description = "Uploaded file storage")
     public String storeFileWithNameInSubDirectory(MultipartFile file, String subDir, String desiredFileName) {
         if (file == null) {
             throw new InvalidFileException("File must not be null");
@@ -98,7 +166,10 @@ public class FileStorageService {
             java.nio.file.Path dirPath = this.fileStorageLocation.resolve(safeSubDir).toAbsolutePath().normalize();
             Files.createDirectories(dirPath);
             Path targetLocation = dirPath.resolve(cleanDesired);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            int dotIndex = cleanDesired.lastIndexOf('.');
+            try (InputStream in = file.getInputStream()) {
+                storeContent(in, targetLocation, dotIndex > 0 ? cleanDesired.substring(dotIndex) : "");
+            }
             java.nio.file.Path relative = this.fileStorageLocation.relativize(targetLocation);
             return relative.toString().replace('\\', '/');
         } catch (IOException ex) {
@@ -106,6 +177,7 @@ public class FileStorageService {
         }
     }
     
+    @Timed(value = "employee.storage.store", description = "Uploaded file storage")
     public String storeFile(MultipartFile file) {
         if (file == null) {
             throw new InvalidFileException("File must not be null");
@@ -136,7 +208,9 @@ public class FileStorageService {
             }
             
             validateFile(file, this.maxFileSize, new String[]{"jpg", "jpeg", "png", "gif", "pdf"});
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING); // Fuck your duplicate UUID
+            try (InputStream in = file.getInputStream()) {
+                storeContent(in, targetLocation, fileExtension);
+            }
             return uniqueFileName;
 
     } catch (IOException exception) {
@@ -176,7 +250,8 @@ public class FileStorageService {
             java.nio.file.Path dirPath = this.fileStorageLocation.resolve(subDir).normalize();
             if (!Files.exists(dirPath) || !Files.isDirectory(dirPath)) return java.util.List.of();
             try (java.util.stream.Stream<java.nio.file.Path> stream = Files.list(dirPath)) {
-                return stream.filter(p -> Files.isRegularFile(p))
+                // pomijane linki tymczasowe (.<uuid>.link) zapisów w toku
+                return stream.filter(p -> Files.isRegularFile(p) && !p.getFileName().toString().startsWith("."))
                         .map(p -> p.getFileName().toString())
                         .sorted()
                         .toList();
@@ -193,7 +268,10 @@ public class FileStorageService {
         try {
             Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
             if (Files.exists(filePath)) {
+                Object blobKey = contentAddressed ? fileKey(filePath) : null;
                 Files.delete(filePath);
+                metadataCache.remove(filePath);
+                releaseBlob(blobKey);
             
             } else {
                 throw new FileNotFoundException("File not found " + fileName);
@@ -204,6 +282,175 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Zapisuje treść pod ścieżką {@code target}: SHA-256 liczony w trakcie kopiowania do pliku tymczasowego,
+     * po czym target staje się linkiem do blobu o tym skrócie. Gdy blob już istnieje, plik tymczasowy
+     * jest usuwany - identyczna treść nie jest zapisywana drugi raz. Istniejący target jest zastępowany
+     * atomowo, a jego poprzedni blob zwalniany.
+     */
+    private void storeContent(InputStream content, Path target, String extension) throws IOException {
+        if (!contentAddressed) {
+            Files.copy(content, target, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+        Object previousKey = Files.exists(target) ? fileKey(target) : null;
+        Path temp = Files.createTempFile(blobTempDir, "upload-", ".tmp");
+        Path link = target.resolveSibling("." + UUID.randomUUID() + ".link");
+        try {
+            MessageDigest sha256 = newSha256();
+            try (InputStream digesting = new DigestInputStream(content, sha256)) {
+                Files.copy(digesting, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String digest = HexFormat.of().formatHex(sha256.digest());
+            Path blob = blobRoot.resolve(digest.substring(0, 2)).resolve(digest + extension.toLowerCase(Locale.ROOT));
+            synchronized (lockFor(digest)) {
+                if (!Files.exists(blob)) {
+                    Files.createDirectories(blob.getParent());
+                    Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE);
+                    blobsByFileKey.put(fileKey(blob), blob);
+                }
+                try {
+                    Files.createLink(link, blob);
+                } catch (UnsupportedOperationException | FileSystemException linkUnsupported) {
+                    // np. katalog na innym systemie plików - zwykła kopia, bez deduplikacji tej referencji
+                    Files.copy(blob, link);
+                }
+                Files.move(link, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(link);
+        }
+        releaseBlob(previousKey);
+    }
+
+    // usuwa blob, jeśli po zwolnieniu referencji został mu tylko własny wpis w blobs/
+    private void releaseBlob(Object blobKey) throws IOException {
+        if (blobKey == null) return;
+        Path blob = blobsByFileKey.get(blobKey);
+        if (blob == null) return;
+        // ta sama blokada co w storeContent - skrót bez rozszerzenia
+        synchronized (lockFor(digestOf(blob))) {
+            if (Files.exists(blob) && linkCount(blob) <= 1) {
+                Files.delete(blob);
+                blobsByFileKey.remove(blobKey);
+            }
+        }
+    }
+
+    /**
+     * Liczba referencji do treści pliku o podanej ścieżce względnej (1 dla pliku spoza magazynu blobów).
+     */
+    public int referenceCount(String fileName) {
+        Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
+        try {
+            if (!Files.exists(filePath)) throw new FileNotFoundException("File not found " + fileName);
+            if (!contentAddressed || !blobsByFileKey.containsKey(fileKey(filePath))) return 1;
+            return linkCount(filePath) - 1;
+        } catch (IOException exception) {
+            throw new FileStorageException("Could not read file " + fileName, exception);
+        }
+    }
+
+    // liczba unikalnych treści w magazynie
+    int blobCount() {
+        return blobsByFileKey.size();
+    }
+
+    // nazwa blobu to <sha256><rozszerzenie>
+    private static String digestOf(Path blob) {
+        String blobName = blob.getFileName().toString();
+        int dot = blobName.indexOf('.');
+        return dot > 0 ? blobName.substring(0, dot) : blobName;
+    }
+
+    private Object lockFor(String digest) {
+        return digestLocks[Math.floorMod(digest.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static Object fileKey(Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    private static int linkCount(Path path) throws IOException {
+        return (Integer) Files.getAttribute(path, "unix:nlink");
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Zapisuje wygenerowaną treść (np. miniaturę) pod podaną ścieżką względną, zastępując istniejący plik.
+     */
+    public String storeBytes(byte[] content, String fileName) {
+        String cleanName = StringUtils.cleanPath(Objects.requireNonNull(fileName, "fileName must not be null"));
+        if (cleanName.contains("..")) {
+            throw new InvalidFileException("Invalid path sequence in file name: " + cleanName);
+        }
+        Path target = this.fileStorageLocation.resolve(cleanName).normalize();
+        try {
+            Files.createDirectories(target.getParent());
+            int dotIndex = target.getFileName().toString().lastIndexOf('.');
+            storeContent(new java.io.ByteArrayInputStream(content), target,
+                    dotIndex > 0 ? target.getFileName().toString().substring(dotIndex) : "");
+            return this.fileStorageLocation.relativize(target).toString().replace('\\', '/');
+        } catch (IOException ex) {
+            throw new FileStorageException("Could not store file " + cleanName + ". Please try again!", ex);
+        }
+    }
+
+    public StoredFile describe(String fileName) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new FileNotFoundException("File name is null or empty");
+        }
+        return describe(this.fileStorageLocation.resolve(fileName).normalize());
+    }
+
+    /**
+     * Metadane pliku do pobrania. Jeden odczyt atrybutów na wywołanie; typ MIME i ETag liczone tylko
+     * przy pierwszym pobraniu pliku albo po jego zmianie. ETag pliku z magazynu blobów to skrót SHA-256
+     * treści, pozostałych plików - rozmiar i czas modyfikacji.
+     */
+    public StoredFile describe(Path path) {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException exception) {
+            throw new FileNotFoundException("File not found " + path.getFileName(), exception);
+        }
+        if (!attributes.isRegularFile()) throw new FileNotFoundException("File not found " + path.getFileName());
+        long size = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        Object fileKey = attributes.fileKey();
+        CachedMetadata cached = metadataCache.get(path);
+        if (cached != null && cached.file().size() == size && cached.file().lastModified() == lastModified
+                && Objects.equals(cached.fileKey(), fileKey)) {
+            return cached.file();
+        }
+        String contentType = null;
+        try {
+            contentType = Files.probeContentType(path);
+        } catch (IOException ignored) {
+            // nieznany typ - octet-stream
+        }
+        Path blob = fileKey == null ? null : blobsByFileKey.get(fileKey);
+        String etag;
+        if (blob != null) {
+            etag = "\"" + digestOf(blob) + "\"";
+        } else {
+            etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+        }
+        StoredFile file = new StoredFile(path, size, lastModified,
+                contentType == null ? "application/octet-stream" : contentType, etag);
+        metadataCache.put(path, new CachedMetadata(fileKey, file));
+        return file;
+    }
+
     public void validateFile(MultipartFile file, long maxFileSize, String[] allowedExtensions) {
         if (file == null) {
             throw new InvalidFileException("File must not be null");
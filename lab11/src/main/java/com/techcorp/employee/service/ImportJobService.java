@@ -0,0 +1,172 @@
+package com.techcorp.employee.service;
+
+import com.techcorp.employee.model.ImportDelta;
+import com.techcorp.employee.model.ImportJobState;
+import com.techcorp.employee.model.ImportJobStatus;
+import com.techcorp.employee.model.ImportMode;
+import com.techcorp.employee.model.ImportSummary;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importy plików jako zadania w tle: żądanie HTTP tylko kolejkuje import, postęp odczytywany przez id zadania.
+ * Import zastępuje całą tabelę pracowników, więc domyślnie działa jeden wątek, a kolejne pliki czekają
+ * w ograniczonej kolejce (pełna kolejka = odrzucenie, nie kolejne równoległe transakcje na tej samej tabeli).
+ */
+@Service
+public class ImportJobService {
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+    private static final int MAX_TRACKED_JOBS = 20;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final ImportService importService;
+    private final FileStorageService fileStorageService;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+
+    public ImportJobService(ImportService importService, FileStorageService fileStorageService,
+                            @Value("${app.import.job-threads:1}") int jobThreads,
+                            @Value("${app.import.job-queue-capacity:10}") int queueCapacity) {
+        this.importService = Objects.requireNonNull(importService, "importService must not be null");
+        this.fileStorageService = Objects.requireNonNull(fileStorageService, "fileStorageService must not be null");
+        int threads = Math.max(1, jobThreads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "import-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Kolejkuje import zapisanego pliku i od razu zwraca stan zadania (QUEUED albo już RUNNING).
+     *
+     * @param format "csv" lub "xml"
+     * @throws RejectedExecutionException gdy kolejka importów jest pełna
+     */
+    public ImportJobStatus submit(String format, String filePath) {
+        return submit(format, filePath, ImportMode.REPLACE);
+    }
+
+    public ImportJobStatus submit(String format, String filePath, ImportMode mode) {
+        String normalizedFormat = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        if (!normalizedFormat.equals("csv") && !normalizedFormat.equals("xml")) {
+            throw new IllegalArgumentException("Unsupported import format: " + format);
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), normalizedFormat,
+                mode == null ? ImportMode.REPLACE : mode);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            jobs.entrySet().removeIf(entry -> jobs.size() > MAX_TRACKED_JOBS && entry.getValue().isFinished());
+        }
+        try {
+            executor.execute(() -> run(job, filePath));
+        } catch (RejectedExecutionException rejected) {
+            synchronized (jobs) {
+                jobs.remove(job.id);
+            }
+            logger.warn("Import job rejected, queue full ({} waiting)", executor.getQueue().size());
+            throw rejected;
+        }
+        logger.info("Import job {} queued for {} file {} ({})", job.id, normalizedFormat, filePath, job.mode);
+        return job.status();
+    }
+
+    public Optional<ImportJobStatus> getStatus(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::status);
+        }
+    }
+
+    private void run(ImportJob job, String filePath) {
+        job.startedNanos = System.nanoTime();
+        job.state = ImportJobState.RUNNING;
+        try {
+            ImportSummary summary = "xml".equals(job.format)
+                    ? importService.importXml(filePath, job.progress, job.mode)
+                    : importService.importCsv(filePath, job.progress, job.mode);
+            job.delta = summary.delta();
+            job.errors = summary.errors() == null ? List.of()
+                    : List.copyOf(summary.errors().subList(0, Math.min(summary.errors().size(), MAX_REPORTED_ERRORS)));
+            job.finish(ImportJobState.FINISHED);
+            logger.info("Import job finished: {}", job.status());
+        } catch (Exception e) {
+            job.errors = List.of(e.getMessage() == null ? e.toString() : e.getMessage());
+            job.finish(ImportJobState.FAILED);
+            logger.warn("Import job {} failed: {}", job.id, e.toString());
+        } finally {
+            releaseUpload(filePath);
+        }
+    }
+
+    // przesłany plik potrzebny tylko na czas importu - zwalniana referencja, treść usuwana z ostatnią z nich
+    private void releaseUpload(String filePath) {
+        try {
+            fileStorageService.deleteFile(filePath);
+        } catch (RuntimeException e) {
+            logger.debug("Could not release import file {}: {}", filePath, e.toString());
+        }
+    }
+
+    // stan zadania - pola pisane przez wątek importu, czytane przez żądania statusu
+    private static final class ImportJob {
+        private final String id;
+        private final String format;
+        private final ImportMode mode;
+        private final ImportProgress progress = new ImportProgress();
+        private volatile ImportJobState state = ImportJobState.QUEUED;
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+        private volatile List<String> errors = List.of();
+        private volatile ImportDelta delta;
+
+        ImportJob(String id, String format, ImportMode mode) {
+            this.id = id;
+            this.format = format;
+            this.mode = mode;
+        }
+
+        void finish(ImportJobState finalState) {
+            finishedNanos = System.nanoTime();
+            state = finalState;
+        }
+
+        boolean isFinished() {
+            return state.isFinished();
+        }
+
+        // czas liczony od startu importu, bez oczekiwania w kolejce
+        ImportJobStatus status() {
+            ImportJobState currentState = state;
+            long started = startedNanos;
+            long finished = finishedNanos;
+            long elapsedNanos = started == 0 ? 0 : (finished != 0 ? finished : System.nanoTime()) - started;
+            long parsed = progress.getParsed();
+            double perSecond = elapsedNanos > 0 ? parsed / (elapsedNanos / 1_000_000_000.0) : 0.0;
+            return new ImportJobStatus(id, format, mode, currentState, parsed, progress.getPersisted(), progress.getErrors(),
+                    errors, elapsedNanos / 1_000_000, perSecond, delta);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.techcorp.employee.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Liczniki postępu jednego importu - aktualizowane przez potok ImportService w trakcie pracy,
+ * odczytywane z innych wątków (status zadania importu).
+ */
+public class ImportProgress {
+    private final AtomicLong parsed = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    // rekord odczytany z pliku i sparsowany (poprawny lub nie)
+    void recordParsed() {
+        parsed.incrementAndGet();
+    }
+
+    void recordError() {
+        errors.incrementAndGet();
+    }
+
+    // partia zapisana przez JDBC batch (w transakcji importu - widoczna po jej zatwierdzeniu)
+    void recordPersisted(int rows) {
+        persisted.addAndGet(rows);
+    }
+
+    public long getParsed() {
+        return parsed.get();
+    }
+
+    public long getPersisted() {
+        return persisted.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+}
@@ -1,35 +1,118 @@
 package com.techcorp.employee.service;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.io.InputStream;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.techcorp.employee.exception.InvalidDataException;
 import com.techcorp.employee.model.Employee;
 import com.techcorp.employee.model.ImportSummary;
+import com.techcorp.employee.model.ImportMode;
 import com.techcorp.employee.model.Position;
 
 // Import z CSV w trybie strumieniowym - bez wczytywania całego pliku do pamięci
 
 @Service
 public class ImportService {
+    private static final Future<List<ParsedRecord>> END_OF_INPUT = CompletableFuture.completedFuture(null);
+    // kolejność pól odpowiada indeksom StringBuilderów w readXmlChunks
+    private static final List<String> XML_FIELDS = List.of("firstname", "lastname", "email", "company", "position", "salary");
+    // fabryka StAX jest kosztowna w tworzeniu, a po konfiguracji bezpieczna dla wielu wątków
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+    // import trzyma w puli najwyżej 2 porcje na wątek parsera - zapas na kilka importów naraz
+    private static final int PARSER_QUEUE_PER_THREAD = 8;
+
     private final EmployeeService employeeService;
+    private final int chunkSize;
+    private final int batchSize;
+    private final int parserThreads;
+    private final MeterRegistry meterRegistry;
+    // pule wspólne dla wszystkich importów, zamykane z kontekstem: parsery - stała liczba wątków i ograniczona kolejka,
+    // wątki czytające - jeden na trwający import, bezczynne wygasają
+    private final ThreadPoolExecutor parsers;
+    private final ExecutorService readers;
 
-    public ImportService(EmployeeService employeeService) {
+    @Autowired
+    public ImportService(EmployeeService employeeService,
+                         @Value("${app.import.chunk-size:1000}") int chunkSize,
+                         @Value("${app.import.batch-size:1000}") int batchSize,
+                         @Value("${app.import.parser-threads:0}") int parserThreads,
+                         MeterRegistry meterRegistry) {
         this.employeeService = employeeService;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.parserThreads = parserThreads > 0 ? parserThreads : Runtime.getRuntime().availableProcessors();
+        this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+        AtomicInteger parserNumber = new AtomicInteger();
+        this.parsers = new ThreadPoolExecutor(this.parserThreads, this.parserThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.parserThreads * PARSER_QUEUE_PER_THREAD), runnable -> {
+                    Thread thread = new Thread(runnable, "import-parser-" + parserNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        AtomicInteger readerNumber = new AtomicInteger();
+        this.readers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "import-reader-" + readerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readers.shutdownNow();
+        parsers.shutdownNow();
+    }
+
+    public ImportService(EmployeeService employeeService) {
+        this(employeeService, 1000, 1000, 0, new SimpleMeterRegistry());
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
     }
 
     /**
@@ -40,202 +123,430 @@ public class ImportService {
      */
 
     public ImportSummary importCsv(String csvFilePath) throws IOException {
+        return importCsv(csvFilePath, new ImportProgress());
+    }
+
+    // jak importCsv, z licznikami postępu odczytywanymi w trakcie (zadania importu w tle)
+    public ImportSummary importCsv(String csvFilePath, ImportProgress progress) throws IOException {
+        return importCsv(csvFilePath, progress, ImportMode.REPLACE);
+    }
+
+    // MERGE: zamiast zastępować tabelę zapisuje tylko różnicę względem bazy (ImportSummary.delta())
+    public ImportSummary importCsv(String csvFilePath, ImportProgress progress, ImportMode mode) throws IOException {
         Path csvPath = Path.of(csvFilePath);
-        return importFromCsv(csvPath, 0);
+        return runPipeline("csv", sink -> readCsvChunks(csvPath, 0, sink), 0, progress, mode);
     }
     
     public ImportSummary importXml(String xmlFilePath) throws IOException {
+        return importXml(xmlFilePath, new ImportProgress());
+    }
+
+    public ImportSummary importXml(String xmlFilePath, ImportProgress progress) throws IOException {
+        return importXml(xmlFilePath, progress, ImportMode.REPLACE);
+    }
+
+    public ImportSummary importXml(String xmlFilePath, ImportProgress progress, ImportMode mode) throws IOException {
         Path xmlPath = Path.of(xmlFilePath);
-        return importFromXml(xmlPath, 0);
+        return runPipeline("xml", sink -> readXmlChunks(xmlPath, sink), 0, progress, mode);
     }
 
+    /**
+     * Import XML tym samym potokiem co CSV: wątek czytający (StAX) składa surowe rekordy w porcje,
+     * pula parserów je waliduje, a etap zapisu zapisuje partie przez JDBC batch.
+     *
+     * @param maxEntries limit zaimportowanych pracowników (0 = bez limitu) - po jego osiągnięciu czytanie pliku jest przerywane
+     */
     public ImportSummary importFromXml(Path xmlPath, int maxEntries) throws IOException {
+        return runPipeline("xml", sink -> readXmlChunks(xmlPath, sink), maxEntries, new ImportProgress(), ImportMode.REPLACE);
+    }
+
+    /**
+     * Import CSV jako potok: wątek czytający dzieli plik na porcje linii, pula parserów waliduje porcje,
+     * a bieżący wątek (w transakcji) zapisuje partie o stałym rozmiarze przez JDBC batch.
+     * Kolejność błędów i wykrywanie duplikatów zgodne z kolejnością linii w pliku.
+     */
+    public ImportSummary importFromCsv(Path csvPath, int maxLines) throws IOException {
+        return runPipeline("csv", sink -> readCsvChunks(csvPath, maxLines, sink), 0, new ImportProgress(), ImportMode.REPLACE);
+    }
+
+    // wspólny potok: czytanie w osobnym wątku, parsowanie w puli, zapis w bieżącym wątku (transakcja)
+    private ImportSummary runPipeline(String format, RecordSource source, int maxEntries, ImportProgress progress,
+                                      ImportMode mode) throws IOException {
         List<String> errors = new ArrayList<>();
-        List<Employee> toImport = new ArrayList<>();
-        Set<String> seenEmails = new HashSet<>();
-
-        try (InputStream is = Files.newInputStream(xmlPath)) {
-            XMLInputFactory factory = XMLInputFactory.newInstance();
-            XMLStreamReader reader = factory.createXMLStreamReader(is);
-
-            AtomicInteger elementNumber = new AtomicInteger();
-            boolean inEmployee = false;
-            String currentElement = null;
-
-            String firstName = "", lastName = "", email = "", company = "", positionString = "", salaryString = "";
-
-            while (reader.hasNext()) {
-                int event = reader.next();
-                if (event == XMLStreamConstants.START_ELEMENT) {
-                    String name = reader.getLocalName();
-                    if ("employee".equalsIgnoreCase(name)) {
-                        inEmployee = true;
-                        elementNumber.incrementAndGet();
-                        firstName = lastName = email = company = positionString = salaryString = "";
-                    } else if (inEmployee) {
-                        currentElement = name;
-                    }
-                } else if (event == XMLStreamConstants.CHARACTERS) {
-                    if (inEmployee && currentElement != null) {
-                        String text = reader.getText();
-                        if (text != null) {
-                            switch (currentElement.toLowerCase(Locale.ROOT)) {
-                                case "firstname":
-                                    firstName += text;
-                                    break;
-                                case "lastname":
-                                    lastName += text;
-                                    break;
-                                case "email":
-                                    email += text;
-                                    break;
-                                case "company":
-                                    company += text;
-                                    break;
-                                case "position":
-                                    positionString += text;
-                                    break;
-                                case "salary":
-                                    salaryString += text;
-                                    break;
-                                default:
-                                    break;
-                            }
-                        }
-                    }
-                } else if (event == XMLStreamConstants.END_ELEMENT) {
-                    String name = reader.getLocalName();
-                    if (inEmployee && "employee".equalsIgnoreCase(name)) {
-                        inEmployee = false;
-                        int current = elementNumber.get();
-
-                        String fullName = (firstName + " " + lastName).trim();
-                        try {
-                            double salary;
-                            try {
-                                salary = Double.parseDouble(salaryString.trim());
-                            } catch (NumberFormatException nfe) {
-                                errors.add("Employee " + current + ": invalid salary '" + salaryString + "'");
-                                continue;
-                            }
+        ChunkSink sink = new ChunkSink(parsers, new ArrayBlockingQueue<>(parserThreads * 2));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        int count = 0;
+        Future<?> reader = readers.submit(() -> sink.drainFrom(source));
+        try {
+            ParsedBatchIterator batches = new ParsedBatchIterator(sink, errors, maxEntries, progress);
+            if (mode == ImportMode.MERGE) {
+                ImportSummary merged = employeeService.mergeEmployeeBatches(batches);
+                count = merged.importedCount();
+                outcome = "success";
+                return new ImportSummary(count, errors, merged.delta());
+            }
+            count = employeeService.importEmployeeBatches(batches);
+            outcome = "success";
+            return new ImportSummary(count, errors);
+        } catch (UncheckedIOException uioe) {
+            throw uioe.getCause();
+        } finally {
+            sink.stop();
+            reader.cancel(true);
+            sink.cancelPending();
+            recordImportMetrics(format, outcome, sample, count, errors.size());
+        }
+    }
 
-                            Position position;
-                            try {
-                                position = Position.valueOf(positionString.trim().toUpperCase(Locale.ROOT));
-                            } catch (Exception exception) {
-                                errors.add("Employee " + current + ": invalid position '" + positionString + "'");
-                                continue;
-                            }
+    // czas importu, liczba wierszy i błędów oraz przepustowość (wiersze/s) per format
+    private void recordImportMetrics(String format, String outcome, Timer.Sample sample, int rows, int errorCount) {
+        long nanos = sample.stop(Timer.builder("employee.import")
+                .description("Whole file import: read, validate and persist")
+                .tags("format", format, "outcome", outcome)
+                .register(meterRegistry));
+        Counter.builder("employee.import.rows").tag("format", format).register(meterRegistry).increment(rows);
+        Counter.builder("employee.import.errors").tag("format", format).register(meterRegistry).increment(errorCount);
+        if (rows > 0 && nanos > 0) {
+            DistributionSummary.builder("employee.import.throughput")
+                    .description("Imported rows per second")
+                    .baseUnit("rows/s")
+                    .tag("format", format)
+                    .register(meterRegistry)
+                    .record(rows / (nanos / 1_000_000_000.0));
+        }
+    }
+
+    // etap czytający CSV: porcje niepustych linii trafiają do puli parserów
+    private void readCsvChunks(Path csvPath, int maxLines, ChunkSink sink) throws IOException, InterruptedException {
+        try (BufferedReader in = Files.newBufferedReader(csvPath)) {
+            in.readLine(); // pomiń nagłówek
+            List<String> chunk = new ArrayList<>(chunkSize);
+            int firstLineNumber = 1;
+            int lineNumber = 0;
+            int read = 0;
+            String line;
+            while ((maxLines <= 0 || read < maxLines) && (line = in.readLine()) != null) {
+                read++;
+                if (line.trim().isEmpty()) continue;
+                if (chunk.isEmpty()) firstLineNumber = lineNumber + 1;
+                chunk.add(line);
+                lineNumber++;
+                if (chunk.size() == chunkSize) {
+                    if (!sink.submit(csvTask(chunk, firstLineNumber))) return;
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) sink.submit(csvTask(chunk, firstLineNumber));
+        }
+    }
+
+    private Callable<List<ParsedRecord>> csvTask(List<String> chunk, int firstLineNumber) {
+        return () -> {
+            List<ParsedRecord> parsed = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                parsed.add(parseCsvLine(chunk.get(i), firstLineNumber + i));
+            }
+            return parsed;
+        };
+    }
 
-                            validateEmployeeData(fullName, email.trim(), company.trim(), position, salary);
-                            String normalizedEmail = email.trim().toLowerCase(Locale.ROOT);
-                            if (seenEmails.contains(normalizedEmail)) {
-                                errors.add("Employee " + current + ": duplicate email '" + email + "'");
-                            } else {
-                                Employee employee = new Employee(null, fullName, email.trim(), company.trim(), position, salary);
-                                toImport.add(employee);
-                                seenEmails.add(normalizedEmail);
+    // etap czytający XML: tekst pól zbierany w StringBuilderach wielokrotnego użytku, bez konkatenacji String
+    private void readXmlChunks(Path xmlPath, ChunkSink sink) throws IOException, InterruptedException {
+        try (InputStream is = new BufferedInputStream(Files.newInputStream(xmlPath))) {
+            XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(is);
+            try {
+                StringBuilder[] fields = new StringBuilder[XML_FIELDS.size()];
+                for (int i = 0; i < fields.length; i++) fields[i] = new StringBuilder();
+                List<XmlRecord> chunk = new ArrayList<>(chunkSize);
+                int elementNumber = 0;
+                boolean inEmployee = false;
+                StringBuilder currentField = null;
+
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String name = reader.getLocalName();
+                        if ("employee".equalsIgnoreCase(name)) {
+                            inEmployee = true;
+                            elementNumber++;
+                            for (StringBuilder field : fields) field.setLength(0);
+                        } else if (inEmployee) {
+                            int index = XML_FIELDS.indexOf(name.toLowerCase(Locale.ROOT));
+                            currentField = index < 0 ? null : fields[index];
+                        }
+                    } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                        if (inEmployee && currentField != null) {
+                            currentField.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (inEmployee && "employee".equalsIgnoreCase(reader.getLocalName())) {
+                            inEmployee = false;
+                            chunk.add(new XmlRecord(elementNumber, fields[0].toString(), fields[1].toString(), fields[2].toString(),
+                                    fields[3].toString(), fields[4].toString(), fields[5].toString()));
+                            if (chunk.size() == chunkSize) {
+                                if (!sink.submit(xmlTask(chunk))) return;
+                                chunk = new ArrayList<>(chunkSize);
                             }
-                        } catch (InvalidDataException ide) {
-                            errors.add("Employee " + current + ": " + ide.getMessage());
-                        } catch (Exception exception) {
-                            throw new RuntimeException(exception);
                         }
-
-                        if (maxEntries > 0 && toImport.size() >= maxEntries) break;
-                    } else if (inEmployee) {
-                        currentElement = null;
+                        currentField = null;
                     }
+                    // limit osiągnięty przez etap zapisu - nie czytamy reszty pliku
+                    if (sink.isStopped()) return;
                 }
+                if (!chunk.isEmpty()) sink.submit(xmlTask(chunk));
+            } finally {
+                try { reader.close(); } catch (XMLStreamException ignored) {}
             }
-            try { reader.close(); } catch (XMLStreamException ignored) {}
         } catch (XMLStreamException xse) {
             throw new IOException(xse);
         }
+    }
 
-        // perform transactional import: clear DB and insert parsed employees
-        int count = 0;
-        if (!toImport.isEmpty()) {
-            count = employeeService.importEmployeesTransactional(toImport);
+    private Callable<List<ParsedRecord>> xmlTask(List<XmlRecord> chunk) {
+        return () -> {
+            List<ParsedRecord> parsed = new ArrayList<>(chunk.size());
+            for (XmlRecord record : chunk) parsed.add(parseXmlRecord(record));
+            return parsed;
+        };
+    }
+
+    // etap parsowania jednej linii - wynik to pracownik albo komunikat błędu
+    ParsedRecord parseCsvLine(String line, int current) {
+        String label = "Line " + current;
+        String[] parts = line.split(",", -1);
+        if (parts.length < 6) {
+            return ParsedRecord.error(label, "not enough columns");
+        }
+
+        String firstName = parts[0].trim();
+        String lastName = parts[1].trim();
+        String email = parts[2].trim();
+        String company = parts[3].trim();
+        String positionString = parts[4].trim();
+        String salaryString = parts[5].trim();
+
+        if (email.isEmpty()) {
+            return ParsedRecord.error(label, "missing email");
+        }
+
+        // parsowanie stanowiska (case insensitive)
+        Position position;
+        try {
+            position = Position.valueOf(positionString.trim().toUpperCase(Locale.ROOT));
+        } catch (Exception exception) {
+            return ParsedRecord.error(label, "invalid position '" + positionString + "'");
         }
-        return new ImportSummary(count, errors);
+
+        double salary;
+        try {
+            salary = Double.parseDouble(salaryString);
+        } catch (NumberFormatException nfe) {
+            return ParsedRecord.error(label, "invalid salary '" + salaryString + "'");
+        }
+
+        return validated(label, (firstName + " " + lastName).trim(), email, company, position, salary);
     }
 
-    public ImportSummary importFromCsv(Path csvPath, int maxLines) throws IOException {
-        List<String> errors = new ArrayList<>();
-        List<Employee> toImport = new ArrayList<>();
-        Set<String> seenEmails = new HashSet<>();
-
-        try (Stream<String> lines = Files.lines(csvPath)) {
-            AtomicInteger lineNumber = new AtomicInteger(0);
-
-            Stream<String> processed = lines.skip(1); // pomiń nagłówek
-            if (maxLines > 0) processed = processed.limit(maxLines);
-
-                processed
-                    .filter(emptyLines -> !emptyLines.trim().isEmpty())
-                    .forEach(line -> {
-                        int current = lineNumber.incrementAndGet();
-                        String[] parts = line.split(",", -1);
-                        if (parts.length < 6) {
-                            errors.add("Line " + current + ": not enough columns");
-                            return;
-                        }
+    // etap parsowania jednego elementu <employee>
+    ParsedRecord parseXmlRecord(XmlRecord record) {
+        String label = "Employee " + record.number();
+        double salary;
+        try {
+            salary = Double.parseDouble(record.salary().trim());
+        } catch (NumberFormatException nfe) {
+            return ParsedRecord.error(label, "invalid salary '" + record.salary() + "'");
+        }
 
-                        String firstName = parts[0].trim();
-                        String lastName = parts[1].trim();
-                        String email = parts[2].trim();
-                        String company = parts[3].trim();
-                        String positionString = parts[4].trim();
-                        String salaryString = parts[5].trim();
+        Position position;
+        try {
+            position = Position.valueOf(record.position().trim().toUpperCase(Locale.ROOT));
+        } catch (Exception exception) {
+            return ParsedRecord.error(label, "invalid position '" + record.position() + "'");
+        }
 
-                        if (email.isEmpty()) {
-                            errors.add("Line " + current + ": missing email");
-                            return;
-                        }
+        String fullName = (record.firstName() + " " + record.lastName()).trim();
+        return validated(label, fullName, record.email().trim(), record.company().trim(), position, salary);
+    }
 
-                        // parsowanie stanowiska (case insensitive)
-                        Position position;
-                        try {
-                            position = Position.valueOf(positionString.trim().toUpperCase(Locale.ROOT));
-                        } catch (Exception exception) {
-                            errors.add("Line " + current + ": invalid position '" + positionString + "'");
-                            return;
-                        }
+    private ParsedRecord validated(String label, String fullName, String email, String company, Position position, double salary) {
+        try {
+            // walidacja np: ujemna pensja
+            validateEmployeeData(fullName, email, company, position, salary);
+            return new ParsedRecord(label, new Employee(null, fullName, email, company, position, salary), null);
+        } catch (InvalidDataException ide) {
+            return ParsedRecord.error(label, ide.getMessage());
+        }
+    }
 
-                        double salary;
-                        try {
-                            salary = Double.parseDouble(salaryString);
-                        } catch (NumberFormatException nfe) {
-                            errors.add("Line " + current + ": invalid salary '" + salaryString + "'");
-                            return;
-                        }
+    record XmlRecord(int number, String firstName, String lastName, String email, String company, String position, String salary) {}
 
-                        String fullName = (firstName + " " + lastName).trim();
-                        try {
-                            // walidacja np: ujemna pensja
-                            validateEmployeeData(fullName, email, company, position, salary);
-                            String normalizedEmail = email.toLowerCase(Locale.ROOT);
-                            if (seenEmails.contains(normalizedEmail)) {
-                                errors.add("Line " + current + ": duplicate email '" + email + "'");
-                                return;
-                            }
-                            Employee empployee = new Employee(null, fullName, email, company, position, salary);
-                            toImport.add(empployee);
-                            seenEmails.add(normalizedEmail);
-                        } catch (InvalidDataException ide) {
-                            errors.add("Line " + current + ": " + ide.getMessage());
-                        } catch (Exception exception) {
-                            throw new RuntimeException(exception);
-                        }
-                    });
+    record ParsedRecord(String label, Employee employee, String error) {
+        static ParsedRecord error(String label, String message) {
+            return new ParsedRecord(label, null, label + ": " + message);
         }
+    }
 
-        int count = 0;
-        if (!toImport.isEmpty()) {
-            count = employeeService.importEmployeesTransactional(toImport);
+    @FunctionalInterface
+    private interface RecordSource {
+        void readInto(ChunkSink sink) throws IOException, InterruptedException;
+    }
+
+    /**
+     * Łącznik etapów: zadania parsowania w kolejności pliku, ograniczona kolejka (backpressure)
+     * oraz flaga zatrzymania ustawiana przez etap zapisu.
+     */
+    private static final class ChunkSink {
+        private final ExecutorService parsers;
+        private final BlockingQueue<Future<List<ParsedRecord>>> pending;
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        // dowolny błąd etapu czytającego - etap zapisu rzuca go zamiast czekać na kolejne porcje
+        private final AtomicReference<Throwable> readFailure = new AtomicReference<>();
+
+        ChunkSink(ExecutorService parsers, BlockingQueue<Future<List<ParsedRecord>>> pending) {
+            this.parsers = parsers;
+            this.pending = pending;
+        }
+
+        boolean submit(Callable<List<ParsedRecord>> task) throws InterruptedException {
+            if (stopped.get()) return false;
+            pending.put(parsers.submit(task));
+            return true;
+        }
+
+        boolean isStopped() {
+            return stopped.get();
+        }
+
+        void stop() {
+            stopped.set(true);
+        }
+
+        // porcje tego importu jeszcze nieodebrane - pula parserów jest wspólna, więc bez shutdownNow
+        void cancelPending() {
+            for (Future<List<ParsedRecord>> task; (task = pending.poll()) != null; ) {
+                task.cancel(true);
+            }
+        }
+
+        void drainFrom(RecordSource source) {
+            boolean writerGone = false;
+            try {
+                source.readInto(this);
+            } catch (InterruptedException interrupted) {
+                // etap zapisu zakończył się wcześniej - nikt nie czeka na kolejne porcje
+                writerGone = true;
+            } catch (Throwable failure) {
+                readFailure.set(failure instanceof UncheckedIOException u ? u.getCause() : failure);
+            } finally {
+                // koniec danych zawsze sygnalizowany - inaczej etap zapisu czekałby w take() bez końca
+                if (!writerGone) {
+                    try {
+                        pending.put(END_OF_INPUT);
+                    } catch (InterruptedException ignored) {
+                        // etap zapisu już nie czeka
+                    }
+                }
+            }
+        }
+
+        List<ParsedRecord> take() {
+            try {
+                List<ParsedRecord> chunk = pending.take().get();
+                // błąd odczytu pliku wycofuje całą transakcję importu
+                Throwable failure = chunk == null ? readFailure.get() : null;
+                if (failure instanceof IOException io) throw new UncheckedIOException(io);
+                if (failure instanceof RuntimeException runtime) throw runtime;
+                if (failure instanceof Error error) throw error;
+                if (failure != null) throw new IllegalStateException("Import source failed", failure);
+                return chunk;
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", interrupted);
+            } catch (ExecutionException execution) {
+                throw new RuntimeException(execution.getCause());
+            }
+        }
+    }
+
+    /**
+     * Etap zapisu: pobiera sparsowane porcje w kolejności pliku, odrzuca duplikaty email
+     * i składa partie po batchSize pracowników. Po osiągnięciu limitu zatrzymuje etap czytający.
+     */
+    private final class ParsedBatchIterator implements Iterator<List<Employee>> {
+        private final ChunkSink sink;
+        private final List<String> errors;
+        private final int limit;
+        private final ImportProgress progress;
+        private final Set<String> seenEmails = new HashSet<>();
+        private Iterator<ParsedRecord> current = Collections.emptyIterator();
+        private List<Employee> nextBatch;
+        private int handedOut;
+        private int accepted;
+        private boolean finished;
+
+        ParsedBatchIterator(ChunkSink sink, List<String> errors, int limit, ImportProgress progress) {
+            this.sink = sink;
+            this.errors = errors;
+            this.limit = limit;
+            this.progress = progress;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // EmployeeService pyta o kolejną partię dopiero po zapisaniu poprzedniej
+            if (handedOut > 0) {
+                progress.recordPersisted(handedOut);
+                handedOut = 0;
+            }
+            if (nextBatch == null && !finished) nextBatch = fillBatch();
+            return nextBatch != null;
+        }
+
+        @Override
+        public List<Employee> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            List<Employee> batch = nextBatch;
+            nextBatch = null;
+            handedOut = batch.size();
+            return batch;
+        }
+
+        private List<Employee> fillBatch() {
+            List<Employee> batch = new ArrayList<>(batchSize);
+            while (batch.size() < batchSize) {
+                if (limit > 0 && accepted >= limit) {
+                    finished = true;
+                    sink.stop();
+                    break;
+                }
+                if (!current.hasNext()) {
+                    List<ParsedRecord> chunk = sink.take();
+                    if (chunk == null) {
+                        finished = true;
+                        break;
+                    }
+                    current = chunk.iterator();
+                    continue;
+                }
+                ParsedRecord parsed = current.next();
+                progress.recordParsed();
+                if (parsed.error() != null) {
+                    errors.add(parsed.error());
+                    progress.recordError();
+                    continue;
+                }
+                Employee employee = parsed.employee();
+                if (!seenEmails.add(employee.getEmail().toLowerCase(Locale.ROOT))) {
+                    errors.add(parsed.label() + ": duplicate email '" + employee.getEmail() + "'");
+                    progress.recordError();
+                    continue;
+                }
+                batch.add(employee);
+                accepted++;
+            }
+            return batch.isEmpty() ? null : batch;
         }
-        return new ImportSummary(count, errors);
     }
 
     // walidacja danych pracownika
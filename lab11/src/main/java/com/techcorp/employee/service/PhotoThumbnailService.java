@@ -0,0 +1,255 @@
+package com.techcorp.employee.service;
+
+import com.techcorp.employee.exception.FileNotFoundException;
+import com.techcorp.employee.exception.FileStorageException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Miniatury zdjęć pracowników w stałych rozmiarach, zapisywane obok oryginału ({@code photos/<nazwa>_64px.png}).
+ * Generowane w tle po wgraniu zdjęcia albo przy pierwszym żądaniu brakującej miniatury - żądanie nie czeka
+ * na wynik, równoległe żądania tej samej miniatury dzielą jedno zadanie. Kolejka zadań ograniczona: nadmiarowe
+ * zlecenia są odrzucane i ponawiane przy kolejnym żądaniu. Duże zdjęcia dekodowane z podpróbkowaniem, więc
+ * pamięć zależy od rozmiaru miniatury, nie oryginału.
+ */
+@Service
+public class PhotoThumbnailService {
+    private static final Logger logger = LoggerFactory.getLogger(PhotoThumbnailService.class);
+    private static final int[] SIZES = {64, 256};
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final FileStorageService fileStorageService;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    public PhotoThumbnailService(FileStorageService fileStorageService,
+                                 @Value("${app.photos.thumbnail-threads:1}") int thumbnailThreads,
+                                 @Value("${app.photos.thumbnail-queue-capacity:64}") int queueCapacity) {
+        this.fileStorageService = Objects.requireNonNull(fileStorageService, "fileStorageService must not be null");
+        int threads = Math.max(1, thumbnailThreads);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "photo-thumbnail-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public static boolean isSupportedSize(int size) {
+        for (int supported : SIZES) {
+            if (supported == size) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ścieżka miniatury obok oryginału: {@code photos/jan@x.com.png} -> {@code photos/jan@x.com_64px.png}.
+     */
+    public static String thumbnailPath(String photoPath, int size) {
+        int slash = photoPath.lastIndexOf('/');
+        int dot = photoPath.lastIndexOf('.');
+        if (dot <= slash) dot = photoPath.length();
+        return photoPath.substring(0, dot) + "_" + size + "px" + photoPath.substring(dot);
+    }
+
+    /**
+     * Po zapisaniu nowego zdjęcia: stare miniatury usuwane od razu (nie mogą być serwowane dla nowej treści),
+     * nowe generowane w tle.
+     */
+    public void photoChanged(String photoPath) {
+        deleteThumbnails(photoPath);
+        for (int size : SIZES) {
+            schedule(photoPath, size);
+        }
+    }
+
+    /**
+     * Zdjęcie zastąpione plikiem o innej nazwie (np. .png -> .jpg) - usuwa oryginał i jego miniatury.
+     */
+    public void photoRemoved(String photoPath) {
+        deleteThumbnails(photoPath);
+        deleteQuietly(photoPath);
+    }
+
+    /**
+     * Ścieżka gotowej miniatury zdjęcia. Brakująca jest zlecana do wygenerowania w tle, a wywołujący
+     * od razu dostaje pusty wynik (i zwykle wysyła oryginał).
+     */
+    public Optional<String> thumbnailIfReady(String photoPath, int size) {
+        if (!isSupportedSize(size)) throw new IllegalArgumentException("Unsupported thumbnail size: " + size);
+        String path = thumbnailPath(photoPath, size);
+        if (Files.isRegularFile(fileStorageService.getFilePath(path))) return Optional.of(path);
+        schedule(photoPath, size);
+        return Optional.empty();
+    }
+
+    private void schedule(String photoPath, int size) {
+        generateAsync(photoPath, size).exceptionally(failure -> {
+            if (failure instanceof RejectedExecutionException) {
+                logger.debug("Thumbnail queue full, {}px thumbnail of {} postponed", size, photoPath);
+            } else {
+                logger.warn("Could not generate {}px thumbnail of {}: {}", size, photoPath, failure.getMessage());
+            }
+            return null;
+        });
+    }
+
+    CompletableFuture<String> generateAsync(String photoPath, int size) {
+        String path = thumbnailPath(photoPath, size);
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(path, created);
+        if (existing != null) return existing;
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(photoPath, size, path);
+                    created.complete(path);
+                } catch (Throwable failure) {
+                    created.completeExceptionally(failure);
+                } finally {
+                    inFlight.remove(path, created);
+                }
+            });
+        } catch (RejectedExecutionException rejected) {
+            inFlight.remove(path, created);
+            created.completeExceptionally(rejected);
+        }
+        return created;
+    }
+
+    private void generate(String photoPath, int size, String path) throws IOException {
+        String format = formatOf(photoPath);
+        // oryginał podmieniony w trakcie generowania - miniatura z poprzedniej treści nie może zostać
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            String versionBefore = fileStorageService.describe(photoPath).etag();
+            byte[] thumbnail = render(fileStorageService.getFilePath(photoPath), size, format);
+            fileStorageService.storeBytes(thumbnail, path);
+            if (versionBefore.equals(fileStorageService.describe(photoPath).etag())) return;
+        }
+        logger.warn("Photo {} kept changing while generating its {}px thumbnail", photoPath, size);
+    }
+
+    private static String formatOf(String photoPath) {
+        int dot = photoPath.lastIndexOf('.');
+        String extension = dot < 0 ? "" : photoPath.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return extension.equals("jpg") || extension.equals("jpeg") ? "jpg" : "png";
+    }
+
+    /**
+     * Skaluje obraz do mieszczącego się w kwadracie {@code size x size} (proporcje zachowane, bez powiększania).
+     */
+    static byte[] render(Path source, int size, String format) throws IOException {
+        BufferedImage image = read(source, size);
+        int width = image.getWidth();
+        int height = image.getHeight();
+        double scale = Math.min(1.0, (double) size / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+        boolean alpha = !format.equals("jpg");
+
+        // zmniejszanie co najwyżej o połowę na krok - interpolacja dwuliniowa nie gubi wtedy detali
+        BufferedImage current = image;
+        int currentWidth = width;
+        int currentHeight = height;
+        do {
+            currentWidth = Math.max(targetWidth, currentWidth / 2);
+            currentHeight = Math.max(targetHeight, currentHeight / 2);
+            current = scale(current, currentWidth, currentHeight, alpha);
+        } while (currentWidth != targetWidth || currentHeight != targetHeight);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(current, format, out)) throw new IOException("No image writer for format " + format);
+        return out.toByteArray();
+    }
+
+    // dekodowanie co n-tego piksela, gdy oryginał jest wielokrotnie większy od miniatury
+    private static BufferedImage read(Path source, int size) throws IOException {
+        if (!Files.isRegularFile(source)) throw new FileNotFoundException("File not found " + source.getFileName());
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + source.getFileName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int largest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, largest / (size * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height, boolean alpha) {
+        BufferedImage target = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            if (!alpha) {
+                // JPEG bez kanału alfa - przezroczystość na białym tle zamiast czarnego
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void deleteThumbnails(String photoPath) {
+        for (int size : SIZES) {
+            deleteQuietly(thumbnailPath(photoPath, size));
+        }
+    }
+
+    private void deleteQuietly(String path) {
+        try {
+            fileStorageService.deleteFile(path);
+        } catch (FileNotFoundException ignored) {
+            // nie było jeszcze wygenerowanej miniatury
+        } catch (FileStorageException e) {
+            logger.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+}
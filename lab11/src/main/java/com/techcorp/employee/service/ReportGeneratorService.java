@@ -1,26 +1,58 @@
 package com.techcorp.employee.service;
 
+import com.techcorp.employee.model.BulkReportStatus;
 import com.techcorp.employee.model.CompanyStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
 import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 
-import java.awt.*;
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
  
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 @Service
@@ -28,11 +60,41 @@ public class ReportGeneratorService {
     private final EmployeeService employeeService;
     private final Path reportsLocation;
     private static final String DEFAULT_REPORTS_DIR = "reports";
+    // Liberation Sans z polskimi znakami - dołączony do pdfbox, więc dostępny niezależnie od fontów systemowych
+    static final String DEFAULT_FONT = "classpath:org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf";
     private static final Logger logger = LoggerFactory.getLogger(ReportGeneratorService.class);
 
+    // układ strony raportu - stały dla wszystkich raportów
+    private static final float MARGIN_LEFT = 50f;
+    private static final float FONT_SIZE = 12f;
+    private static final float LEADING = 1.2f * FONT_SIZE;
+
+    // plik fontu wczytany raz; sparsowane TrueTypeFont w małej puli (fontbox nie jest bezpieczny wielowątkowo,
+    // font wypożyczany na cały raport) - najwyżej tyle kopii, ile wątków raportów zbiorczych, niezależnie od liczby
+    // wątków obsługujących żądania. PDType0Font.load(doc, ttf, true) osadza podzbiór glifów bez ponownego parsowania
+    private final byte[] fontBytes;
+    private final BlockingQueue<TrueTypeFont> idleFonts;
+    private final AtomicInteger parsedFonts = new AtomicInteger();
+
+    // ograniczona pula do raportów zbiorczych oraz ostatnie zadania (do odczytu postępu)
+    private static final int MAX_TRACKED_JOBS = 20;
+    private final ExecutorService bulkExecutor;
+    private final int bulkThreads;
+    private final Map<String, BulkReportJob> bulkJobs = new LinkedHashMap<>();
+
+    @Autowired
     public ReportGeneratorService(EmployeeService employeeService,
-                                  @Value("${app.reports.directory:reports}") String reportsDir) {
+                                  @Value("${app.reports.directory:reports}") String reportsDir,
+                                  @Value("${app.reports.font:" + DEFAULT_FONT + "}") Resource font,
+                                  @Value("${app.reports.bulk-threads:0}") int bulkThreads) {
         this.employeeService = employeeService;
+        this.bulkThreads = bulkThreads > 0 ? bulkThreads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.bulkExecutor = Executors.newFixedThreadPool(this.bulkThreads, runnable -> {
+            Thread thread = new Thread(runnable, "report-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
         String dir = (reportsDir == null || reportsDir.isBlank()) ? DEFAULT_REPORTS_DIR : reportsDir;
         this.reportsLocation = Paths.get(dir).toAbsolutePath().normalize();
         try {
@@ -41,17 +103,157 @@ public class ReportGeneratorService {
         } catch (Exception e) {
             throw new RuntimeException("Could not create reports directory: " + this.reportsLocation, e);
         }
+        try (InputStream in = font.getInputStream()) {
+            this.fontBytes = in.readAllBytes();
+            logger.info("Report font loaded from {} ({} bytes)", font.getDescription(), fontBytes.length);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not load report font: " + font.getDescription(), e);
+        }
+        this.idleFonts = new ArrayBlockingQueue<>(this.bulkThreads);
+    }
+
+    public ReportGeneratorService(EmployeeService employeeService, String reportsDir) {
+        this(employeeService, reportsDir, new DefaultResourceLoader().getResource(DEFAULT_FONT), 0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        bulkExecutor.shutdownNow();
+    }
+
+    // wolny font z puli; gdy wszystkie wypożyczone - nowa kopia do limitu puli, powyżej czeka na zwrot
+    private TrueTypeFont borrowFont() throws IOException {
+        TrueTypeFont font = idleFonts.poll();
+        if (font != null) return font;
+        if (parsedFonts.incrementAndGet() <= bulkThreads) {
+            try {
+                return new TTFParser().parse(new RandomAccessReadBuffer(fontBytes));
+            } catch (IOException | RuntimeException e) {
+                parsedFonts.decrementAndGet();
+                throw e;
+            }
+        }
+        parsedFonts.decrementAndGet();
+        try {
+            return idleFonts.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for report font");
+        }
+    }
+
+    private void returnFont(TrueTypeFont font) {
+        idleFonts.offer(font);
+    }
+
+    // liczba sparsowanych kopii fontu (do testów)
+    int parsedFontCount() {
+        return parsedFonts.get();
     }
 
     /**
      * Generate a simple PDF report for company statistics and return PDF bytes.
      */
+    @Timed(value = "employee.report.pdf", description = "Company statistics PDF rendering")
     public byte[] generateCompanyStatisticsPdf(String companyName) throws IOException {
         logger.debug("generateCompanyStatisticsPdf called for company='{}'", companyName);
-        Map<String, CompanyStatistics> stats = employeeService.getCompanyStatistics();
-        CompanyStatistics cs = stats.get(companyName == null ? "" : companyName.trim());
+        CompanyStatistics cs = employeeService.getCompanyStatistics(companyName).orElse(null);
+        byte[] pdfBytes = renderPdf(statisticsLines(companyName, cs));
+
+        // save generated report to reports directory
+        try {
+            saveReport(companyName, pdfBytes);
+        } catch (Exception e) {
+            logger.warn("Failed to save report to reports directory: {}", e.toString());
+        }
+
+        return pdfBytes;
+    }
 
-        // Prepare text lines
+    /**
+     * Raport firmy jako plik w katalogu raportów - do wysłania prosto z dysku (zakresy, ETag).
+     * Plik nadpisywany tylko przy zmianie treści, więc przy niezmienionych statystykach
+     * ETag i Last-Modified zostają te same i przeglądarka dostaje 304.
+     */
+    @Timed(value = "employee.report.pdf", description = "Company statistics PDF rendering")
+    public Path generateCompanyStatisticsReport(String companyName) throws IOException {
+        CompanyStatistics cs = employeeService.getCompanyStatistics(companyName).orElse(null);
+        byte[] pdfBytes = renderPdf(statisticsLines(companyName, cs));
+        return saveReport(companyName, pdfBytes);
+    }
+
+    /**
+     * Uruchamia w tle generowanie raportów wszystkich firm do katalogu raportów.
+     * Statystyki liczone raz (jedno zapytanie agregujące), PDF-y renderowane na ograniczonej puli.
+     */
+    public BulkReportStatus startBulkReport() {
+        Map<String, CompanyStatistics> statistics = employeeService.getCompanyStatistics();
+        BulkReportJob job = new BulkReportJob(UUID.randomUUID().toString(), statistics.size());
+        synchronized (bulkJobs) {
+            bulkJobs.put(job.id, job);
+            bulkJobs.entrySet().removeIf(entry -> bulkJobs.size() > MAX_TRACKED_JOBS && entry.getValue().isFinished());
+        }
+        logger.info("Bulk report job {} started for {} companies", job.id, statistics.size());
+        statistics.forEach((company, cs) -> bulkExecutor.execute(() -> {
+            try {
+                saveReport(company, renderPdf(statisticsLines(company, cs)));
+                job.completed.incrementAndGet();
+            } catch (Exception e) {
+                job.failed.incrementAndGet();
+                logger.warn("Bulk report job {}: report for '{}' failed: {}", job.id, company, e.toString());
+            }
+            if (job.isFinished()) logger.info("Bulk report job finished: {}", job.status());
+        }));
+        return job.status();
+    }
+
+    public Optional<BulkReportStatus> getBulkReportStatus(String jobId) {
+        synchronized (bulkJobs) {
+            return Optional.ofNullable(bulkJobs.get(jobId)).map(BulkReportJob::status);
+        }
+    }
+
+    /**
+     * Zapisuje raporty wszystkich firm jako jeden strumień ZIP. Renderowanie równoległe,
+     * ale w locie jest najwyżej 2 x liczba wątków raportów - pamięć nie rośnie z liczbą firm.
+     */
+    public int writeAllReportsZip(OutputStream out) throws IOException {
+        Map<String, CompanyStatistics> statistics = employeeService.getCompanyStatistics();
+        int window = bulkThreads * 2;
+        Deque<Map.Entry<String, Future<byte[]>>> inFlight = new ArrayDeque<>(window);
+        int written = 0;
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            for (Map.Entry<String, CompanyStatistics> entry : statistics.entrySet()) {
+                if (inFlight.size() == window) written += writeZipEntry(zip, inFlight.poll());
+                inFlight.add(Map.entry(entry.getKey(),
+                        bulkExecutor.submit(() -> renderPdf(statisticsLines(entry.getKey(), entry.getValue())))));
+            }
+            while (!inFlight.isEmpty()) written += writeZipEntry(zip, inFlight.poll());
+            zip.finish();
+        } finally {
+            inFlight.forEach(pending -> pending.getValue().cancel(true));
+        }
+        return written;
+    }
+
+    private static int writeZipEntry(ZipOutputStream zip, Map.Entry<String, Future<byte[]>> pending) throws IOException {
+        byte[] pdf;
+        try {
+            pdf = pending.getValue().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Report generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Report generation failed for company: " + pending.getKey(), e.getCause());
+        }
+        zip.putNextEntry(new ZipEntry(reportFileName(pending.getKey())));
+        zip.write(pdf);
+        zip.closeEntry();
+        return 1;
+    }
+
+    private static List<String> statisticsLines(String companyName, CompanyStatistics cs) {
         List<String> lines = new java.util.ArrayList<>();
         lines.add("Company statistics: " + companyName);
         if (cs == null) {
@@ -61,139 +263,116 @@ public class ReportGeneratorService {
             lines.add(String.format(java.util.Locale.ROOT, "Average salary: %.2f", cs.getAverageSalary()));
             lines.add("Highest earner: " + cs.getHighestPaidFullName());
         }
+        return lines;
+    }
 
-        // Candidate system font paths
-        String[] candidateFontPaths = new String[] {
-            // Linux paths
-            "/usr/share/fonts/truetype/dejavu/DejaVuSans.ttf",
-            "/usr/share/fonts/truetype/liberation/LiberationSans-Regular.ttf",
-            "/usr/share/fonts/truetype/freefont/FreeSans.ttf",
-            "/usr/share/fonts/truetype/msttcorefonts/Arial.ttf",
-            "/usr/share/fonts/truetype/ubuntu/Ubuntu-R.ttf",
-            // windows paths
-            "C:\\Windows\\Fonts\\arial.ttf"
-        };
+    // zapis przez plik tymczasowy - równoległe pobranie (także zakresami) nigdy nie widzi połowy pliku;
+    // niezmieniona treść nie jest zapisywana, więc ETag i Last-Modified raportu zostają te same
+    private Path saveReport(String companyName, byte[] pdfBytes) throws IOException {
+        Path out = this.reportsLocation.resolve(reportFileName(companyName));
+        if (Files.exists(out) && Files.size(out) == pdfBytes.length && Arrays.equals(Files.readAllBytes(out), pdfBytes)) {
+            return out;
+        }
+        Path temp = Files.createTempFile(this.reportsLocation, "report-", ".tmp");
+        try {
+            Files.write(temp, pdfBytes);
+            Files.move(temp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        logger.debug("Saved report to {}", out);
+        return out;
+    }
+
+    // nazwa jednoznaczna: znaki spoza [A-Za-z0-9.-] (także '_') zapisane jako _<hex>_, więc "A&B" i "A_B"
+    // to różne pliki; raport bez nazwy firmy to statistics.pdf, którego żadna nazwa firmy nie da
+    static String reportFileName(String companyName) {
+        if (companyName == null || companyName.isBlank()) return "statistics.pdf";
+        StringBuilder safeName = new StringBuilder("statistics_");
+        companyName.codePoints().forEach(c -> {
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '.' || c == '-') {
+                safeName.append((char) c);
+            } else {
+                safeName.append('_').append(Integer.toHexString(c)).append('_');
+            }
+        });
+        return safeName.append(".pdf").toString();
+    }
 
+    // pierwsza linia jako nagłówek, pozostałe zwykłym rozmiarem
+    private byte[] renderPdf(List<String> lines) throws IOException {
+        // font wypożyczony do końca zapisu - podzbiór glifów osadzany dopiero w doc.save
+        TrueTypeFont font = borrowFont();
         try (PDDocument doc = new PDDocument()) {
+            // /ID z treści zamiast z bieżącego czasu - te same dane dają identyczny plik (stabilny ETag raportu)
+            COSString documentId = new COSString(md5(String.join("\n", lines)));
+            COSArray ids = new COSArray();
+            ids.add(documentId);
+            ids.add(documentId);
+            doc.getDocument().getTrailer().setItem(COSName.ID, ids);
             PDPage page = new PDPage(PDRectangle.LETTER);
             doc.addPage(page);
+            PDFont pdfFont = PDType0Font.load(doc, font, true);
 
-            // Load a TTF font if available and embed it to support Polish characters
-            PDFont pdfFont = null;
-            for (String fp : candidateFontPaths) {
-                java.nio.file.Path p = java.nio.file.Path.of(fp);
-                logger.debug("Checking font path: {} (exists: {}, readable: {})", fp, java.nio.file.Files.exists(p), java.nio.file.Files.isReadable(p));
-                if (java.nio.file.Files.exists(p) && java.nio.file.Files.isReadable(p)) {
-                    try (java.io.InputStream in = java.nio.file.Files.newInputStream(p)) {
-                        pdfFont = PDType0Font.load(doc, in);
-                        logger.info("Loaded font from {}", fp);
-                        break;
-                    } catch (Exception e) {
-                        logger.warn("Failed to load font from {}: {}", fp, e.toString());
-                    }
-                } else {
-                    logger.debug("Font path not usable: {}", fp);
-                }
-            }
-            logger.debug("Font loading completed.");
-            if (pdfFont == null) {
-                logger.info("No suitable TTF font loaded from candidates; pdfFont is null — will fall back to image embedding.");
-            }
+            try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
+                content.beginText();
+                content.setFont(pdfFont, FONT_SIZE + 2);
+                content.newLineAtOffset(MARGIN_LEFT, page.getMediaBox().getHeight() - 50f);
+                // Header
+                content.showText(lines.get(0));
+                content.newLineAtOffset(0, -LEADING - 4);
 
-            float marginLeft = 50f;
-            float startY = page.getMediaBox().getHeight() - 50f;
-            float fontSize = 12f;
-            float leading = 1.2f * fontSize;
-
-            if (pdfFont != null) {
-                try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
-                    content.beginText();
-                    content.setFont(pdfFont, fontSize + 2);
-                    content.newLineAtOffset(marginLeft, startY);
-                    // Header
-                    content.showText(lines.get(0));
-                    content.newLineAtOffset(0, -leading - 4);
-
-                    content.setFont(pdfFont, fontSize);
-                    for (int i = 1; i < lines.size(); i++) {
-                        content.showText(lines.get(i));
-                        if (i < lines.size() - 1) content.newLineAtOffset(0, -leading);
-                    }
-                    content.endText();
+                content.setFont(pdfFont, FONT_SIZE);
+                for (int i = 1; i < lines.size(); i++) {
+                    content.showText(lines.get(i));
+                    if (i < lines.size() - 1) content.newLineAtOffset(0, -LEADING);
                 }
+                content.endText();
+            }
 
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                doc.save(baos);
-                byte[] pdfBytes = baos.toByteArray();
-
-                // save generated report to reports directory
-                try {
-                    String safeName = (companyName == null || companyName.isBlank()) ? "all" : companyName.replaceAll("[^A-Za-z0-9._-]", "_");
-                    Path out = this.reportsLocation.resolve("statistics_" + safeName + ".pdf");
-                    Files.write(out, pdfBytes);
-                    logger.info("Saved report to {}", out);
-                } catch (Exception e) {
-                    logger.warn("Failed to save report to reports directory: {}", e.toString());
-                }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream(8 * 1024);
+            doc.save(baos);
+            return baos.toByteArray();
+        } finally {
+            returnFont(font);
+        }
+    }
 
-                return pdfBytes;
-            } else {
+    private static byte[] md5(String value) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
 
-                // IMAGE EMBEDDING FALLBACK
-                int width = 500;
-                int lineHeight = 18;
-                int padding = 20;
-                int height = padding * 2 + lines.size() * lineHeight;
-
-                BufferedImage image = new BufferedImage(width, Math.max(height, 100), BufferedImage.TYPE_INT_RGB);
-                Graphics2D g = image.createGraphics();
-                try {
-                    g.setColor(Color.WHITE);
-                    g.fillRect(0, 0, width, Math.max(height, 100));
-                    g.setColor(Color.BLACK);
-                    g.setFont(new Font("SansSerif", Font.BOLD, 14));
-                    int y = padding + 14;
-                    for (String line : lines) {
-                        g.drawString(line, padding, y);
-                        y += lineHeight;
-                        if (g.getFont().getStyle() != Font.PLAIN) {
-                            g.setFont(new Font("SansSerif", Font.PLAIN, 12));
-                        }
-                    }
-                } finally {
-                    g.dispose();
-                }
+    // postęp zadania zbiorczego - liczniki aktualizowane przez wątki puli
+    private static final class BulkReportJob {
+        private final String id;
+        private final int total;
+        private final long startedNanos = System.nanoTime();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private volatile long finishedNanos;
 
-                ByteArrayOutputStream imgOut = new ByteArrayOutputStream();
-                javax.imageio.ImageIO.write(image, "PNG", imgOut);
-                byte[] imgBytes = imgOut.toByteArray();
-
-                org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject pdImage = org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject.createFromByteArray(doc, imgBytes, "stats");
-                try (PDPageContentStream content = new PDPageContentStream(doc, page)) {
-                    float imgWidth = pdImage.getWidth();
-                    float imgHeight = pdImage.getHeight();
-                    float startX = 50;
-                    float startYImg = page.getMediaBox().getHeight() - imgHeight - 50;
-                    content.drawImage(pdImage, startX, startYImg, imgWidth, imgHeight);
-                }
+        BulkReportJob(String id, int total) {
+            this.id = id;
+            this.total = total;
+        }
 
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                doc.save(baos);
-                byte[] pdfBytes = baos.toByteArray();
-
-                // save generated report to reports directory (fallback image-based)
-                try {
-                    String safeName = (companyName == null || companyName.isBlank()) ? "all" : companyName.replaceAll("[^A-Za-z0-9._-]", "_");
-                    Path out = this.reportsLocation.resolve("statistics_" + safeName + ".pdf");
-                    Files.write(out, pdfBytes);
-                    logger.info("Saved report to {}", out);
-                } catch (Exception e) {
-                    logger.warn("Failed to save report to reports directory: {}", e.toString());
-                }
+        boolean isFinished() {
+            boolean finished = completed.get() + failed.get() >= total;
+            if (finished && finishedNanos == 0) finishedNanos = System.nanoTime();
+            return finished;
+        }
 
-                return pdfBytes;
-            }
+        BulkReportStatus status() {
+            boolean finished = isFinished();
+            long elapsedNanos = (finished ? finishedNanos : System.nanoTime()) - startedNanos;
+            int done = completed.get();
+            double perSecond = elapsedNanos > 0 ? done / (elapsedNanos / 1_000_000_000.0) : 0.0;
+            return new BulkReportStatus(id, finished ? "FINISHED" : "RUNNING", total, done, failed.get(),
+                    elapsedNanos / 1_000_000, perSecond);
         }
     }
 }
-
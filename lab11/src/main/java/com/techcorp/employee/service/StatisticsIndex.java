@@ -0,0 +1,355 @@
+package com.techcorp.employee.service;
+
+import com.techcorp.employee.model.CompanyStatistics;
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.EmploymentStatus;
+import com.techcorp.employee.model.Position;
+import com.techcorp.employee.repository.EmployeeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indeks statystyk pracowników utrzymywany przyrostowo przez zapisy w EmployeeService.
+ * Liczniki per firma / stanowisko / status oraz sumy i maksima wynagrodzeń - odczyty bez skanowania tabeli.
+ */
+@Component
+public class StatisticsIndex {
+    private static final Logger logger = LoggerFactory.getLogger(StatisticsIndex.class);
+    private static final String UNKNOWN_COMPANY = "unknown";
+    private static final double TOLERANCE = 0.005;
+    // po tylu nieudanych odświeżeniach poza blokadą (współbieżne zapisy tej samej firmy) - odświeżenie pod blokadą
+    private static final int MAX_UNLOCKED_REFRESHES = 3;
+
+    private final EmployeeRepository repository;
+
+    private final Map<String, CompanyBucket> byCompany = new HashMap<>();
+    private final long[] byPosition = new long[Position.values().length];
+    private final long[] byStatus = new long[EmploymentStatus.values().length];
+    private long totalCount;
+    private double totalSalary;
+    // gotowe, niezmienne statystyki firm: odczyt bez blokady i bez alokacji, zapis do firmy usuwa jej wpis
+    private final Map<String, Optional<CompanyStatistics>> snapshots = new ConcurrentHashMap<>();
+    // niezmienne rozkłady stanowisk / statusów - liczone przy pierwszym odczycie po zmianie liczników (null = nieaktualny)
+    private volatile Map<Position, Long> positionSnapshot;
+    private volatile Map<EmploymentStatus, Long> statusSnapshot;
+
+    // running counters for a single company; max/top earner recomputed lazily after the top earner leaves
+    private static final class CompanyBucket {
+        long count;
+        double salarySum;
+        double maxSalary;
+        String topEarner = "";
+        boolean maxStale;
+        // zmieniana przy każdym zapisie - maksimum z bazy pobrane poza blokadą stosowane tylko bez zmian w międzyczasie
+        long version;
+    }
+
+    /**
+     * Niezmienna kopia pól istotnych dla indeksu - encja może zostać zmodyfikowana przez Hibernate przy merge.
+     */
+    public record Snapshot(String companyName, Position position, EmploymentStatus status, double salary, String fullName) {
+        public static Snapshot of(Employee employee) {
+            return new Snapshot(employee.getCompanyName(), employee.getPosition(), employee.getStatus(), employee.getSalary(), employee.getFullName());
+        }
+    }
+
+    public StatisticsIndex(EmployeeRepository repository) {
+        this.repository = Objects.requireNonNull(repository, "repository must not be null");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // --- write side ---
+
+    public void add(Employee employee) {
+        if (employee == null) return;
+        add(Snapshot.of(employee));
+    }
+
+    public void remove(Employee employee) {
+        if (employee == null) return;
+        remove(Snapshot.of(employee));
+    }
+
+    public synchronized void add(Snapshot row) {
+        String key = companyKey(row.companyName());
+        CompanyBucket bucket = byCompany.computeIfAbsent(key, k -> new CompanyBucket());
+        snapshots.remove(key);
+        bucket.version++;
+        bucket.count++;
+        bucket.salarySum += row.salary();
+        // while stale, maxSalary is still an upper bound of the remaining salaries
+        if (bucket.count == 1 || row.salary() >= bucket.maxSalary) {
+            bucket.maxSalary = row.salary();
+            bucket.topEarner = row.fullName() == null ? "" : row.fullName();
+            bucket.maxStale = false;
+        }
+        if (row.position() != null) byPosition[row.position().ordinal()]++;
+        if (row.status() != null) byStatus[row.status().ordinal()]++;
+        invalidateDistributions();
+        totalCount++;
+        totalSalary += row.salary();
+    }
+
+    public synchronized void remove(Snapshot row) {
+        String key = companyKey(row.companyName());
+        CompanyBucket bucket = byCompany.get(key);
+        snapshots.remove(key);
+        if (bucket != null) {
+            bucket.version++;
+            bucket.count--;
+            bucket.salarySum -= row.salary();
+            if (bucket.count <= 0) {
+                byCompany.remove(key);
+            } else if (row.salary() >= bucket.maxSalary) {
+                bucket.maxStale = true;
+            }
+        }
+        if (row.position() != null) byPosition[row.position().ordinal()]--;
+        if (row.status() != null) byStatus[row.status().ordinal()]--;
+        invalidateDistributions();
+        totalCount--;
+        totalSalary -= row.salary();
+    }
+
+    public synchronized void update(Snapshot before, Employee after) {
+        remove(before);
+        add(after);
+    }
+
+    public synchronized void statusChanged(EmploymentStatus from, EmploymentStatus to) {
+        if (from == to) return;
+        if (from != null) byStatus[from.ordinal()]--;
+        if (to != null) byStatus[to.ordinal()]++;
+        statusSnapshot = null;
+    }
+
+    public synchronized void clear() {
+        byCompany.clear();
+        snapshots.clear();
+        Arrays.fill(byPosition, 0L);
+        Arrays.fill(byStatus, 0L);
+        invalidateDistributions();
+        totalCount = 0;
+        totalSalary = 0.0;
+    }
+
+    public synchronized void replaceAll(List<Employee> employees) {
+        clear();
+        employees.forEach(this::add);
+    }
+
+    /**
+     * Odbudowuje indeks zapytaniami agregującymi (bez ładowania encji).
+     */
+    public synchronized void rebuild() {
+        clear();
+        for (CompanyStatistics row : repository.aggregateCompanyStatistics()) {
+            CompanyBucket bucket = byCompany.computeIfAbsent(companyKey(row.getCompanyName()), k -> new CompanyBucket());
+            double sum = row.getAverageSalary() * row.getEmployeeCount();
+            if (bucket.count == 0 || row.getHighestSalary() > bucket.maxSalary) {
+                bucket.maxSalary = row.getHighestSalary();
+                bucket.topEarner = row.getHighestPaidFullName();
+            }
+            bucket.count += row.getEmployeeCount();
+            bucket.salarySum += sum;
+            totalCount += row.getEmployeeCount();
+            totalSalary += sum;
+        }
+        for (Object[] row : repository.countGroupedByPosition()) {
+            if (row[0] instanceof Position position) byPosition[position.ordinal()] = ((Number) row[1]).longValue();
+        }
+        for (Object[] row : repository.countGroupedByStatus()) {
+            if (row[0] instanceof EmploymentStatus status) byStatus[status.ordinal()] = ((Number) row[1]).longValue();
+        }
+        invalidateDistributions();
+        logger.info("Statistics index rebuilt: {} employees in {} companies", totalCount, byCompany.size());
+    }
+
+    // --- read side ---
+
+    public synchronized long count() { return totalCount; }
+
+    public synchronized double averageSalary() {
+        return totalCount == 0 ? 0.0 : totalSalary / totalCount;
+    }
+
+    public synchronized long count(String companyName) {
+        CompanyBucket bucket = byCompany.get(companyKey(companyName));
+        return bucket == null ? 0 : bucket.count;
+    }
+
+    public synchronized double averageSalary(String companyName) {
+        CompanyBucket bucket = byCompany.get(companyKey(companyName));
+        return bucket == null || bucket.count == 0 ? 0.0 : bucket.salarySum / bucket.count;
+    }
+
+    public synchronized long count(Position position) {
+        return position == null ? 0 : byPosition[position.ordinal()];
+    }
+
+    public synchronized long count(EmploymentStatus status) {
+        return status == null ? 0 : byStatus[status.ordinal()];
+    }
+
+    /**
+     * Statystyki firmy. Zwykle gotowa migawka z mapy (bez blokady i alokacji); po zmianie w firmie migawka
+     * liczona raz od nowa. Gdy odszedł najlepiej zarabiający, nowe maksimum pobierane z bazy poza blokadą indeksu.
+     */
+    public Optional<CompanyStatistics> companyStatistics(String companyName) {
+        String key = companyKey(companyName);
+        Optional<CompanyStatistics> cached = snapshots.get(key);
+        if (cached != null) return cached;
+        for (int attempt = 0; ; attempt++) {
+            CompanyBucket bucket;
+            long version;
+            synchronized (this) {
+                bucket = byCompany.get(key);
+                if (bucket == null) return Optional.empty();
+                if (!bucket.maxStale) return publishSnapshot(key, bucket);
+                if (attempt >= MAX_UNLOCKED_REFRESHES) {
+                    applyMax(bucket, queryMax(key));
+                    return publishSnapshot(key, bucket);
+                }
+                version = bucket.version;
+            }
+            Optional<CompanyStatistics> fresh = queryMax(key);
+            synchronized (this) {
+                if (byCompany.get(key) == bucket && bucket.version == version) {
+                    applyMax(bucket, fresh);
+                    return publishSnapshot(key, bucket);
+                }
+            }
+        }
+    }
+
+    // wywoływane pod blokadą
+    private Optional<CompanyStatistics> publishSnapshot(String key, CompanyBucket bucket) {
+        Optional<CompanyStatistics> snapshot = Optional.of(new CompanyStatistics(key, bucket.count,
+                bucket.salarySum / bucket.count, bucket.maxSalary, bucket.topEarner));
+        snapshots.put(key, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Niezmienny rozkład stanowisk - ta sama mapa dla kolejnych odczytów, dopóki liczniki się nie zmienią.
+     */
+    public Map<Position, Long> positionDistribution() {
+        Map<Position, Long> snapshot = positionSnapshot;
+        if (snapshot != null) return snapshot;
+        synchronized (this) {
+            if (positionSnapshot == null) {
+                Map<Position, Long> result = new EnumMap<>(Position.class);
+                for (Position position : Position.values()) {
+                    if (byPosition[position.ordinal()] > 0) result.put(position, byPosition[position.ordinal()]);
+                }
+                positionSnapshot = Collections.unmodifiableMap(result);
+            }
+            return positionSnapshot;
+        }
+    }
+
+    public Map<EmploymentStatus, Long> statusDistribution() {
+        Map<EmploymentStatus, Long> snapshot = statusSnapshot;
+        if (snapshot != null) return snapshot;
+        synchronized (this) {
+            if (statusSnapshot == null) {
+                Map<EmploymentStatus, Long> result = new EnumMap<>(EmploymentStatus.class);
+                for (EmploymentStatus status : EmploymentStatus.values()) {
+                    if (byStatus[status.ordinal()] > 0) result.put(status, byStatus[status.ordinal()]);
+                }
+                statusSnapshot = Collections.unmodifiableMap(result);
+            }
+            return statusSnapshot;
+        }
+    }
+
+    // wywoływane pod blokadą
+    private void invalidateDistributions() {
+        positionSnapshot = null;
+        statusSnapshot = null;
+    }
+
+    /**
+     * Porównuje indeks z pełnym skanem tabeli. Zwraca listę rozbieżności (pusta = indeks spójny); niczego nie
+     * zmienia - naprawa to jawne {@link #rebuild()}. Nieaktualne maksimum firmy (odświeżane przy odczycie) pomijane.
+     */
+    public synchronized List<String> verify() {
+        List<String> mismatches = new ArrayList<>();
+        List<Employee> all = repository.findAll();
+
+        if (all.size() != totalCount) mismatches.add("total count: index=" + totalCount + ", db=" + all.size());
+        double dbTotal = all.stream().mapToDouble(Employee::getSalary).sum();
+        if (Math.abs(dbTotal - totalSalary) > TOLERANCE) mismatches.add("total salary: index=" + totalSalary + ", db=" + dbTotal);
+
+        long[] positions = new long[byPosition.length];
+        long[] statuses = new long[byStatus.length];
+        Map<String, CompanyBucket> companies = new HashMap<>();
+        for (Employee e : all) {
+            if (e.getPosition() != null) positions[e.getPosition().ordinal()]++;
+            if (e.getStatus() != null) statuses[e.getStatus().ordinal()]++;
+            CompanyBucket bucket = companies.computeIfAbsent(companyKey(e.getCompanyName()), k -> new CompanyBucket());
+            bucket.count++;
+            bucket.salarySum += e.getSalary();
+            bucket.maxSalary = bucket.count == 1 ? e.getSalary() : Math.max(bucket.maxSalary, e.getSalary());
+        }
+        for (Position position : Position.values()) {
+            if (positions[position.ordinal()] != byPosition[position.ordinal()]) {
+                mismatches.add("position " + position + ": index=" + byPosition[position.ordinal()] + ", db=" + positions[position.ordinal()]);
+            }
+        }
+        for (EmploymentStatus status : EmploymentStatus.values()) {
+            if (statuses[status.ordinal()] != byStatus[status.ordinal()]) {
+                mismatches.add("status " + status + ": index=" + byStatus[status.ordinal()] + ", db=" + statuses[status.ordinal()]);
+            }
+        }
+        if (!companies.keySet().equals(byCompany.keySet())) {
+            mismatches.add("companies: index=" + byCompany.keySet() + ", db=" + companies.keySet());
+        }
+        companies.forEach((company, expected) -> {
+            CompanyBucket actual = byCompany.get(company);
+            if (actual == null) return;
+            if (actual.count != expected.count) mismatches.add("company " + company + " count: index=" + actual.count + ", db=" + expected.count);
+            if (Math.abs(actual.salarySum - expected.salarySum) > TOLERANCE) mismatches.add("company " + company + " salary sum: index=" + actual.salarySum + ", db=" + expected.salarySum);
+            if (!actual.maxStale && Math.abs(actual.maxSalary - expected.maxSalary) > TOLERANCE) mismatches.add("company " + company + " max salary: index=" + actual.maxSalary + ", db=" + expected.maxSalary);
+        });
+        return mismatches;
+    }
+
+    // the removed employee was the top earner - ask the database for the new maximum of this company only
+    private Optional<CompanyStatistics> queryMax(String key) {
+        return UNKNOWN_COMPANY.equals(key)
+                ? repository.aggregateCompanyStatistics().stream()
+                        .filter(cs -> UNKNOWN_COMPANY.equals(companyKey(cs.getCompanyName())))
+                        .max(Comparator.comparingDouble(CompanyStatistics::getHighestSalary))
+                : repository.aggregateCompanyStatistics(key);
+    }
+
+    private static void applyMax(CompanyBucket bucket, Optional<CompanyStatistics> fresh) {
+        bucket.maxSalary = fresh.map(CompanyStatistics::getHighestSalary).orElse(0.0);
+        bucket.topEarner = fresh.map(CompanyStatistics::getHighestPaidFullName).orElse("");
+        bucket.maxStale = false;
+    }
+
+    private static String companyKey(String companyName) {
+        return (companyName == null || companyName.isBlank()) ? UNKNOWN_COMPANY : companyName;
+    }
+}
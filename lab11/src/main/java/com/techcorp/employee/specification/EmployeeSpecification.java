@@ -3,26 +3,52 @@ package com.techcorp.employee.specification;
 import com.techcorp.employee.model.Employee;
 import com.techcorp.employee.model.EmploymentStatus;
 import com.techcorp.employee.model.Position;
+import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 
 public class EmployeeSpecification {
+    private static final char LIKE_ESCAPE = '\\';
+
     public static Specification<Employee> emailContains(String q) {
-        return (root, query, cb) -> (q == null || q.isBlank()) ? cb.conjunction() : cb.like(cb.lower(root.get("email")), "%" + q.toLowerCase() + "%");
+        return (root, query, cb) -> (q == null || q.isBlank()) ? cb.conjunction() : cb.like(root.get("emailNormalized"), "%" + Employee.normalize(q) + "%");
     }
 
     public static Specification<Employee> nameContains(String q) {
         return (root, query, cb) -> {
             if (q == null || q.isBlank()) return cb.conjunction();
-            String pat = "%" + q.toLowerCase() + "%";
+            String pat = "%" + Employee.normalize(q) + "%";
             return cb.or(
-                    cb.like(cb.lower(root.get("firstName")), pat),
-                    cb.like(cb.lower(root.get("lastName")), pat)
+                    cb.like(root.get("firstNameNormalized"), pat),
+                    cb.like(root.get("lastNameNormalized"), pat)
             );
         };
     }
 
+    // prefiks zamiast '%q%': LIKE 'q%' na kolumnie znormalizowanej to zakres w indeksie B-tree
+    // każde słowo zapytania musi być początkiem imienia lub nazwiska ("jan kow" -> Jan Kowalski)
+    public static Specification<Employee> nameStartsWith(String q) {
+        return (root, query, cb) -> {
+            if (q == null || q.isBlank()) return cb.conjunction();
+            String[] terms = Employee.normalize(q).split("\\s+");
+            Predicate[] predicates = new Predicate[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                String pat = prefixPattern(terms[i]);
+                predicates[i] = cb.or(
+                        cb.like(root.get("firstNameNormalized"), pat, LIKE_ESCAPE),
+                        cb.like(root.get("lastNameNormalized"), pat, LIKE_ESCAPE)
+                );
+            }
+            return cb.and(predicates);
+        };
+    }
+
+    public static Specification<Employee> emailStartsWith(String q) {
+        return (root, query, cb) -> (q == null || q.isBlank()) ? cb.conjunction()
+                : cb.like(root.get("emailNormalized"), prefixPattern(Employee.normalize(q)), LIKE_ESCAPE);
+    }
+
     public static Specification<Employee> byCompany(String company) {
-        return (root, query, cb) -> (company == null || company.isBlank()) ? cb.conjunction() : cb.equal(cb.lower(root.get("companyName")), company.toLowerCase());
+        return (root, query, cb) -> (company == null || company.isBlank()) ? cb.conjunction() : cb.equal(root.get("companyNormalized"), Employee.normalize(company));
     }
 
     public static Specification<Employee> byStatus(EmploymentStatus status) {
@@ -33,10 +59,20 @@ public class EmployeeSpecification {
         return (root, query, cb) -> position == null ? cb.conjunction() : cb.equal(root.get("position"), position);
     }
 
+    // keyset: tylko rekordy za ostatnim widzianym id (klucz główny - indeks)
+    public static Specification<Employee> idGreaterThan(Long afterId) {
+        return (root, query, cb) -> afterId == null ? cb.conjunction() : cb.greaterThan(root.get("id"), afterId);
+    }
+
     public static Specification<Employee> byDepartmentId(Long departmentId) {
         return (root, query, cb) -> {
             if (departmentId == null) return cb.conjunction();
             return cb.equal(root.join("department").get("id"), departmentId);
         };
     }
+
+    // znaki % i _ z zapytania traktowane dosłownie
+    private static String prefixPattern(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
 }
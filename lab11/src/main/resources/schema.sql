@@ -9,5 +9,30 @@ CREATE TABLE IF NOT EXISTS employees
     company VARCHAR(100),
     status VARCHAR(20) DEFAULT 'ACTIVE',
     department_id BIGINT,
-    photo_file_name VARCHAR(255)
-);
\ No newline at end of file
+    photo_file_name VARCHAR(255),
+    email_normalized VARCHAR(100) NOT NULL,
+    company_normalized VARCHAR(100),
+    first_name_normalized VARCHAR(50) NOT NULL,
+    last_name_normalized VARCHAR(50) NOT NULL,
+    content_hash BIGINT
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_employees_email_normalized ON employees (email_normalized);
+CREATE INDEX IF NOT EXISTS ix_employees_company_normalized ON employees (company_normalized);
+CREATE INDEX IF NOT EXISTS ix_employees_last_first_normalized ON employees (last_name_normalized, first_name_normalized);
+CREATE INDEX IF NOT EXISTS ix_employees_first_name_normalized ON employees (first_name_normalized);
+CREATE INDEX IF NOT EXISTS ix_employees_department_id ON employees (department_id);
+CREATE INDEX IF NOT EXISTS ix_employees_status ON employees (status);
+CREATE TABLE IF NOT EXISTS employee_documents
+(
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    employee_email VARCHAR(255) NOT NULL,
+    employee_email_normalized VARCHAR(255) NOT NULL,
+    file_name VARCHAR(255),
+    original_file_name VARCHAR(255),
+    upload_date TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    file_path VARCHAR(255) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS ix_employee_documents_email_uploaded ON employee_documents (employee_email_normalized, upload_date);
+CREATE INDEX IF NOT EXISTS ix_employee_documents_upload_date ON employee_documents (upload_date);
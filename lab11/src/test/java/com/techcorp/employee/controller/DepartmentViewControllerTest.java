@@ -1,8 +1,9 @@
 package com.techcorp.employee.controller;
 
+import com.techcorp.employee.dto.DepartmentSummary;
+import com.techcorp.employee.dto.EmployeeListView;
+import com.techcorp.employee.dto.ManagerOption;
 import com.techcorp.employee.model.Department;
-import com.techcorp.employee.model.Employee;
-import com.techcorp.employee.model.Position;
 import com.techcorp.employee.service.DepartmentService;
 import com.techcorp.employee.service.EmployeeService;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,30 +30,25 @@ class DepartmentViewControllerTest {
         deptSvc = Mockito.mock(DepartmentService.class);
         empSvc = Mockito.mock(EmployeeService.class);
         fileStorageService = Mockito.mock(com.techcorp.employee.service.FileStorageService.class);
-        controller = new DepartmentViewController(deptSvc, empSvc, fileStorageService);
+        controller = new DepartmentViewController(deptSvc, empSvc, fileStorageService, new com.techcorp.employee.service.FileDownloadService());
     }
 
     @Test
-    void listShouldReturnDepartmentsAndManagerNames() {
-        Department d = new Department(1L, "R&D", "WAW", 1000.0, "mgr@example.com");
-        when(deptSvc.getAllDepartments()).thenReturn(List.of(d));
-
-        Employee e = new Employee("Mgr One", "mgr@example.com", "Tech", Position.MANAGER, 12000);
-        when(empSvc.getAllEmployees()).thenReturn(List.of(e));
-        when(empSvc.findByEmail("mgr@example.com")).thenReturn(Optional.of(e));
+    void listShouldReturnDepartmentSummariesWithoutPerRowLookups() {
+        DepartmentSummary summary = new DepartmentSummary(1L, "R&D", "WAW", 1000.0, "mgr@example.com", 3, "Mgr One");
+        when(deptSvc.getDepartmentSummaries()).thenReturn(List.of(summary));
 
         var model = new ConcurrentModel();
         String view = controller.list(model);
         assertEquals("departments/list", view);
-        assertTrue(model.containsAttribute("departments"));
-        assertTrue(model.containsAttribute("managerNames"));
+        assertEquals(List.of(summary), model.getAttribute("departments"));
+        verify(empSvc, never()).findByEmail(any());
+        verify(empSvc, never()).getAllEmployees();
     }
 
     @Test
     void showAddFormProvidesManagers() {
-        Employee m1 = new Employee("Boss", "b@x.com", "Co", Position.MANAGER, 12000);
-        Employee dev = new Employee("Dev", "d@x.com", "Co", Position.PROGRAMISTA, 8000);
-        when(empSvc.getAllEmployees()).thenReturn(List.of(m1, dev));
+        when(empSvc.getManagerOptions()).thenReturn(List.of(new ManagerOption("b@x.com", "Boss")));
 
         var model = new ConcurrentModel();
         String view = controller.showAddForm(model);
@@ -91,15 +87,14 @@ class DepartmentViewControllerTest {
         Department d = new Department(2L, "Sales", "PL", 200.0, "mgr@x.com");
         when(deptSvc.findById(2L)).thenReturn(Optional.of(d));
 
-        Employee e1 = new Employee("Alice", "a@x.com", "Co", Position.PROGRAMISTA, 8000);
-        e1.setDepartmentId(2L);
-        when(empSvc.getAllEmployees()).thenReturn(List.of(e1));
+        EmployeeListView row = Mockito.mock(EmployeeListView.class);
+        when(empSvc.findListViewByDepartment(2L)).thenReturn(List.of(row));
         when(empSvc.findByEmail("mgr@x.com")).thenReturn(Optional.empty());
 
         var model = new ConcurrentModel();
         String rv = controller.details(2L, model, new RedirectAttributesModelMap());
         assertEquals("departments/details", rv);
-        assertTrue(model.containsAttribute("employees"));
+        assertEquals(List.of(row), model.getAttribute("employees"));
         assertTrue(model.containsAttribute("managerName"));
     }
 }
@@ -9,6 +9,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import com.techcorp.employee.config.AppConfig;
+import com.techcorp.employee.dto.EmployeeView;
 import com.techcorp.employee.model.Employee;
 import com.techcorp.employee.model.EmploymentStatus;
 import com.techcorp.employee.model.Position;
@@ -41,20 +42,66 @@ class EmployeeControllerTest {
         return new Employee("Jan Kowalski", "jan@example.com", "TechCorp", Position.PROGRAMISTA, 8000.0);
     }
 
+    private EmployeeView view(Long id, String firstName, String lastName, String email, Position position, double salary) {
+        return new EmployeeView(id, firstName, lastName, email, "TechCorp", position, salary, EmploymentStatus.ACTIVE);
+    }
+
     @Test
         @DisplayName("GET all employees returns 200 and paginated JSON")
     void getAllEmployees() throws Exception {
-        Employee e = sampleEmployee();
-        org.springframework.data.domain.Page<com.techcorp.employee.model.Employee> page =
+        EmployeeView e = view(1L, "Jan Maria", "Kowalska-Nowak", "jan@example.com", Position.PROGRAMISTA, 8000.0);
+        org.springframework.data.domain.Page<EmployeeView> page =
             new org.springframework.data.domain.PageImpl<>(java.util.Objects.requireNonNull(java.util.List.of(e)));
-        when(employeeService.findAll(org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any()))
+        when(employeeService.findViews(org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any()))
             .thenReturn(page);
 
         mockMvc.perform(get("/api/employees").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(java.util.Objects.requireNonNull(MediaType.APPLICATION_JSON)))
             .andExpect(jsonPath("$.content[0].email").value("jan@example.com"))
-            .andExpect(jsonPath("$.content[0].firstName").value("Jan"));
+            .andExpect(jsonPath("$.content[0].firstName").value("Jan Maria"))
+            .andExpect(jsonPath("$.content[0].lastName").value("Kowalska-Nowak"));
+    }
+
+    @Test
+    @DisplayName("GET search returns ranked hits from the search index with clamped limit")
+    void searchEmployees() throws Exception {
+        com.techcorp.employee.dto.EmployeeSearchHit hit = new com.techcorp.employee.dto.EmployeeSearchHit(
+                1L, "Jan", "Kowalski", "jan@example.com", "TechCorp", "Badania", 14.0);
+        when(employeeService.search("jan kow", 100))
+            .thenReturn(new com.techcorp.employee.dto.EmployeeSearchResult("jan kow", 1, java.util.List.of(hit)));
+
+        mockMvc.perform(get("/api/employees/search").param("q", "jan kow").param("limit", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.hits[0].email").value("jan@example.com"))
+                .andExpect(jsonPath("$.hits[0].departmentName").value("Badania"));
+    }
+
+    @Test
+    @DisplayName("GET with after cursor returns keyset page and next cursor")
+    void getAllEmployeesKeyset() throws Exception {
+        EmployeeView first = view(10L, "Jan", "Kowalski", "jan@example.com", Position.PROGRAMISTA, 8000.0);
+        EmployeeView second = view(11L, "Anna", "Nowak", "anna@example.com", Position.MANAGER, 12000.0);
+        EmployeeView third = view(12L, "Piotr", "Zielinski", "piotr@example.com", Position.MANAGER, 12000.0);
+        when(employeeService.findViewsAfter(any(), org.mockito.ArgumentMatchers.eq(9L), org.mockito.ArgumentMatchers.eq(3)))
+            .thenReturn(java.util.List.of(first, second, third));
+
+        mockMvc.perform(get("/api/employees").param("after", EmployeeController.encodeCursor(9L)).param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(2))
+                .andExpect(jsonPath("$.content[1].email").value("anna@example.com"))
+                .andExpect(jsonPath("$.nextCursor").value(EmployeeController.encodeCursor(11L)));
+
+        when(employeeService.findViewsAfter(any(), org.mockito.ArgumentMatchers.isNull(), org.mockito.ArgumentMatchers.eq(21)))
+            .thenReturn(java.util.List.of(first));
+        mockMvc.perform(get("/api/employees").param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/employees").param("after", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -83,8 +130,7 @@ class EmployeeControllerTest {
     void postCreateEmployee() throws Exception {
         Employee e = new Employee("Jan Kowalski", "jan@techcorp.com", "TechCorp", Position.PROGRAMISTA, 8000.0);
         // service will accept creation
-        when(employeeService.addEmployee(any(Employee.class))).thenReturn(true);
-        when(employeeService.findByEmail("jan@techcorp.com")).thenReturn(Optional.of(e));
+        when(employeeService.createEmployee(any(Employee.class))).thenReturn(Optional.of(e));
 
         String payload = "{" +
                 "\"firstName\":\"Jan\"," +
@@ -112,7 +158,7 @@ class EmployeeControllerTest {
     @Test
     @DisplayName("POST duplicate returns 409 Conflict")
     void postDuplicate() throws Exception {
-        when(employeeService.addEmployee(any(Employee.class))).thenReturn(false);
+        when(employeeService.createEmployee(any(Employee.class))).thenReturn(Optional.empty());
         String payload = "{" +
                 "\"firstName\":\"Jan\"," +
                 "\"lastName\":\"Kowalski\"," +
@@ -141,10 +187,10 @@ class EmployeeControllerTest {
     @Test
         @DisplayName("Filter employees by company (paginated)")
     void filterByCompany() throws Exception {
-        Employee e1 = new Employee("Jan Kowalski", "jan@example.com", "TechCorp", Position.PROGRAMISTA, 8000.0);
-        org.springframework.data.domain.Page<com.techcorp.employee.model.Employee> page =
+        EmployeeView e1 = view(1L, "Jan", "Kowalski", "jan@example.com", Position.PROGRAMISTA, 8000.0);
+        org.springframework.data.domain.Page<EmployeeView> page =
             new org.springframework.data.domain.PageImpl<>(java.util.Objects.requireNonNull(java.util.List.of(e1)));
-        when(employeeService.findAll(org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any()))
+        when(employeeService.findViews(org.mockito.ArgumentMatchers.any(), org.mockito.ArgumentMatchers.any()))
             .thenReturn(page);
 
         mockMvc.perform(get("/api/employees").param("company", "TechCorp").accept(MediaType.APPLICATION_JSON))
@@ -159,8 +205,7 @@ class EmployeeControllerTest {
         Employee updated = new Employee("Jan Kowalski", "jan@example.com", "TechCorp", Position.PROGRAMISTA, 8000.0);
         updated.setStatus(EmploymentStatus.ON_LEAVE);
 
-        when(employeeService.updateStatus("jan@example.com", EmploymentStatus.ON_LEAVE)).thenReturn(true);
-        when(employeeService.findByEmail("jan@example.com")).thenReturn(Optional.of(updated));
+        when(employeeService.changeStatus("jan@example.com", EmploymentStatus.ON_LEAVE)).thenReturn(Optional.of(updated));
 
         String payload = "{\"status\":\"ON_LEAVE\"}";
 
@@ -1,7 +1,9 @@
 package com.techcorp.employee.controller;
 
 import com.techcorp.employee.dto.EmployeeDTO;
+import com.techcorp.employee.dto.EmployeeView;
 import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.EmploymentStatus;
 import com.techcorp.employee.model.Position;
 import com.techcorp.employee.service.EmployeeService;
 import org.junit.jupiter.api.BeforeEach;
@@ -34,13 +36,15 @@ class EmployeeViewControllerTest {
 
     @Test
     void listEmployeesAddsModelAndReturnsView() {
-        Employee e = new Employee("John Doe", "john@example.com", "ACME", Position.PROGRAMISTA, 8000);
-        when(employeeService.getAllEmployees()).thenReturn(List.of(e));
+        EmployeeView e = new EmployeeView(1L, "John", "Doe", "john@example.com", "ACME", Position.PROGRAMISTA, 8000, EmploymentStatus.ACTIVE);
+        when(employeeService.getAllEmployeeViews()).thenReturn(List.of(e));
 
         var model = new ConcurrentModel();
         String view = controller.listEmployees(model);
         assertEquals("employees/list", view);
-        assertTrue(model.containsAttribute("employees"));
+        var employees = (List<?>) model.getAttribute("employees");
+        assertNotNull(employees);
+        assertEquals("Doe", ((EmployeeDTO) employees.get(0)).getLastName());
     }
 
     @Test
@@ -104,14 +108,20 @@ class EmployeeViewControllerTest {
     }
 
     @Test
-    void searchByCompanyReturnsResults() {
-        Employee e = new Employee("X", "x@x.com", "Acme", Position.PROGRAMISTA, 8000);
-        when(employeeService.getAllEmployees()).thenReturn(List.of(e));
+    void searchUsesPagedSpecificationQuery() {
+        EmployeeView e = new EmployeeView(1L, "Xavier", "Nowak", "x@x.com", "Acme", Position.PROGRAMISTA, 8000, EmploymentStatus.ACTIVE);
+        when(employeeService.findViews(any(), any())).thenReturn(new org.springframework.data.domain.PageImpl<>(List.of(e)));
 
         var model = new ConcurrentModel();
-        String rv = controller.searchByCompany("Acme", model);
+        String rv = controller.search("xav", null, "Acme", "active", "bogus", 0, model);
         assertEquals("employees/search-results", rv);
-        assertTrue(model.containsAttribute("employees"));
-        assertEquals("Acme", model.getAttribute("query"));
+        assertEquals(1, ((List<?>) model.getAttribute("employees")).size());
+        assertEquals("name: xav, company: Acme, status: ACTIVE", model.getAttribute("query"));
+        assertEquals(java.util.Map.of("name", "xav", "company", "Acme", "status", "ACTIVE"), model.getAttribute("criteria"));
+
+        var pageable = org.mockito.ArgumentCaptor.forClass(org.springframework.data.domain.Pageable.class);
+        org.mockito.Mockito.verify(employeeService).findViews(any(), pageable.capture());
+        assertEquals(20, pageable.getValue().getPageSize());
+        org.mockito.Mockito.verify(employeeService, org.mockito.Mockito.never()).getAllEmployees();
     }
 }
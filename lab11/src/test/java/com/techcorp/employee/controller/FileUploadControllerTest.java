@@ -1,13 +1,20 @@
 package com.techcorp.employee.controller;
 
  
-import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.dto.EmployeeExportRow;
+import com.techcorp.employee.model.Position;
 import com.techcorp.employee.model.EmployeeDocument;
+import com.techcorp.employee.model.ImportJobState;
+import com.techcorp.employee.model.ImportJobStatus;
+import com.techcorp.employee.model.ImportMode;
 import com.techcorp.employee.model.ImportSummary;
 import com.techcorp.employee.service.EmployeeDocumentService;
 import com.techcorp.employee.service.EmployeeService;
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.service.FileDownloadService;
 import com.techcorp.employee.service.FileStorageService;
-import com.techcorp.employee.service.ImportService;
+import com.techcorp.employee.service.PhotoThumbnailService;
+import com.techcorp.employee.service.ImportJobService;
 import com.techcorp.employee.service.ReportGeneratorService;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -19,20 +26,24 @@ import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(FileUploadController.class)
@@ -47,7 +58,7 @@ public class FileUploadControllerTest {
 	private FileStorageService fileStorageService;
 
 	@Autowired
-	private ImportService importService;
+	private ImportJobService importJobService;
 
 	@Autowired
 	private EmployeeService employeeService;
@@ -55,6 +66,9 @@ public class FileUploadControllerTest {
 	@Autowired
 	private EmployeeDocumentService employeeDocumentService;
 
+	@Autowired
+	private PhotoThumbnailService photoThumbnailService;
+
 	@Test
 	public void uploadCsv_success() throws Exception {
 	String csv = "fullName,email,company,position,salary\nJohn Doe,john@example.com,Acme,Dev,1000\n";
@@ -64,13 +78,71 @@ public class FileUploadControllerTest {
 	Mockito.when(fileStorageService.storeFileInSubDirectory(any(org.springframework.web.multipart.MultipartFile.class), eq("imports"))).thenReturn("imports/uploaded.csv");
 	Mockito.when(fileStorageService.getFilePath(eq("imports/uploaded.csv"))).thenReturn(Paths.get("src/test/resources/uploads/uploaded.csv"));
 
-	ImportSummary summary = new ImportSummary(1, List.of());
-	Mockito.when(importService.importCsv(any())).thenReturn(summary);
+	ImportJobStatus queued = new ImportJobStatus("job-1", "csv", ImportMode.REPLACE, ImportJobState.QUEUED, 0, 0, 0, List.of(), 0, 0.0, null);
+	Mockito.when(importJobService.submit(eq("csv"), any(), eq(ImportMode.REPLACE))).thenReturn(queued);
 
 	mockMvc.perform(multipart("/api/files/import/csv").file(file))
-		.andExpect(status().isOk())
+		.andExpect(status().isAccepted())
+		.andExpect(header().string("Location", "/api/files/import/jobs/job-1"))
 		.andExpect(content().contentType(Objects.requireNonNull(MediaType.APPLICATION_JSON)))
-		.andExpect(jsonPath("$.importedCount").value(1));
+		.andExpect(jsonPath("$.state").value("QUEUED"));
+	}
+
+	@Test
+	public void uploadCsv_queueFull_returnsServiceUnavailable() throws Exception {
+	MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", "a,b\n".getBytes());
+	Mockito.when(fileStorageService.storeFileInSubDirectory(any(org.springframework.web.multipart.MultipartFile.class), eq("imports"))).thenReturn("imports/queued.csv");
+	Mockito.when(fileStorageService.getFilePath(eq("imports/queued.csv"))).thenReturn(Paths.get("src/test/resources/uploads/queued.csv"));
+	Mockito.when(importJobService.submit(eq("csv"), any(), any())).thenThrow(new java.util.concurrent.RejectedExecutionException("full"));
+
+	mockMvc.perform(multipart("/api/files/import/csv").file(file))
+		.andExpect(status().isServiceUnavailable())
+		.andExpect(header().exists("Retry-After"))
+		.andExpect(jsonPath("$.errors[0]").value(containsString("queue is full")));
+	}
+
+	@Test
+	public void uploadCsv_submitFails_deletesStoredFile() throws Exception {
+	MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", "a,b\n".getBytes());
+	Mockito.when(fileStorageService.storeFileInSubDirectory(any(org.springframework.web.multipart.MultipartFile.class), eq("imports"))).thenReturn("imports/failed.csv");
+	Mockito.when(fileStorageService.getFilePath(eq("imports/failed.csv"))).thenReturn(Paths.get("src/test/resources/uploads/failed.csv"));
+	Mockito.when(importJobService.submit(eq("csv"), any(), any())).thenThrow(new IllegalStateException("boom"));
+
+	mockMvc.perform(multipart("/api/files/import/csv").file(file))
+		.andExpect(status().isInternalServerError());
+	Mockito.verify(fileStorageService).deleteFile("imports/failed.csv");
+	}
+
+	@Test
+	public void uploadCsv_mergeModeOrInvalidMode() throws Exception {
+	MockMultipartFile file = new MockMultipartFile("file", "employees.csv", "text/csv", "a,b\n".getBytes());
+	Mockito.when(fileStorageService.storeFileInSubDirectory(any(org.springframework.web.multipart.MultipartFile.class), eq("imports"))).thenReturn("imports/merge.csv");
+	Mockito.when(fileStorageService.getFilePath(eq("imports/merge.csv"))).thenReturn(Paths.get("src/test/resources/uploads/merge.csv"));
+	ImportJobStatus queued = new ImportJobStatus("job-3", "csv", ImportMode.MERGE, ImportJobState.QUEUED, 0, 0, 0, List.of(), 0, 0.0, null);
+	Mockito.when(importJobService.submit(eq("csv"), any(), eq(ImportMode.MERGE))).thenReturn(queued);
+
+	mockMvc.perform(multipart("/api/files/import/csv").file(file).param("mode", "merge"))
+		.andExpect(status().isAccepted())
+		.andExpect(jsonPath("$.mode").value("MERGE"));
+	mockMvc.perform(multipart("/api/files/import/csv").file(file).param("mode", "upsert"))
+		.andExpect(status().isBadRequest())
+		.andExpect(jsonPath("$.errors[0]").value(containsString("Invalid import mode")));
+	}
+
+	@Test
+	public void importJobStatus_reportsProgressOrNotFound() throws Exception {
+	ImportJobStatus running = new ImportJobStatus("job-2", "xml", ImportMode.REPLACE, ImportJobState.RUNNING, 5000, 4000, 3, List.of(), 250, 20000.0, null);
+	Mockito.when(importJobService.getStatus("job-2")).thenReturn(java.util.Optional.of(running));
+	Mockito.when(importJobService.getStatus("missing")).thenReturn(java.util.Optional.empty());
+
+	mockMvc.perform(get("/api/files/import/jobs/job-2"))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.rowsParsed").value(5000))
+		.andExpect(jsonPath("$.rowsPersisted").value(4000))
+		.andExpect(jsonPath("$.errorCount").value(3))
+		.andExpect(jsonPath("$.rowsPerSecond").value(20000.0));
+	mockMvc.perform(get("/api/files/import/jobs/missing"))
+		.andExpect(status().isNotFound());
 	}
 
 	@Test
@@ -106,16 +178,31 @@ public class FileUploadControllerTest {
 
 	@Test
 	public void downloadCsv_returnsCsvContent() throws Exception {
-	// Employee has no default ctor; use available constructor
-	Employee e = new Employee("Jane Roe", "jane@example.com", "Acme", com.techcorp.employee.model.Position.PROGRAMISTA, 2000);
-
-	Mockito.when(employeeService.getAllEmployees()).thenReturn(List.of(e));
-
-	mockMvc.perform(get("/api/files/export/csv"))
+	EmployeeExportRow row = new EmployeeExportRow() {
+		public String getFirstName() { return "Jane"; }
+		public String getLastName() { return "Roe"; }
+		public String getEmail() { return "jane@example.com"; }
+		public String getCompanyName() { return "Acme"; }
+		public Position getPosition() { return Position.PROGRAMISTA; }
+		public double getSalary() { return 2000; }
+	};
+
+	Mockito.doAnswer(invocation -> {
+		Consumer<EmployeeExportRow> consumer = invocation.getArgument(1);
+		consumer.accept(row);
+		return null;
+	}).when(employeeService).forEachExportRow(eq("Acme"), any());
+
+	// body is streamed asynchronously - dispatch again to read the written rows
+	MvcResult result = mockMvc.perform(get("/api/files/export/csv").param("company", "Acme"))
+		.andExpect(request().asyncStarted())
+		.andReturn();
+
+	mockMvc.perform(asyncDispatch(result))
 		.andExpect(status().isOk())
 		.andExpect(header().string("Content-Type", (org.hamcrest.Matcher<? super String>) containsString("text/csv")))
-		.andExpect(content().string((org.hamcrest.Matcher<? super String>) containsString("fullName,email,company,position,salary")))
-		.andExpect(content().string((org.hamcrest.Matcher<? super String>) containsString("jane@example.com")));
+		.andExpect(header().doesNotExist("Content-Length"))
+		.andExpect(content().string("fullName,email,company,position,salary\n\"Jane Roe\",jane@example.com,\"Acme\",PROGRAMISTA,2000.00\n"));
 	}
 
 	@Test
@@ -134,8 +221,115 @@ public class FileUploadControllerTest {
 		.andExpect(jsonPath("$.originalFileName").value("idcard.pdf"));
 	}
 
+	@Test
+	public void getPhoto_supportsConditionalAndRangeRequests() throws Exception {
+	java.nio.file.Path photo = java.nio.file.Files.createTempFile("photo", ".png");
+	java.nio.file.Files.write(photo, "0123456789".getBytes());
+	try {
+		Employee employee = new Employee("Jan Kowalski", "jan@example.com", "Acme", Position.PROGRAMISTA, 1000);
+		employee.setPhotoFileName("photos/jan@example.com.png");
+		Mockito.when(employeeService.findByEmail("jan@example.com")).thenReturn(java.util.Optional.of(employee));
+		Mockito.when(fileStorageService.describe("photos/jan@example.com.png"))
+			.thenReturn(new FileStorageService.StoredFile(photo, 10, 1_700_000_000_000L, "image/png", "\"abc123\""));
+
+		mockMvc.perform(get("/api/files/photos/jan@example.com"))
+			.andExpect(status().isOk())
+			.andExpect(header().string("ETag", "\"abc123\""))
+			.andExpect(header().string("Accept-Ranges", "bytes"))
+			.andExpect(header().string("Cache-Control", containsString("no-cache")))
+			.andExpect(header().exists("Last-Modified"))
+			.andExpect(content().contentType("image/png"))
+			.andExpect(content().string("0123456789"));
+
+		mockMvc.perform(get("/api/files/photos/jan@example.com").header("If-None-Match", "\"abc123\""))
+			.andExpect(status().isNotModified())
+			.andExpect(content().string(""));
+
+		mockMvc.perform(get("/api/files/photos/jan@example.com").header("Range", "bytes=2-5"))
+			.andExpect(status().isPartialContent())
+			.andExpect(header().string("Content-Range", "bytes 2-5/10"))
+			.andExpect(header().string("Content-Length", "4"))
+			.andExpect(content().string("2345"));
+
+		// zakres dla nieaktualnej wersji pliku - cały plik
+		mockMvc.perform(get("/api/files/photos/jan@example.com").header("Range", "bytes=2-5").header("If-Range", "\"old\""))
+			.andExpect(status().isOk())
+			.andExpect(content().string("0123456789"));
+
+		mockMvc.perform(get("/api/files/photos/jan@example.com").header("Range", "bytes=20-"))
+			.andExpect(status().isRequestedRangeNotSatisfiable())
+			.andExpect(header().string("Content-Range", "bytes */10"));
+
+		Mockito.when(employeeService.findByEmail("nobody@example.com")).thenReturn(java.util.Optional.empty());
+		mockMvc.perform(get("/api/files/photos/nobody@example.com"))
+			.andExpect(status().isNotFound());
+	} finally {
+		java.nio.file.Files.deleteIfExists(photo);
+	}
+	}
+
+	@Test
+	public void getPhoto_servesCacheableThumbnail() throws Exception {
+	java.nio.file.Path thumbnail = java.nio.file.Files.createTempFile("thumb", ".png");
+	java.nio.file.Files.write(thumbnail, "small".getBytes());
+	try {
+		Employee employee = new Employee("Jan Kowalski", "jan@example.com", "Acme", Position.PROGRAMISTA, 1000);
+		employee.setPhotoFileName("photos/jan@example.com.png");
+		Mockito.when(employeeService.findByEmail("jan@example.com")).thenReturn(java.util.Optional.of(employee));
+		Mockito.when(photoThumbnailService.thumbnailIfReady("photos/jan@example.com.png", 64)).thenReturn(java.util.Optional.of("photos/jan@example.com_64px.png"));
+		Mockito.when(fileStorageService.describe("photos/jan@example.com_64px.png"))
+			.thenReturn(new FileStorageService.StoredFile(thumbnail, 5, 1_700_000_000_000L, "image/png", "\"t64\""));
+
+		mockMvc.perform(get("/api/files/photos/jan@example.com").param("size", "64"))
+			.andExpect(status().isOk())
+			.andExpect(header().string("ETag", "\"t64\""))
+			.andExpect(header().string("Cache-Control", containsString("max-age=86400")))
+			.andExpect(content().string("small"));
+
+		// miniatura jeszcze niegotowa - od razu oryginał, nie zapisywany w cache
+		Mockito.when(photoThumbnailService.thumbnailIfReady("photos/jan@example.com.png", 256)).thenReturn(java.util.Optional.empty());
+		Mockito.when(fileStorageService.describe("photos/jan@example.com.png"))
+			.thenReturn(new FileStorageService.StoredFile(thumbnail, 5, 1_700_000_000_000L, "image/png", "\"orig\""));
+		mockMvc.perform(get("/api/files/photos/jan@example.com").param("size", "256"))
+			.andExpect(status().isOk())
+			.andExpect(header().string("ETag", "\"orig\""))
+			.andExpect(header().string("Cache-Control", containsString("no-store")));
+
+		mockMvc.perform(get("/api/files/photos/jan@example.com").param("size", "100"))
+			.andExpect(status().isBadRequest());
+	} finally {
+		java.nio.file.Files.deleteIfExists(thumbnail);
+	}
+	}
+
+	@Test
+	public void uploadPhoto_persistsPathAndSchedulesThumbnails() throws Exception {
+	MockMultipartFile file = new MockMultipartFile("file", "me.PNG", "image/png", "png".getBytes());
+	Employee employee = new Employee("Jan Kowalski", "jan@example.com", "Acme", Position.PROGRAMISTA, 1000);
+	employee.setPhotoFileName("photos/jan@example.com.jpg");
+	Employee updated = new Employee("Jan Kowalski", "jan@example.com", "Acme", Position.PROGRAMISTA, 1000);
+	updated.setPhotoFileName("photos/jan@example.com.png");
+	Mockito.when(employeeService.findByEmail("jan@example.com")).thenReturn(java.util.Optional.of(employee));
+	Mockito.doNothing().when(fileStorageService).validateFile(any(org.springframework.web.multipart.MultipartFile.class), org.mockito.ArgumentMatchers.anyLong(), any(String[].class));
+	Mockito.when(fileStorageService.storeFileWithNameInSubDirectory(any(org.springframework.web.multipart.MultipartFile.class), eq("photos"), eq("jan@example.com.png")))
+		.thenReturn("photos/jan@example.com.png");
+	Mockito.when(employeeService.changePhoto("jan@example.com", "photos/jan@example.com.png")).thenReturn(java.util.Optional.of(updated));
+
+	mockMvc.perform(multipart("/api/files/photos/jan@example.com").file(file))
+		.andExpect(status().isCreated())
+		.andExpect(jsonPath("$.photoFileName").value("photos/jan@example.com.png"));
+
+	Mockito.verify(photoThumbnailService).photoRemoved("photos/jan@example.com.jpg");
+	Mockito.verify(photoThumbnailService).photoChanged("photos/jan@example.com.png");
+	}
+
 	@TestConfiguration
 	static class TestConfig {
+		@Bean
+		public FileDownloadService fileDownloadService() {
+			return new FileDownloadService();
+		}
+
 		@Bean
 		public org.springframework.core.convert.converter.Converter<String, com.techcorp.employee.model.DocumentType> documentTypeConverter() {
 			return s -> new com.techcorp.employee.model.DocumentType();
@@ -147,8 +341,8 @@ public class FileUploadControllerTest {
 		}
 
 		@Bean
-		public ImportService importService() {
-			return Mockito.mock(ImportService.class);
+		public ImportJobService importJobService() {
+			return Mockito.mock(ImportJobService.class);
 		}
 
 		@Bean
@@ -165,6 +359,11 @@ public class FileUploadControllerTest {
 		public EmployeeDocumentService employeeDocumentService() {
 			return Mockito.mock(EmployeeDocumentService.class);
 		}
+
+		@Bean
+		public PhotoThumbnailService photoThumbnailService() {
+			return Mockito.mock(PhotoThumbnailService.class);
+		}
 	}
 
 }
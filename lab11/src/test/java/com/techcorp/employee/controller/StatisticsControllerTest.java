@@ -1,7 +1,6 @@
 package com.techcorp.employee.controller;
 
 import com.techcorp.employee.model.CompanyStatistics;
-import com.techcorp.employee.model.Employee;
 import com.techcorp.employee.model.EmploymentStatus;
 import com.techcorp.employee.model.Position;
 import com.techcorp.employee.service.EmployeeService;
@@ -12,8 +11,8 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -34,9 +33,7 @@ public class StatisticsControllerTest {
 
     @Test
     void averageSalary_noCompany() throws Exception {
-        Employee a = new Employee("A One", "a@x.com", "X", Position.PROGRAMISTA, 1000.0);
-        Employee b = new Employee("B Two", "b@x.com", "Y", Position.PROGRAMISTA, 3000.0);
-        when(employeeService.getAllEmployees()).thenReturn(List.of(a, b));
+        when(employeeService.getAverageSalary(null)).thenReturn(2000.0);
 
         mvc.perform(get("/api/statistics/salary/average").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -45,9 +42,7 @@ public class StatisticsControllerTest {
 
     @Test
     void averageSalary_byCompany() throws Exception {
-        Employee a = new Employee("A", "a@t.com", "TechCorp", Position.PROGRAMISTA, 8000.0);
-        Employee b = new Employee("B", "b@t.com", "OtherCo", Position.PROGRAMISTA, 4000.0);
-        when(employeeService.getAllEmployees()).thenReturn(List.of(a, b));
+        when(employeeService.getAverageSalary("TechCorp")).thenReturn(8000.0);
 
         mvc.perform(get("/api/statistics/salary/average").param("company", "TechCorp").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -56,11 +51,8 @@ public class StatisticsControllerTest {
 
     @Test
     void companyStatistics_found() throws Exception {
-        CompanyStatistics cs = new CompanyStatistics(2, 9000.0, "Top Person");
-        when(employeeService.getCompanyStatistics()).thenReturn(Map.of("TechCorp", cs));
-        Employee e1 = new Employee("Top Person", "top@t.com", "TechCorp", Position.PREZES, 12000.0);
-        Employee e2 = new Employee("Worker", "w@t.com", "TechCorp", Position.PROGRAMISTA, 6000.0);
-        when(employeeService.getAllEmployees()).thenReturn(List.of(e1, e2));
+        CompanyStatistics cs = new CompanyStatistics("TechCorp", 2L, 9000.0, 12000.0, "Top Person");
+        when(employeeService.getCompanyStatistics("TechCorp")).thenReturn(Optional.of(cs));
 
         mvc.perform(get("/api/statistics/company/TechCorp").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -71,12 +63,20 @@ public class StatisticsControllerTest {
                 .andExpect(jsonPath("$.topEarnerName").value("Top Person"));
     }
 
+    @Test
+    void companyStatistics_notFound() throws Exception {
+        when(employeeService.getCompanyStatistics("NoSuchCo")).thenReturn(Optional.empty());
+
+        mvc.perform(get("/api/statistics/company/NoSuchCo").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void positions_counts() throws Exception {
-        Employee a = new Employee("A", "a@x.com", "X", Position.PROGRAMISTA, 8000.0);
-        Employee b = new Employee("B", "b@x.com", "X", Position.PROGRAMISTA, 8000.0);
-        Employee c = new Employee("C", "c@x.com", "X", Position.MANAGER, 12000.0);
-        when(employeeService.getAllEmployees()).thenReturn(List.of(a, b, c));
+        when(employeeService.getPositionDistribution()).thenReturn(Map.of(
+                Position.PROGRAMISTA, 2L,
+                Position.MANAGER, 1L
+        ));
 
         mvc.perform(get("/api/statistics/positions").accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
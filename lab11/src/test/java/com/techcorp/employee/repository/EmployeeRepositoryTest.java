@@ -1,5 +1,6 @@
 package com.techcorp.employee.repository;
 
+import com.techcorp.employee.model.CompanyStatistics;
 import com.techcorp.employee.model.Employee;
 import com.techcorp.employee.model.Department;
 import com.techcorp.employee.model.Position;
@@ -14,6 +15,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -56,6 +58,65 @@ class EmployeeRepositoryTest {
         assertEquals(30, page.getTotalElements());
     }
 
+    @Test
+    void keysetTraversalVisitsEveryFilteredRowOnce() {
+        for (int i = 0; i < 25; i++) {
+            employeeRepository.save(new Employee(null, "User" + i, "k" + i + "@ex.com", i % 2 == 0 ? "Even" : "Odd", Position.STAZYSTA, 3000));
+        }
+        Specification<Employee> spec = com.techcorp.employee.specification.EmployeeSpecification.byCompany("even");
+        List<String> seen = new java.util.ArrayList<>();
+        Long after = null;
+        while (true) {
+            List<Employee> page = employeeRepository.findBy(spec.and(com.techcorp.employee.specification.EmployeeSpecification.idGreaterThan(after)),
+                    q -> q.sortBy(org.springframework.data.domain.Sort.by("id")).limit(4).all());
+            if (page.isEmpty()) break;
+            page.forEach(e -> seen.add(e.getEmail()));
+            after = page.get(page.size() - 1).getId();
+        }
+        assertEquals(13, seen.size());
+        assertEquals(13, new java.util.HashSet<>(seen).size());
+        assertEquals("k0@ex.com", seen.get(0));
+        assertEquals("k24@ex.com", seen.get(12));
+    }
+
+    @Test
+    void employeeViewsApplySpecificationPagingAndSort() {
+        for (int i = 0; i < 5; i++) {
+            employeeRepository.save(new Employee(null, "Jan Maria" + i + " Nowak", "v" + i + "@ex.com", i < 3 ? "Alpha" : "Beta", Position.PROGRAMISTA, 8000 + i));
+        }
+        Specification<Employee> alpha = com.techcorp.employee.specification.EmployeeSpecification.byCompany("alpha");
+
+        Page<com.techcorp.employee.dto.EmployeeView> page = employeeRepository.findViews(alpha,
+                PageRequest.of(0, 2, org.springframework.data.domain.Sort.by("salary").descending()));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(2, page.getContent().size());
+        assertEquals("v2@ex.com", page.getContent().get(0).email());
+        assertEquals("Jan", page.getContent().get(0).firstName());
+        assertEquals("Maria2 Nowak", page.getContent().get(0).lastName());
+        assertEquals(EmploymentStatus.ACTIVE, page.getContent().get(0).status());
+
+        List<com.techcorp.employee.dto.EmployeeView> firstTwo = employeeRepository.findViews(null, org.springframework.data.domain.Sort.by("id"), 2);
+        assertEquals(List.of("v0@ex.com", "v1@ex.com"), firstTwo.stream().map(com.techcorp.employee.dto.EmployeeView::email).toList());
+        assertEquals(5, employeeRepository.findAllViews().size());
+    }
+
+    @Test
+    void prefixSpecificationsMatchWordStartsAndEscapeWildcards() {
+        employeeRepository.saveAll(List.of(
+                new Employee(null, "Jan Kowalski", "jan.kowalski@tech.com", "Co", Position.PROGRAMISTA, 8000),
+                new Employee(null, "Janina Nowak", "j_nowak@tech.com", "Co", Position.PROGRAMISTA, 8000),
+                new Employee(null, "Adam Jankowski", "adam@tech.com", "Co", Position.PROGRAMISTA, 8000),
+                new Employee(null, "Piotr Bujan", "jxnowak@tech.com", "Co", Position.PROGRAMISTA, 8000)));
+
+        List<String> jan = employeeRepository.findAll(com.techcorp.employee.specification.EmployeeSpecification.nameStartsWith("JAN")).stream()
+                .map(Employee::getEmail).sorted().toList();
+        assertEquals(List.of("adam@tech.com", "j_nowak@tech.com", "jan.kowalski@tech.com"), jan);
+
+        assertEquals(1, employeeRepository.findAll(com.techcorp.employee.specification.EmployeeSpecification.nameStartsWith("jan kow")).size());
+        assertEquals(1, employeeRepository.findAll(com.techcorp.employee.specification.EmployeeSpecification.emailStartsWith("J_")).size());
+        assertEquals(0, employeeRepository.findAll(com.techcorp.employee.specification.EmployeeSpecification.emailStartsWith("%nowak")).size());
+    }
+
     @Test
     void specificationsFilterByCompanyAndNameAndStatus() {
         Employee e1 = new Employee(null, "Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000);
@@ -94,4 +155,68 @@ class EmployeeRepositoryTest {
         assertEquals(2, byDepartment.size());
         assertTrue(byDepartment.stream().allMatch(emp -> d1.getId().equals(emp.getDepartmentId())));
     }
+
+    @Test
+    void departmentSummariesCountEmployeesAndResolveManagerInOneQuery() {
+        Department it = departmentRepository.save(new Department(null, "IT", "HQ", 1_000_000, " Boss@Corp.com"));
+        departmentRepository.save(new Department(null, "HR", "HQ", 500_000, "nobody@corp.com"));
+        Employee boss = new Employee(null, "Anna Szef", "boss@corp.com", "Co", Position.MANAGER, 12000);
+        Employee dev = new Employee(null, "Jan Dev", "dev@corp.com", "Co", Position.PROGRAMISTA, 8000);
+        boss.setDepartment(it);
+        dev.setDepartment(it);
+        employeeRepository.saveAll(List.of(boss, dev, new Employee(null, "Ola Prezes", "ceo@corp.com", "Co", Position.PREZES, 25000)));
+
+        List<com.techcorp.employee.dto.DepartmentSummary> summaries = departmentRepository.findAllSummaries();
+        assertEquals(List.of("HR", "IT"), summaries.stream().map(com.techcorp.employee.dto.DepartmentSummary::name).toList());
+        assertEquals(0, summaries.get(0).employeeCount());
+        assertNull(summaries.get(0).managerName());
+        assertEquals(2, summaries.get(1).employeeCount());
+        assertEquals("Anna Szef", summaries.get(1).managerName());
+
+        List<com.techcorp.employee.dto.ManagerOption> managers = employeeRepository.findManagerOptions(List.of(Position.PREZES, Position.WICEPREZES, Position.MANAGER));
+        assertEquals(List.of(new com.techcorp.employee.dto.ManagerOption("ceo@corp.com", "Ola Prezes"),
+                new com.techcorp.employee.dto.ManagerOption("boss@corp.com", "Anna Szef")), managers);
+        assertEquals(2, employeeRepository.findListViewByDepartmentId(it.getId()).size());
+    }
+
+    @Test
+    void caseInsensitiveLookupsUseNormalizedColumns() {
+        Employee saved = employeeRepository.save(new Employee(null, "Jan Kowalski", " Jan.Kowalski@Tech.com", "TechCorp", Position.PROGRAMISTA, 8000));
+        departmentRepository.save(new Department(null, "Research", "HQ", 1_000_000, "boss@corp.com"));
+        assertEquals("jan.kowalski@tech.com", saved.getEmailNormalized());
+
+        assertEquals(saved.getId(), employeeRepository.findByEmailIgnoreCase("JAN.KOWALSKI@tech.COM").orElseThrow().getId());
+        assertTrue(employeeRepository.existsByEmailIgnoreCase("jan.kowalski@TECH.com"));
+        assertTrue(departmentRepository.existsByNameIgnoreCase("research"));
+        assertEquals(1, employeeRepository.findAll(com.techcorp.employee.specification.EmployeeSpecification.byCompany("techcorp")).size());
+
+        saved.setEmail("jan@tech.com");
+        employeeRepository.saveAndFlush(saved);
+        assertTrue(employeeRepository.findByEmailIgnoreCase("JAN@TECH.COM").isPresent());
+        assertFalse(employeeRepository.existsByEmailIgnoreCase("jan.kowalski@tech.com"));
+    }
+
+    @Test
+    void aggregateCompanyStatisticsComputedByDatabase() {
+        employeeRepository.saveAll(List.of(
+                new Employee(null, "Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000),
+                new Employee(null, "Anna Nowak", "anna@tech.com", "TechCorp", Position.PREZES, 20000),
+                new Employee(null, "Piotr Zielinski", "piotr@other.com", "OtherCo", Position.MANAGER, 12000)
+        ));
+
+        List<CompanyStatistics> all = employeeRepository.aggregateCompanyStatistics();
+        assertEquals(2, all.size());
+        CompanyStatistics tech = all.stream().filter(cs -> "TechCorp".equals(cs.getCompanyName())).findFirst().orElseThrow();
+        assertEquals(2, tech.getEmployeeCount());
+        assertEquals(14000.0, tech.getAverageSalary(), 0.001);
+        assertEquals(20000.0, tech.getHighestSalary(), 0.001);
+        assertEquals("Anna Nowak", tech.getHighestPaidFullName());
+
+        Optional<CompanyStatistics> other = employeeRepository.aggregateCompanyStatistics("OtherCo");
+        assertTrue(other.isPresent());
+        assertEquals(1, other.get().getEmployeeCount());
+        assertEquals("Piotr Zielinski", other.get().getHighestPaidFullName());
+
+        assertTrue(employeeRepository.aggregateCompanyStatistics("Missing").isEmpty());
+    }
 }
@@ -0,0 +1,184 @@
+package com.techcorp.employee.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.FederatedFetchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// lokalny serwer HTTP zamiast zewnętrznego API
+class ApiServiceFederatedTest {
+
+    private static final ApiService.FetchPolicy POLICY =
+            new ApiService.FetchPolicy(Duration.ofMillis(500), 3, Duration.ofMillis(10), 3, Duration.ofMinutes(1));
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private ApiService service;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverThreads = Executors.newCachedThreadPool();
+        server.setExecutor(serverThreads);
+        server.start();
+        service = new ApiService(HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build(), POLICY);
+    }
+
+    @AfterEach
+    void stopServer() {
+        service.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void sourcesAreFetchedConcurrentlyAndMergedInSourceOrder() {
+        // każde źródło odpowiada dopiero, gdy oba żądania są w toku - pobieranie po kolei skończyłoby się błędem
+        CountDownLatch bothRequested = new CountDownLatch(2);
+        handle("/a", exchange -> {
+            bothRequested.countDown();
+            await(bothRequested);
+            respond(exchange, 200, "[{\"name\":\"Jan Kowalski\",\"email\":\"jan@techcorp.com\",\"company\":{\"name\":\"A\"}}]");
+        });
+        handle("/b", exchange -> {
+            bothRequested.countDown();
+            await(bothRequested);
+            respond(exchange, 200, "[{\"name\":\"Jan Inny\",\"email\":\"JAN@techcorp.com\",\"company\":{\"name\":\"B\"}},"
+                    + "{\"name\":\"Anna Nowak\",\"email\":\"anna@techcorp.com\",\"company\":{\"name\":\"B\"}}]");
+        });
+
+        FederatedFetchResult result = service.fetchEmployeesFromApis(List.of(url("/a"), url("/b")));
+
+        assertEquals(List.of("Jan Kowalski", "Anna Nowak"), result.employees().stream().map(Employee::getFullName).toList());
+        assertEquals(1, result.duplicates());
+        assertEquals(1, result.fetchedBySource().get(url("/a")));
+        assertEquals(2, result.fetchedBySource().get(url("/b")));
+        assertTrue(result.failures().isEmpty());
+    }
+
+    @Test
+    void serverErrorsAreRetriedAndClientErrorsAreNot() {
+        AtomicInteger flakyCalls = new AtomicInteger();
+        handle("/flaky", exchange -> {
+            if (flakyCalls.incrementAndGet() < 3) {
+                respond(exchange, 503, "busy");
+            } else {
+                respond(exchange, "firstName,lastName,email,company,position,salary\nAnn,Test,ann@techcorp.com,Acme,MANAGER,9000\n");
+            }
+        });
+        AtomicInteger missingCalls = new AtomicInteger();
+        handle("/missing", exchange -> {
+            missingCalls.incrementAndGet();
+            respond(exchange, 404, "no such source");
+        });
+
+        FederatedFetchResult result = service.fetchEmployeesFromApis(List.of(url("/flaky"), url("/missing")));
+
+        assertEquals(3, flakyCalls.get());
+        assertEquals("Ann Test", result.employees().get(0).getFullName());
+        assertEquals(1, missingCalls.get());
+        assertTrue(result.failures().get(url("/missing")).contains("404"));
+    }
+
+    @Test
+    void malformedBodyIsNeitherRetriedNorCountedByCircuitBreaker() {
+        AtomicInteger calls = new AtomicInteger();
+        handle("/truncated", exchange -> {
+            calls.incrementAndGet();
+            respond(exchange, "[{\"name\":\"Jan Kowalski\",\"email\":\"jan@techcorp.com\"},{\"name\":");
+        });
+
+        // więcej pobrań niż próg bezpiecznika (3) - każde to jedno żądanie i błąd treści, nie "Circuit open"
+        for (int i = 1; i <= 4; i++) {
+            FederatedFetchResult result = service.fetchEmployeesFromApis(List.of(url("/truncated")));
+            assertTrue(result.failures().get(url("/truncated")).contains("Malformed"));
+            assertEquals(i, calls.get());
+        }
+    }
+
+    @Test
+    void slowSourceTimesOutWithoutHoldingBackOthers() {
+        CountDownLatch release = new CountDownLatch(1);
+        handle("/slow", exchange -> {
+            await(release);
+            respond(exchange, "[]");
+        });
+        handle("/fast", exchange -> respond(exchange, "[{\"name\":\"Ewa Lis\",\"email\":\"ewa@techcorp.com\"}]"));
+        try {
+            long start = System.nanoTime();
+            FederatedFetchResult result = service.fetchEmployeesFromApis(List.of(url("/slow"), url("/fast")));
+
+            // 3 próby po 500 ms + opóźnienia, a nie czas odpowiedzi wolnego źródła
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4));
+            assertTrue(result.failures().get(url("/slow")).contains("Timed out"));
+            assertEquals(1, result.fetchedBySource().get(url("/fast")));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void openCircuitStopsCallingFailingSource() {
+        AtomicInteger calls = new AtomicInteger();
+        handle("/down", exchange -> {
+            calls.incrementAndGet();
+            respond(exchange, 500, "down");
+        });
+
+        // 3 próby = 3 kolejne błędy - bezpiecznik otwarty
+        assertTrue(service.fetchEmployeesFromApis(List.of(url("/down"))).failures().containsKey(url("/down")));
+        assertEquals(3, calls.get());
+
+        FederatedFetchResult result = service.fetchEmployeesFromApis(List.of(url("/down")));
+        assertTrue(result.failures().get(url("/down")).contains("Circuit open"));
+        assertEquals(3, calls.get());
+    }
+
+    private void handle(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        respond(exchange, 200, body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
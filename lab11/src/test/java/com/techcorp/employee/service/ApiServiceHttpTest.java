@@ -1,7 +1,5 @@
 package com.techcorp.employee.service;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.techcorp.employee.exception.ApiException;
 import com.techcorp.employee.model.Employee;
 import com.techcorp.employee.model.Position;
@@ -9,13 +7,28 @@ import com.techcorp.employee.model.Position;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 
@@ -44,15 +57,30 @@ class ApiServiceHttpTest {
     }
 
     @Test
-    void safeGetString_handles_missing_null_and_wrong_type() throws Exception {
+    void parseBody_json_handles_missing_null_and_wrong_type() {
         ApiService svc = new ApiService();
-        Method m = ApiService.class.getDeclaredMethod("safeGetString", JsonObject.class, String.class);
-        m.setAccessible(true);
-        JsonObject obj = JsonParser.parseString("{\"name\":null}").getAsJsonObject();
-        assertEquals("", m.invoke(svc, obj, "name"));
-        assertEquals("", m.invoke(svc, obj, "missing"));
-        obj.addProperty("num", 123);
-        assertEquals("123", m.invoke(svc, obj, "num"));
+        List<Employee> list = svc.parseBody(" [{\"name\":null,\"email\":123,\"company\":\"flat\",\"address\":{\"city\":\"X\"}},"
+                + " 42, {\"name\":true,\"company\":{\"name\":\"Acme\",\"bs\":[1,2]}}, {}]");
+        assertEquals(3, list.size());
+        assertEquals("", list.get(0).getFullName());
+        assertEquals("123", list.get(0).getEmail());
+        assertEquals("", list.get(0).getCompanyName());
+        assertEquals("true", list.get(1).getFullName());
+        assertEquals("Acme", list.get(1).getCompanyName());
+        assertEquals("", list.get(2).getEmail());
+    }
+
+    @Test
+    void parseBody_streams_records_to_consumer() throws Exception {
+        ApiService svc = new ApiService();
+        List<String> names = new java.util.ArrayList<>();
+        // CSV bez nagłówka, z pustymi i niepełnymi liniami
+        int count = svc.parseBody(new java.io.StringReader("\n\nAnn,Test,ann@example.com,Acme,MANAGER,\"9000,5\"\r\nbroken,line\nBob,,bob@example.com,Acme,nope,\n"),
+                employee -> names.add(employee.getFullName()));
+        assertEquals(2, count);
+        assertEquals(List.of("Ann Test", "Bob"), names);
+        assertEquals(0, svc.parseBody(new java.io.StringReader("   "), employee -> fail()));
+        assertThrows(java.io.UncheckedIOException.class, () -> svc.parseBody("[{\"name\": \"Jan\"},"));
     }
 
 
@@ -60,11 +88,12 @@ class ApiServiceHttpTest {
     void fetchEmployeesFromApi_parses_json_array_with_mocked_httpclient() throws Exception {
         HttpClient mockClient = mock(HttpClient.class);
         @SuppressWarnings("unchecked")
-        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        HttpResponse<InputStream> mockResponse = (HttpResponse<InputStream>) mock(HttpResponse.class);
 
         when(mockResponse.statusCode()).thenReturn(200);
-        when(mockResponse.body()).thenReturn("[{\"name\": \"John Doe\", \"email\": \"john@example.com\", \"company\": {\"name\": \"TechCorp\"}}]");
-        when(mockClient.<String>send(any(HttpRequest.class), org.mockito.Mockito.<HttpResponse.BodyHandler<String>>any())).thenReturn(mockResponse);
+        when(mockResponse.body()).thenReturn(body("[{\"name\": \"John Doe\", \"email\": \"john@example.com\", \"company\": {\"name\": \"TechCorp\"}}]"));
+        when(mockResponse.headers()).thenReturn(HttpHeaders.of(Map.of("Content-Type", List.of("application/json; charset=utf-8")), (name, value) -> true));
+        when(mockClient.<InputStream>send(any(HttpRequest.class), org.mockito.Mockito.<HttpResponse.BodyHandler<InputStream>>any())).thenReturn(mockResponse);
 
         ApiService svc = new ApiService(mockClient);
         List<Employee> list = svc.fetchEmployeesFromApi("http://dummy/json");
@@ -80,11 +109,12 @@ class ApiServiceHttpTest {
     void fetchEmployeesFromApi_parses_csv_as_fallback_with_mocked_httpclient() throws Exception {
         HttpClient mockClient = mock(HttpClient.class);
         @SuppressWarnings("unchecked")
-        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        HttpResponse<InputStream> mockResponse = (HttpResponse<InputStream>) mock(HttpResponse.class);
 
         when(mockResponse.statusCode()).thenReturn(200);
-        when(mockResponse.body()).thenReturn("firstName,lastName,email,company,position,salary\nAnn,Test,ann@example.com,Acme,PROGRAMISTA,8000\n");
-        when(mockClient.<String>send(any(HttpRequest.class), org.mockito.Mockito.<HttpResponse.BodyHandler<String>>any())).thenReturn(mockResponse);
+        when(mockResponse.body()).thenReturn(body("firstName,lastName,email,company,position,salary\nAnn,Test,ann@example.com,Acme,PROGRAMISTA,8000\n"));
+        when(mockResponse.headers()).thenReturn(HttpHeaders.of(Map.of("Content-Type", List.of("application/json; charset=utf-8")), (name, value) -> true));
+        when(mockClient.<InputStream>send(any(HttpRequest.class), org.mockito.Mockito.<HttpResponse.BodyHandler<InputStream>>any())).thenReturn(mockResponse);
 
         ApiService svc = new ApiService(mockClient);
         List<Employee> list = svc.fetchEmployeesFromApi("http://dummy/csv");
@@ -96,13 +126,83 @@ class ApiServiceHttpTest {
     void fetchEmployeesFromApi_throws_on_http_error_with_mocked_httpclient() throws Exception {
         HttpClient mockClient = mock(HttpClient.class);
         @SuppressWarnings("unchecked")
-        HttpResponse<String> mockResponse = (HttpResponse<String>) mock(HttpResponse.class);
+        HttpResponse<InputStream> mockResponse = (HttpResponse<InputStream>) mock(HttpResponse.class);
 
         when(mockResponse.statusCode()).thenReturn(500);
-        when(mockResponse.body()).thenReturn("oops");
-        when(mockClient.<String>send(any(HttpRequest.class), org.mockito.Mockito.<HttpResponse.BodyHandler<String>>any())).thenReturn(mockResponse);
+        when(mockResponse.body()).thenReturn(body("oops"));
+        when(mockResponse.headers()).thenReturn(HttpHeaders.of(Map.of("Content-Type", List.of("application/json; charset=utf-8")), (name, value) -> true));
+        when(mockClient.<InputStream>send(any(HttpRequest.class), org.mockito.Mockito.<HttpResponse.BodyHandler<InputStream>>any())).thenReturn(mockResponse);
 
         ApiService svc = new ApiService(mockClient);
         assertThrows(ApiException.class, () -> svc.fetchEmployeesFromApi("http://dummy/bad"));
     }
+
+    @Test
+    void fetchEmployeesFromApi_applies_policy_timeout_to_request() throws Exception {
+        HttpClient mockClient = mock(HttpClient.class);
+        @SuppressWarnings("unchecked")
+        HttpResponse<InputStream> mockResponse = (HttpResponse<InputStream>) mock(HttpResponse.class);
+
+        when(mockResponse.statusCode()).thenReturn(200);
+        when(mockResponse.body()).thenReturn(body("[]"));
+        when(mockResponse.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(mockClient.<InputStream>send(any(HttpRequest.class), org.mockito.Mockito.<HttpResponse.BodyHandler<InputStream>>any())).thenReturn(mockResponse);
+
+        new ApiService(mockClient).fetchEmployeesFromApi("http://dummy/json");
+        ArgumentCaptor<HttpRequest> request = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(mockClient).send(request.capture(), any());
+        assertEquals(Optional.of(ApiService.FetchPolicy.DEFAULT.timeout()), request.getValue().timeout());
+    }
+
+    @Test
+    void fetchEmployeesAsync_closes_body_unread_when_timeout_fires_before_reader_starts() throws Exception {
+        HttpClient mockClient = mock(HttpClient.class);
+        @SuppressWarnings("unchecked")
+        HttpResponse<InputStream> mockResponse = (HttpResponse<InputStream>) mock(HttpResponse.class);
+        CountDownLatch timedOut = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        AtomicBoolean read = new AtomicBoolean();
+        InputStream stream = new FilterInputStream(body("[{\"name\": \"Late\"}]")) {
+            @Override
+            public int read() throws IOException {
+                read.set(true);
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                read.set(true);
+                return super.read(buffer, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                super.close();
+                closed.countDown();
+            }
+        };
+
+        when(mockResponse.statusCode()).thenReturn(200);
+        // zadanie odczytu dostaje strumień dopiero po upływie limitu czasu
+        when(mockResponse.body()).thenAnswer(invocation -> {
+            timedOut.await(5, TimeUnit.SECONDS);
+            return stream;
+        });
+        when(mockResponse.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(mockClient.<InputStream>sendAsync(any(HttpRequest.class), org.mockito.Mockito.<HttpResponse.BodyHandler<InputStream>>any()))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        ApiService svc = new ApiService(mockClient,
+                new ApiService.FetchPolicy(Duration.ofMillis(50), 1, Duration.ofMillis(10), 3, Duration.ofMinutes(1)));
+        CompletionException failure = assertThrows(CompletionException.class, () -> svc.fetchEmployeesAsync("http://dummy/slow").join());
+        assertInstanceOf(ApiException.class, failure.getCause());
+
+        timedOut.countDown();
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertFalse(read.get());
+    }
+
+    private static InputStream body(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
 }
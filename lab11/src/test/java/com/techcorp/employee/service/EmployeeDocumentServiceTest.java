@@ -5,19 +5,34 @@ import com.techcorp.employee.exception.InvalidDataException;
 import com.techcorp.employee.model.Employee;
 import com.techcorp.employee.model.EmployeeDocument;
 import com.techcorp.employee.model.DocumentType;
+import com.techcorp.employee.repository.EmployeeDocumentRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 
+// metadane w bazie - bez transakcji testowej, każdy zapis zatwierdzany jak w żądaniu HTTP
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {"spring.jpa.hibernate.ddl-auto=create-drop", "spring.sql.init.mode=never"})
 class EmployeeDocumentServiceTest {
 
+    @Autowired
+    private EmployeeDocumentRepository documentRepository;
+
     private FileStorageService fileStorageService;
     private EmployeeService employeeService;
     private EmployeeDocumentService svc;
@@ -26,7 +41,12 @@ class EmployeeDocumentServiceTest {
     void setup() {
         fileStorageService = Mockito.mock(FileStorageService.class);
         employeeService = Mockito.mock(EmployeeService.class);
-        svc = new EmployeeDocumentService(fileStorageService, employeeService);
+        svc = new EmployeeDocumentService(fileStorageService, employeeService, documentRepository);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        documentRepository.deleteAll();
     }
 
     @Test
@@ -57,6 +77,79 @@ class EmployeeDocumentServiceTest {
         assertThrows(FileNotFoundException.class, () -> svc.getDocument(email, doc.getId()));
     }
 
+    @Test
+    void documentsSurviveServiceRestartAndCacheSeesWrites() throws IOException, InvalidDataException {
+        String email = "anna@example.com";
+        Employee e = new Employee("Anna Nowak", email, "Acme", com.techcorp.employee.model.Position.MANAGER, 1000);
+        Mockito.when(employeeService.findByEmail(any())).thenReturn(Optional.of(e));
+        Mockito.when(fileStorageService.storeFileInSubDirectory(any(), any()))
+                .thenReturn("documents/anna/a.pdf", "documents/anna/b.pdf", "documents/anna/c.pdf");
+
+        EmployeeDocument first = svc.storeDocument(email, new MockMultipartFile("file", "a.pdf", "application/pdf", "a".getBytes()), new DocumentType());
+        // lista w cache - kolejne zapisy dopisywane do niej, nie tylko do bazy
+        assertEquals(1, svc.listDocuments("ANNA@example.com").size());
+        svc.storeDocument(email, new MockMultipartFile("file", "b.pdf", "application/pdf", "b".getBytes()), new DocumentType());
+        assertEquals(List.of("a.pdf", "b.pdf"), svc.listDocuments(email).stream().map(EmployeeDocument::getOriginalFileName).toList());
+        assertThrows(UnsupportedOperationException.class, () -> svc.listDocuments(email).clear());
+
+        // nowa instancja serwisu (restart) czyta metadane z bazy
+        EmployeeDocumentService restarted = new EmployeeDocumentService(fileStorageService, employeeService, documentRepository);
+        assertEquals("documents/anna/a.pdf", restarted.getDocument(email, first.getId()).getFilePath());
+        assertEquals(2, restarted.listDocuments(" Anna@Example.com ").size());
+        assertThrows(FileNotFoundException.class, () -> restarted.getDocument("other@example.com", first.getId()));
+
+        restarted.deleteDocument(email, first.getId());
+        assertEquals(List.of("b.pdf"), restarted.listDocuments(email).stream().map(EmployeeDocument::getOriginalFileName).toList());
+        assertEquals(1, documentRepository.count());
+        assertTrue(svc.listDocuments("nobody@example.com").isEmpty());
+    }
+
+    @Test
+    void removedEmployeeListIsEvictedAndReloaded() throws IOException, InvalidDataException {
+        String email = "piotr@example.com";
+        Employee e = new Employee("Piotr Wiśniewski", email, "Acme", com.techcorp.employee.model.Position.PROGRAMISTA, 1000);
+        Mockito.when(employeeService.findByEmail(any())).thenReturn(Optional.of(e));
+        Mockito.when(fileStorageService.storeFileInSubDirectory(any(), any())).thenReturn("documents/piotr/a.pdf");
+        svc.storeDocument(email, new MockMultipartFile("file", "a.pdf", "application/pdf", "a".getBytes()), new DocumentType());
+        assertEquals(1, svc.listDocuments(email).size());
+
+        // zmiana z pominięciem serwisu - widoczna dopiero po usunięciu listy z cache
+        documentRepository.deleteAll();
+        assertEquals(1, svc.listDocuments(email).size());
+        svc.employeeRemoved(new EmployeeRemovedEvent(Employee.normalize(email)));
+        assertTrue(svc.listDocuments(email).isEmpty());
+
+        svc.storeDocument(email, new MockMultipartFile("file", "a.pdf", "application/pdf", "a".getBytes()), new DocumentType());
+        assertEquals(1, svc.listDocuments(email).size());
+        documentRepository.deleteAll();
+        svc.employeeRemoved(EmployeeRemovedEvent.allEmployees());
+        assertTrue(svc.listDocuments(email).isEmpty());
+    }
+
+    @Test
+    void listLoadedDuringConcurrentWriteIsNotCached() throws IOException, InvalidDataException {
+        String email = "ewa@example.com";
+        Employee e = new Employee("Ewa Lis", email, "Acme", com.techcorp.employee.model.Position.MANAGER, 1000);
+        Mockito.when(employeeService.findByEmail(any())).thenReturn(Optional.of(e));
+        Mockito.when(fileStorageService.storeFileInSubDirectory(any(), any())).thenReturn("documents/ewa/a.pdf");
+        EmployeeDocumentRepository repository = Mockito.mock(EmployeeDocumentRepository.class);
+        EmployeeDocumentService service = new EmployeeDocumentService(fileStorageService, employeeService, repository, 10);
+        EmployeeDocument stored = new EmployeeDocument(7, email, "a.pdf", "a.pdf", new DocumentType(), java.time.Instant.now(), "documents/ewa/a.pdf");
+        Mockito.when(repository.save(any())).thenReturn(stored);
+        // zapis dokumentu w trakcie wczytywania listy - wczytana lista go nie zawiera
+        Mockito.when(repository.findByEmployeeEmailNormalizedOrderByUploadDateAscIdAsc("ewa@example.com"))
+                .thenAnswer(invocation -> {
+                    service.storeDocument(email, new MockMultipartFile("file", "a.pdf", "application/pdf", "a".getBytes()), new DocumentType());
+                    return List.of();
+                })
+                .thenReturn(List.of(stored));
+
+        assertTrue(service.listDocuments(email).isEmpty());
+        assertEquals(List.of(stored), service.listDocuments(email));
+        assertEquals(List.of(stored), service.listDocuments(email));
+        Mockito.verify(repository, Mockito.times(2)).findByEmployeeEmailNormalizedOrderByUploadDateAscIdAsc("ewa@example.com");
+    }
+
     @Test
     void storeDocument_missingEmployee_throws() {
         Mockito.when(employeeService.findByEmail("no@one.com")).thenReturn(Optional.empty());
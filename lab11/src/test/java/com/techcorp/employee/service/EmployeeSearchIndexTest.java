@@ -0,0 +1,101 @@
+package com.techcorp.employee.service;
+
+import com.techcorp.employee.dto.EmployeeSearchHit;
+import com.techcorp.employee.dto.EmployeeSearchResult;
+import com.techcorp.employee.dto.EmployeeSearchRow;
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.Position;
+import com.techcorp.employee.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeSearchIndexTest {
+
+    private EmployeeRepository repository;
+    private EmployeeSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(EmployeeRepository.class);
+        index = new EmployeeSearchIndex(repository);
+        Mockito.when(repository.findSearchRows()).thenReturn(List.of(
+                new EmployeeSearchRow(1L, "Jan", "Kowalski", "jan.kowalski@techcorp.com", "TechCorp", 10L, "Badania i Rozwój"),
+                new EmployeeSearchRow(2L, "Anna", "Janowska", "anna@techcorp.com", "TechCorp", null, null),
+                new EmployeeSearchRow(3L, "Łukasz", "Nowak", "lukasz@other.com", "OtherCo", 10L, "Badania i Rozwój")));
+        index.rebuild();
+    }
+
+    private static List<Long> ids(EmployeeSearchResult result) {
+        return result.hits().stream().map(EmployeeSearchHit::id).toList();
+    }
+
+    private static Employee employee(long id, String fullName, String email, String company, Long departmentId) {
+        Employee employee = new Employee(id, fullName, email, company, Position.PROGRAMISTA, 8000);
+        employee.setDepartmentId(departmentId);
+        return employee;
+    }
+
+    @Test
+    void prefixTermsAreCombinedWithAndAndRankedByField() {
+        // "jan" to imię pracownika 1 i prefiks nazwiska pracownika 2 - całe słowo w imieniu wygrywa
+        assertEquals(List.of(1L, 2L), ids(index.search("jan", 10)));
+        assertEquals(List.of(1L), ids(index.search("Jan TECH bad", 10)));
+        assertEquals(List.of(1L, 3L), ids(index.search("rozwoj", 10)));
+        assertEquals(List.of(3L), ids(index.search("lukasz now", 10)));
+        assertEquals(List.of(3L), ids(index.search("Łuk", 10)));
+        assertTrue(index.search("jan nowak", 10).hits().isEmpty());
+        assertTrue(index.search("  ", 10).hits().isEmpty());
+
+        EmployeeSearchResult limited = index.search("techcorp", 1);
+        assertEquals(2, limited.total());
+        assertEquals(1, limited.hits().size());
+        EmployeeSearchHit hit = index.search("kowal", 10).hits().get(0);
+        assertEquals("Badania i Rozwój", hit.departmentName());
+        assertEquals("jan.kowalski@techcorp.com", hit.email());
+    }
+
+    @Test
+    void writesAndDepartmentRenamesUpdateIndexIncrementally() {
+        index.index(employee(4L, "Ewa Kowalczyk", "ewa@techcorp.com", "TechCorp", 10L));
+        assertEquals(List.of(1L, 4L), ids(index.search("kowal", 10)).stream().sorted().toList());
+
+        index.index(employee(1L, "Jan Zielinski", "jan.kowalski@techcorp.com", "OtherCo", 10L));
+        assertEquals(List.of(1L), ids(index.search("zielinski", 10)));
+        // email bez zmian - nadal wyszukiwalny po starym nazwisku
+        assertEquals(List.of(1L), ids(index.search("kowalski otherco", 10)));
+        assertEquals(List.of(1L, 3L), ids(index.search("otherco", 10)).stream().sorted().toList());
+
+        index.remove(4L);
+        assertTrue(index.search("ewa", 10).hits().isEmpty());
+        assertEquals(3, index.documentCount());
+
+        index.departmentChanged(10L, "Sprzedaż");
+        assertTrue(index.search("badania", 10).hits().isEmpty());
+        assertEquals(List.of(1L, 3L), ids(index.search("sprzedaz", 10)).stream().sorted().toList());
+        assertEquals("Sprzedaż", index.search("lukasz", 10).hits().get(0).departmentName());
+    }
+
+    @Test
+    void postingsStayConsistentAcrossAppendsOutOfOrderInsertsAndRemovals() {
+        EmployeeSearchIndex.Postings postings = new EmployeeSearchIndex.Postings();
+        List<Long> expected = new ArrayList<>();
+        LongStream.rangeClosed(1, 1000).map(i -> i * 3).forEach(id -> { postings.add(id); expected.add(id); });
+        // wstawienia w środek i usunięcia przekraczają bufor - wymuszają scalenie z blokiem
+        for (long id = 1; id < 600; id += 6) { postings.add(id); expected.add(id); }
+        for (long id = 30; id < 1500; id += 15) { postings.remove(id); expected.remove(id); }
+        postings.add(30L);
+        expected.add(30L);
+
+        assertArrayEquals(expected.stream().sorted().mapToLong(Long::longValue).toArray(), postings.toArray());
+        assertEquals(expected.size(), postings.size());
+        // różnice kolejnych id mieszczą się w jednym bajcie varint
+        assertTrue(postings.bytes() < expected.size() * 2L);
+    }
+}
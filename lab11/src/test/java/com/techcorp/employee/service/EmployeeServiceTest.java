@@ -0,0 +1,271 @@
+package com.techcorp.employee.service;
+
+import com.techcorp.employee.dao.JdbcEmployeeBatchDAO;
+import com.techcorp.employee.dao.JdbcEmployeeMergeDAO;
+import com.techcorp.employee.dao.JdbcEmployeeWriteDAO;
+import com.techcorp.employee.model.Department;
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.EmploymentStatus;
+import com.techcorp.employee.model.ImportDelta;
+import com.techcorp.employee.model.ImportSummary;
+import com.techcorp.employee.model.Position;
+import com.techcorp.employee.repository.EmployeeRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// bez transakcji testowej - każde wywołanie serwisu zatwierdza się samo, jak w żądaniu HTTP
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ImportAutoConfiguration(ValidationAutoConfiguration.class)
+@Import({EmployeeService.class, DepartmentService.class, StatisticsIndex.class, EmployeeSearchIndex.class, JdbcEmployeeBatchDAO.class, JdbcEmployeeWriteDAO.class,
+        JdbcEmployeeMergeDAO.class})
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.sql.init.mode=never",
+        // testowe application.properties nie zawiera konfiguracji cache - te same ustawienia co w aplikacji
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=jcache",
+        "spring.jpa.properties.hibernate.javax.cache.provider=com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class EmployeeServiceTest {
+
+    @Autowired
+    private EmployeeService employeeService;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private StatisticsIndex statisticsIndex;
+
+    @Autowired
+    private EmployeeSearchIndex searchIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DepartmentService departmentService;
+
+    @AfterEach
+    void cleanUp() {
+        employeeRepository.deleteAll();
+        statisticsIndex.clear();
+        searchIndex.clear();
+    }
+
+    @Test
+    void createRejectsCaseInsensitiveDuplicateWithoutExistenceCheck() {
+        Employee created = employeeService.createEmployee(new Employee(99L, "Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000)).orElseThrow();
+        assertNotNull(created.getId());
+        assertNotEquals(99L, created.getId());
+
+        assertTrue(employeeService.createEmployee(new Employee("Jan Inny", " JAN@Tech.com", "OtherCo", Position.STAZYSTA, 3000)).isEmpty());
+        assertFalse(employeeService.addEmployee(new Employee("Jan Inny", "jan@TECH.com", "OtherCo", Position.STAZYSTA, 3000)));
+        assertEquals(1, employeeRepository.count());
+        assertEquals(1, statisticsIndex.count());
+    }
+
+    @Test
+    void statusUpdateReturnsRowAndKeepsIndexInSync() {
+        employeeService.addEmployee(new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000));
+
+        Employee changed = employeeService.changeStatus("JAN@tech.com", EmploymentStatus.ON_LEAVE).orElseThrow();
+        assertEquals(EmploymentStatus.ON_LEAVE, changed.getStatus());
+        assertEquals("Jan Kowalski", changed.getFullName());
+        assertEquals(EmploymentStatus.ON_LEAVE, employeeRepository.findByEmailIgnoreCase("jan@tech.com").orElseThrow().getStatus());
+        assertEquals(1, statisticsIndex.count(EmploymentStatus.ON_LEAVE));
+        assertEquals(0, statisticsIndex.count(EmploymentStatus.ACTIVE));
+
+        assertTrue(employeeService.changeStatus("nobody@tech.com", EmploymentStatus.ACTIVE).isEmpty());
+        assertFalse(employeeService.updateStatus("nobody@tech.com", EmploymentStatus.ACTIVE));
+    }
+
+    @Test
+    void photoPathIsPersisted() {
+        employeeService.addEmployee(new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000));
+        employeeService.findByEmail("jan@tech.com").orElseThrow();
+
+        Employee changed = employeeService.changePhoto("JAN@tech.com", "photos/jan@tech.com.png").orElseThrow();
+        assertEquals("photos/jan@tech.com.png", changed.getPhotoFileName());
+        assertEquals("photos/jan@tech.com.png", employeeService.findByEmail("jan@tech.com").orElseThrow().getPhotoFileName());
+        assertTrue(employeeService.changePhoto("nobody@tech.com", "photos/x.png").isEmpty());
+    }
+
+    @Test
+    void emailLookupsHitSecondLevelCacheAndSeeJdbcWrites() {
+        employeeService.addEmployee(new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000));
+        employeeService.findByEmail("jan@tech.com").orElseThrow();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        employeeService.findByEmail("JAN@TECH.COM").orElseThrow();
+        assertTrue(statistics.getNaturalIdCacheHitCount() > 0);
+        assertTrue(statistics.getSecondLevelCacheHitCount() > 0);
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        employeeService.changeStatus("jan@tech.com", EmploymentStatus.TERMINATED);
+        assertEquals(EmploymentStatus.TERMINATED, employeeService.findByEmail("jan@tech.com").orElseThrow().getStatus());
+
+        employeeService.removeEmployee("jan@tech.com");
+        assertTrue(employeeService.findByEmail("jan@tech.com").isEmpty());
+        employeeService.addEmployee(new Employee("Jan Nowy", "jan@tech.com", "TechCorp", Position.STAZYSTA, 3000));
+        assertEquals("Jan Nowy", employeeService.findByEmail("jan@tech.com").orElseThrow().getFullName());
+    }
+
+    @Test
+    void singleRowWriteInvalidatesOnlyEmployeeQueries() {
+        employeeService.addEmployee(new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000));
+        departmentNames();
+        employeeRepository.countGroupedByStatus();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        employeeService.changeStatus("jan@tech.com", EmploymentStatus.TERMINATED);
+        statistics.clear();
+
+        // zapytanie tylko o działy nadal z cache, zapytanie o pracowników nieaktualne - ponownie z bazy
+        departmentNames();
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        List<Object[]> byStatus = employeeRepository.countGroupedByStatus();
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(EmploymentStatus.TERMINATED, byStatus.get(0)[0]);
+    }
+
+    private List<String> departmentNames() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            return entityManager.createQuery("select d.name from Department d", String.class)
+                    .setHint(HibernateHints.HINT_CACHEABLE, true)
+                    .getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Test
+    void updateAndRemoveUseAffectedRows() {
+        employeeService.addEmployee(new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000));
+        Employee patch = new Employee("Jan Nowak", "ignored@tech.com", "OtherCo", Position.MANAGER, 12000);
+
+        Employee updated = employeeService.updateEmployee("Jan@Tech.com", patch).orElseThrow();
+        assertEquals("jan@tech.com", updated.getEmail());
+        assertEquals("Nowak", updated.getLastName());
+        Employee stored = employeeRepository.findByEmailIgnoreCase("jan@tech.com").orElseThrow();
+        assertEquals("OtherCo", stored.getCompanyName());
+        assertEquals(12000.0, stored.getSalary(), 0.001);
+        assertEquals("otherco", stored.getCompanyNormalized());
+        assertEquals(12000.0, statisticsIndex.averageSalary("OtherCo"), 0.001);
+        assertTrue(employeeService.updateEmployee("nobody@tech.com", patch).isEmpty());
+        assertEquals(1, employeeService.search("nowak other", 10).total());
+        assertEquals(0, employeeService.search("kowalski", 10).total());
+
+        assertTrue(employeeService.removeEmployee("JAN@TECH.COM"));
+        assertFalse(employeeService.removeEmployee("jan@tech.com"));
+        assertEquals(0, employeeRepository.count());
+        assertEquals(0, statisticsIndex.count());
+        assertEquals(0, searchIndex.documentCount());
+    }
+
+    @Test
+    void mergeImportAppliesOnlyTheDelta() {
+        employeeService.addEmployee(new Employee("Jan Kowalski", "jan@techcorp.com", "TechCorp", Position.PROGRAMISTA, 8000));
+        employeeService.addEmployee(new Employee("Anna Nowak", "anna@techcorp.com", "TechCorp", Position.MANAGER, 12000));
+        employeeService.addEmployee(new Employee("Piotr Zieliński", "piotr@techcorp.com", "TechCorp", Position.STAZYSTA, 3000));
+        employeeService.changeStatus("anna@techcorp.com", EmploymentStatus.ON_LEAVE);
+        Long janId = employeeRepository.findByEmailIgnoreCase("jan@techcorp.com").orElseThrow().getId();
+
+        ImportSummary summary = employeeService.mergeEmployeeBatches(List.of(
+                List.of(new Employee("Jan Kowalski", "jan@techcorp.com", "TechCorp", Position.PROGRAMISTA, 8000),
+                        // klucz scalania to znormalizowany email
+                        new Employee("Anna Nowak", "ANNA@techcorp.com", "TechCorp", Position.MANAGER, 15000)),
+                List.of(new Employee("Ewa Lis", "ewa@techcorp.com", "OtherCo", Position.PROGRAMISTA, 9000))).iterator());
+
+        assertEquals(new ImportDelta(1, 1, 1, 1), summary.delta());
+        assertEquals(3, summary.importedCount());
+        assertEquals(janId, employeeRepository.findByEmailIgnoreCase("jan@techcorp.com").orElseThrow().getId());
+        Employee anna = employeeRepository.findByEmailIgnoreCase("anna@techcorp.com").orElseThrow();
+        assertEquals(15000.0, anna.getSalary(), 0.001);
+        // status spoza pliku zostaje
+        assertEquals(EmploymentStatus.ON_LEAVE, anna.getStatus());
+        assertTrue(employeeRepository.findByEmailIgnoreCase("piotr@techcorp.com").isEmpty());
+        assertEquals(3, statisticsIndex.count());
+        assertEquals(1, statisticsIndex.count(EmploymentStatus.ON_LEAVE));
+        assertEquals(1, employeeService.search("ewa otherco", 10).total());
+        assertEquals(0, employeeService.search("zielinski", 10).total());
+
+        // ten sam plik drugi raz - nic do zapisania
+        ImportSummary again = employeeService.mergeEmployeeBatches(List.of(List.of(
+                new Employee("Jan Kowalski", "jan@techcorp.com", "TechCorp", Position.PROGRAMISTA, 8000),
+                new Employee("Anna Nowak", "ANNA@techcorp.com", "TechCorp", Position.MANAGER, 15000),
+                new Employee("Ewa Lis", "ewa@techcorp.com", "OtherCo", Position.PROGRAMISTA, 9000))).iterator());
+        assertEquals(new ImportDelta(0, 0, 0, 3), again.delta());
+        // pusty plik nie usuwa pracowników
+        assertEquals(new ImportDelta(0, 0, 0, 0), employeeService.mergeEmployeeBatches(List.<List<Employee>>of().iterator()).delta());
+        assertEquals(3, employeeRepository.count());
+    }
+
+    @Test
+    void mergeHandlesIdsBeyondIntRange() {
+        jdbcTemplate.execute("ALTER TABLE employees ALTER COLUMN id RESTART WITH 3000000000");
+        try {
+            employeeService.addEmployee(new Employee("Jan Kowalski", "jan@techcorp.com", "TechCorp", Position.PROGRAMISTA, 8000));
+            employeeService.addEmployee(new Employee("Piotr Zielinski", "piotr@techcorp.com", "TechCorp", Position.PROGRAMISTA, 7000));
+            assertTrue(employeeRepository.findByEmailIgnoreCase("jan@techcorp.com").orElseThrow().getId() > Integer.MAX_VALUE);
+
+            ImportSummary summary = employeeService.mergeEmployeeBatches(List.of(List.of(
+                    new Employee("Jan Kowalski", "jan@techcorp.com", "TechCorp", Position.PROGRAMISTA, 8500))).iterator());
+
+            assertEquals(new ImportDelta(0, 1, 1, 0), summary.delta());
+            assertEquals(8500.0, employeeRepository.findByEmailIgnoreCase("jan@techcorp.com").orElseThrow().getSalary(), 0.001);
+            assertTrue(employeeRepository.findByEmailIgnoreCase("piotr@techcorp.com").isEmpty());
+        } finally {
+            employeeRepository.deleteAll();
+            jdbcTemplate.execute("ALTER TABLE employees ALTER COLUMN id RESTART WITH 1");
+        }
+    }
+
+    @Test
+    void removingDepartmentRemovesItsEmployeesFromIndexes() {
+        Department department = departmentService.addDepartment(new Department(null, "Backend", "Kraków", 100000, null));
+        Employee jan = new Employee("Jan Kowalski", "jan@techcorp.com", "TechCorp", Position.PROGRAMISTA, 8000);
+        jan.setDepartmentId(department.getId());
+        employeeService.addEmployee(jan);
+        employeeService.addEmployee(new Employee("Anna Nowak", "anna@techcorp.com", "TechCorp", Position.MANAGER, 12000));
+        assertEquals(1, employeeService.search("kowalski", 10).total());
+
+        // kaskada Department.employees usuwa też pracowników działu
+        assertTrue(departmentService.removeDepartment(department.getId()));
+
+        assertTrue(employeeRepository.findByEmailIgnoreCase("jan@techcorp.com").isEmpty());
+        assertEquals(0, employeeService.search("kowalski", 10).total());
+        assertEquals(0, employeeService.search("jan@techcorp.com", 10).total());
+        assertEquals(1, employeeService.search("nowak", 10).total());
+        // liczniki statystyk bez usuniętych kaskadowo
+        assertEquals(1, statisticsIndex.count());
+        assertEquals(12000.0, employeeService.getAverageSalary("TechCorp"), 0.001);
+        assertEquals(0, statisticsIndex.count(Position.PROGRAMISTA));
+    }
+}
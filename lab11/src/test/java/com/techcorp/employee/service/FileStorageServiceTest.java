@@ -8,6 +8,13 @@ import org.springframework.mock.web.MockMultipartFile;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -62,4 +69,69 @@ class FileStorageServiceTest {
         long tiny = 1L;
         assertThrows(InvalidFileException.class, () -> svc.validateFile(file, tiny, new String[]{"csv"}));
     }
+
+    @Test
+    void identicalUploadsShareOneBlobUntilLastReferenceIsDeleted() throws IOException {
+        FileStorageService svc = new FileStorageService(storage.toString(), "10MB");
+        byte[] data = "same contract".getBytes();
+
+        String first = svc.storeFileInSubDirectory(new MockMultipartFile("file", "umowa.pdf", "application/pdf", data), "documents/jan");
+        String second = svc.storeFileInSubDirectory(new MockMultipartFile("file", "UMOWA.PDF", "application/pdf", data), "documents/anna");
+        String other = svc.storeFileInSubDirectory(new MockMultipartFile("file", "cv.pdf", "application/pdf", "other".getBytes()), "documents/anna");
+        assertNotEquals(first, second);
+        assertEquals(2, svc.blobCount());
+        assertEquals(2, svc.referenceCount(first));
+        assertTrue(Files.isSameFile(svc.getFilePath(first), svc.getFilePath(second)));
+
+        svc.deleteFile(first);
+        assertEquals(1, svc.referenceCount(second));
+        assertArrayEquals(data, Files.readAllBytes(svc.getFilePath(second)));
+        svc.deleteFile(second);
+        assertEquals(1, svc.blobCount());
+
+        // zastąpienie pliku o stałej nazwie zwalnia poprzednią treść
+        svc.storeFileWithNameInSubDirectory(new MockMultipartFile("file", "a.png", "image/png", "v1".getBytes()), "photos", "jan.png");
+        svc.storeFileWithNameInSubDirectory(new MockMultipartFile("file", "b.png", "image/png", "v2".getBytes()), "photos", "jan.png");
+        assertEquals(2, svc.blobCount());
+        assertEquals("v2", Files.readString(svc.getFilePath("photos/jan.png")));
+
+        // indeks blobów odbudowany po restarcie
+        FileStorageService restarted = new FileStorageService(storage.toString(), "10MB");
+        assertEquals(2, restarted.blobCount());
+        restarted.deleteFile(other);
+        assertEquals(1, restarted.blobCount());
+    }
+
+    @Test
+    void concurrentStoreAndDeleteOfSameContentNeverLoseTheBlob() throws Exception {
+        FileStorageService svc = new FileStorageService(storage.toString(), "10MB");
+        byte[] data = "shared content".getBytes();
+        int threads = 4;
+        int rounds = 300;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CyclicBarrier start = new CyclicBarrier(threads);
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                String name = "doc" + t + ".pdf";
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    // każdy wątek zapisuje i usuwa własną referencję do tej samej treści (ten sam blob)
+                    for (int i = 0; i < rounds; i++) {
+                        String stored = svc.storeFileWithNameInSubDirectory(
+                                new MockMultipartFile("file", name, "application/pdf", data), "shared", name);
+                        assertArrayEquals(data, Files.readAllBytes(svc.getFilePath(stored)));
+                        svc.deleteFile(stored);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, svc.blobCount());
+    }
 }
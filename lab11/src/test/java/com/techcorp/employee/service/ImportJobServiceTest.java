@@ -0,0 +1,96 @@
+package com.techcorp.employee.service;
+
+import com.techcorp.employee.model.ImportDelta;
+import com.techcorp.employee.model.ImportJobState;
+import com.techcorp.employee.model.ImportJobStatus;
+import com.techcorp.employee.model.ImportMode;
+import com.techcorp.employee.model.ImportSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+class ImportJobServiceTest {
+
+    private ImportService importService;
+    private FileStorageService fileStorageService;
+    private ImportJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        importService = Mockito.mock(ImportService.class);
+        fileStorageService = Mockito.mock(FileStorageService.class);
+        jobService = new ImportJobService(importService, fileStorageService, 1, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdown();
+    }
+
+    private ImportJobStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            ImportJobStatus status = jobService.getStatus(jobId).orElseThrow();
+            if (status.isFinished()) return status;
+            Thread.sleep(10);
+        }
+        fail("job " + jobId + " did not finish");
+        return null;
+    }
+
+    @Test
+    void importsRunOneAtATimeAndReportProgress() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        Mockito.when(importService.importCsv(eq("first.csv"), any(), eq(ImportMode.MERGE))).thenAnswer(invocation -> {
+            ImportProgress progress = invocation.getArgument(1);
+            progress.recordParsed();
+            progress.recordParsed();
+            progress.recordPersisted(1);
+            progress.recordError();
+            firstStarted.countDown();
+            assertTrue(releaseFirst.await(5, TimeUnit.SECONDS));
+            return new ImportSummary(1, List.of("Line 2: invalid salary 'abc'"), new ImportDelta(1, 0, 4, 0));
+        });
+        Mockito.when(importService.importXml(eq("second.xml"), any(), eq(ImportMode.REPLACE))).thenThrow(new java.io.IOException("broken file"));
+
+        ImportJobStatus first = jobService.submit("csv", "first.csv", ImportMode.MERGE);
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        ImportJobStatus second = jobService.submit("XML", "second.xml");
+        assertEquals(ImportJobState.QUEUED, second.state());
+        // jeden wątek i jedno miejsce w kolejce - trzeci import odrzucony
+        assertThrows(RejectedExecutionException.class, () -> jobService.submit("csv", "third.csv"));
+
+        ImportJobStatus running = jobService.getStatus(first.jobId()).orElseThrow();
+        assertEquals(ImportJobState.RUNNING, running.state());
+        assertEquals(2, running.rowsParsed());
+        assertEquals(1, running.rowsPersisted());
+        assertEquals(1, running.errorCount());
+        assertEquals(ImportJobState.QUEUED, jobService.getStatus(second.jobId()).orElseThrow().state());
+
+        releaseFirst.countDown();
+        ImportJobStatus finished = awaitFinished(first.jobId());
+        assertEquals(ImportJobState.FINISHED, finished.state());
+        assertEquals(List.of("Line 2: invalid salary 'abc'"), finished.errors());
+        assertEquals(ImportMode.MERGE, finished.mode());
+        assertEquals(new ImportDelta(1, 0, 4, 0), finished.delta());
+        ImportJobStatus failed = awaitFinished(second.jobId());
+        assertEquals(ImportJobState.FAILED, failed.state());
+        assertEquals(List.of("broken file"), failed.errors());
+        // przesłane pliki zwalniane po imporcie, także nieudanym
+        Mockito.verify(fileStorageService, Mockito.timeout(1000)).deleteFile("first.csv");
+        Mockito.verify(fileStorageService, Mockito.timeout(1000)).deleteFile("second.xml");
+        assertTrue(jobService.getStatus("unknown").isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> jobService.submit("json", "x.json"));
+    }
+}
@@ -0,0 +1,173 @@
+package com.techcorp.employee.service;
+
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.ImportSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+class ImportServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private EmployeeService employeeService;
+    private List<List<Employee>> batches;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        employeeService = Mockito.mock(EmployeeService.class);
+        batches = new ArrayList<>();
+        meterRegistry = new SimpleMeterRegistry();
+        Mockito.when(employeeService.importEmployeeBatches(any())).thenAnswer(invocation -> {
+            Iterator<List<Employee>> iterator = invocation.getArgument(0);
+            int count = 0;
+            while (iterator.hasNext()) {
+                List<Employee> batch = iterator.next();
+                batches.add(batch);
+                count += batch.size();
+            }
+            return count;
+        });
+    }
+
+    @Test
+    void importFromCsv_smallChunksKeepFileOrderAndErrors() throws IOException {
+        Path csv = tempDir.resolve("employees.csv");
+        Files.writeString(csv, String.join("\n",
+                "firstName,lastName,email,company,position,salary",
+                "Jan,Kowalski,jan@example.com,TechCorp,PROGRAMISTA,9000",
+                "Anna,Nowak,anna@example.com,DataSoft,MANAGER,13000",
+                "",
+                "Tomasz,Lewandowski,tomasz@example.com,DataSoft,INVALID_POSITION,5000",
+                "Jan,Duplikat,JAN@example.com,TechCorp,PROGRAMISTA,9000",
+                "Piotr,Zielinski,piotr@example.com,CloudInc,PREZES,abc",
+                "Ewa,Wojcik,ewa@example.com,CloudInc,PREZES,23000",
+                "Za,Malo,kolumn@example.com"));
+
+        ImportService service = new ImportService(employeeService, 2, 2, 3, meterRegistry);
+        ImportSummary summary = service.importFromCsv(csv, 0);
+
+        assertEquals(3, summary.importedCount());
+        assertEquals(List.of(
+                "Line 3: invalid position 'INVALID_POSITION'",
+                "Line 4: duplicate email 'JAN@example.com'",
+                "Line 5: invalid salary 'abc'",
+                "Line 7: not enough columns"), summary.errors());
+        assertEquals(List.of("jan@example.com", "anna@example.com", "ewa@example.com"),
+                batches.stream().flatMap(List::stream).map(Employee::getEmail).toList());
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2));
+        assertEquals(3.0, meterRegistry.get("employee.import.rows").tag("format", "csv").counter().count());
+        assertEquals(4.0, meterRegistry.get("employee.import.errors").tag("format", "csv").counter().count());
+        assertEquals(1, meterRegistry.get("employee.import").tags("format", "csv", "outcome", "success").timer().count());
+    }
+
+    @Test
+    void importCsv_reportsParsedPersistedAndFailedRecords() throws IOException {
+        Path csv = tempDir.resolve("progress.csv");
+        Files.writeString(csv, String.join("\n",
+                "firstName,lastName,email,company,position,salary",
+                "Jan,Kowalski,jan@example.com,TechCorp,PROGRAMISTA,9000",
+                "Anna,Nowak,anna@example.com,DataSoft,MANAGER,13000",
+                "Jan,Duplikat,jan@example.com,TechCorp,PROGRAMISTA,9000",
+                "Ewa,Wojcik,ewa@example.com,CloudInc,PREZES,23000",
+                "Piotr,Zielinski,piotr@example.com,CloudInc,PREZES,abc"));
+        ImportProgress progress = new ImportProgress();
+
+        ImportSummary summary = new ImportService(employeeService, 2, 2, 2, meterRegistry).importCsv(csv.toString(), progress);
+
+        assertEquals(3, summary.importedCount());
+        assertEquals(5, progress.getParsed());
+        assertEquals(3, progress.getPersisted());
+        assertEquals(2, progress.getErrors());
+    }
+
+    @Test
+    void importFromCsv_respectsMaxLines() throws IOException {
+        Path csv = tempDir.resolve("limited.csv");
+        Files.writeString(csv, String.join("\n",
+                "firstName,lastName,email,company,position,salary",
+                "Jan,Kowalski,jan@example.com,TechCorp,PROGRAMISTA,9000",
+                "Anna,Nowak,anna@example.com,DataSoft,MANAGER,13000",
+                "Ewa,Wojcik,ewa@example.com,CloudInc,PREZES,23000"));
+
+        ImportSummary summary = new ImportService(employeeService).importFromCsv(csv, 2);
+
+        assertEquals(2, summary.importedCount());
+        assertTrue(summary.errors().isEmpty());
+    }
+
+    @Test
+    void importFromXml_parsesSplitTextAndReportsErrorsInOrder() throws IOException {
+        Path xml = tempDir.resolve("employees.xml");
+        Files.writeString(xml, """
+                <employees>
+                  <employee><firstName>Jan</firstName><lastName>Kowal<![CDATA[ski]]></lastName>
+                    <email>jan@example.com</email><company>TechCorp</company><position>programista</position><salary>9000</salary></employee>
+                  <employee><firstName>Anna</firstName><lastName>Nowak</lastName>
+                    <email>anna@example.com</email><company>DataSoft</company><position>DYREKTOR</position><salary>13000</salary></employee>
+                  <employee><firstName>Jan</firstName><lastName>Bis</lastName>
+                    <email>JAN@example.com</email><company>TechCorp</company><position>MANAGER</position><salary>9000</salary></employee>
+                  <employee><firstName>Ewa</firstName><lastName>Wojcik</lastName>
+                    <email>ewa@example.com</email><company>CloudInc</company><position>PREZES</position><salary>-1</salary></employee>
+                </employees>
+                """);
+
+        ImportSummary summary = new ImportService(employeeService, 1, 1, 2, meterRegistry).importFromXml(xml, 0);
+
+        assertEquals(1, summary.importedCount());
+        assertEquals(List.of(
+                "Employee 2: invalid position 'DYREKTOR'",
+                "Employee 3: duplicate email 'JAN@example.com'",
+                "Employee 4: invalid salary '-1.0'"), summary.errors());
+        assertEquals("Jan Kowalski", batches.get(0).get(0).getFullName());
+    }
+
+    @Test
+    void importFromXml_stopsAtMaxEntries() throws IOException {
+        StringBuilder xml = new StringBuilder("<employees>");
+        for (int i = 0; i < 5000; i++) {
+            xml.append("<employee><firstName>E").append(i).append("</firstName><lastName>X</lastName><email>e").append(i)
+               .append("@example.com</email><company>C</company><position>PROGRAMISTA</position><salary>1000</salary></employee>");
+        }
+        // uszkodzony koniec pliku - nie może zostać przeczytany po osiągnięciu limitu
+        xml.append("<employee><broken");
+        Path file = tempDir.resolve("large.xml");
+        Files.writeString(file, xml);
+
+        ImportSummary summary = new ImportService(employeeService, 10, 7, 2, meterRegistry).importFromXml(file, 25);
+
+        assertEquals(25, summary.importedCount());
+        assertTrue(summary.errors().isEmpty());
+    }
+
+    @Test
+    void importFromCsv_runtimeFailureInReaderFailsImportInsteadOfHanging() {
+        Path broken = Mockito.mock(Path.class);
+        Mockito.when(broken.getFileSystem()).thenThrow(new IllegalStateException("storage unavailable"));
+        ImportService service = new ImportService(employeeService, 2, 2, 2, meterRegistry);
+        try {
+            // błąd spoza IOException w wątku czytającym - etap zapisu dostaje go zamiast czekać w nieskończoność
+            IllegalStateException failure = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> assertThrows(IllegalStateException.class, () -> service.importFromCsv(broken, 0)));
+            assertEquals("storage unavailable", failure.getMessage());
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.techcorp.employee.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhotoThumbnailServiceTest {
+
+    private final Path storage = Path.of("target/test-thumbnails");
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (Files.exists(storage)) {
+            Files.walk(storage)
+                    .sorted((a, b) -> b.compareTo(a))
+                    .forEach(p -> {
+                        try { Files.deleteIfExists(p); } catch (IOException ignored) {}
+                    });
+        }
+    }
+
+    @Test
+    void thumbnailsKeepAspectRatioAndAreRegeneratedForNewPhoto() throws Exception {
+        FileStorageService storageService = new FileStorageService(storage.toString(), "10MB");
+        PhotoThumbnailService service = new PhotoThumbnailService(storageService, 1, 8);
+        try {
+            String photo = storageService.storeFileWithNameInSubDirectory(png(1200, 600), "photos", "jan@techcorp.com.png");
+
+            // brakująca miniatura - odpowiedź od razu, generowanie w tle
+            assertTrue(service.thumbnailIfReady(photo, 64).isEmpty());
+            waitForFile(storageService.getFilePath("photos/jan@techcorp.com_64px.png"));
+            String small = service.thumbnailIfReady(photo, 64).orElseThrow();
+            assertEquals("photos/jan@techcorp.com_64px.png", small);
+            BufferedImage image = ImageIO.read(storageService.getFilePath(small).toFile());
+            assertEquals(64, image.getWidth());
+            assertEquals(32, image.getHeight());
+
+            // nowe zdjęcie - stara miniatura usunięta od razu, nowa generowana w tle
+            storageService.storeFileWithNameInSubDirectory(png(100, 400), "photos", "jan@techcorp.com.png");
+            service.photoChanged(photo);
+            waitForFile(storageService.getFilePath("photos/jan@techcorp.com_256px.png"));
+            BufferedImage large = ImageIO.read(storageService.getFilePath(service.thumbnailIfReady(photo, 256).orElseThrow()).toFile());
+            assertEquals(64, large.getWidth());
+            assertEquals(256, large.getHeight());
+            waitForFile(storageService.getFilePath("photos/jan@techcorp.com_64px.png"));
+            assertEquals(16, ImageIO.read(storageService.getFilePath(service.thumbnailIfReady(photo, 64).orElseThrow()).toFile()).getWidth());
+
+            service.photoRemoved(photo);
+            assertFalse(Files.exists(storageService.getFilePath(photo)));
+            assertFalse(Files.exists(storageService.getFilePath("photos/jan@techcorp.com_256px.png")));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void invalidImageIsReportedAndSizesAreRestricted() {
+        FileStorageService storageService = new FileStorageService(storage.toString(), "10MB");
+        PhotoThumbnailService service = new PhotoThumbnailService(storageService, 1, 8);
+        try {
+            String photo = storageService.storeFileWithNameInSubDirectory(
+                    new MockMultipartFile("file", "x.png", "image/png", "not an image".getBytes()), "photos", "x.png");
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> service.generateAsync(photo, 64).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IOException.class, failure.getCause());
+            assertTrue(service.thumbnailIfReady(photo, 64).isEmpty());
+            assertThrows(IllegalArgumentException.class, () -> service.thumbnailIfReady(photo, 100));
+            assertEquals("photos/a.b@x.com_256px.jpg", PhotoThumbnailService.thumbnailPath("photos/a.b@x.com.jpg", 256));
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void fullQueueRejectsInsteadOfGrowing() throws Exception {
+        FileStorageService storageService = new FileStorageService(storage.toString(), "10MB");
+        PhotoThumbnailService service = new PhotoThumbnailService(storageService, 1, 1);
+        try {
+            String[] photos = new String[4];
+            for (int i = 0; i < photos.length; i++) {
+                photos[i] = storageService.storeFileWithNameInSubDirectory(png(2000, 2000), "photos", "p" + i + ".png");
+            }
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[photos.length];
+            for (int i = 0; i < photos.length; i++) {
+                futures[i] = service.generateAsync(photos[i], 256);
+            }
+            // jeden wątek + jedno miejsce w kolejce - reszta odrzucona od razu, nie czeka w pamięci
+            long rejected = Arrays.stream(futures)
+                    .filter(f -> f.isCompletedExceptionally()
+                            && f.handle((v, e) -> e instanceof RejectedExecutionException).join())
+                    .count();
+            assertTrue(rejected >= 2, "expected rejected tasks, got " + rejected);
+            CompletableFuture.allOf(futures).handle((v, e) -> null).get(10, TimeUnit.SECONDS);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    private static MockMultipartFile png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return new MockMultipartFile("file", "photo.png", "image/png", out.toByteArray());
+    }
+
+    private static void waitForFile(Path path) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Files.exists(path) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
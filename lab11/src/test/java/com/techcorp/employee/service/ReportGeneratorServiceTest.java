@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -41,4 +42,115 @@ class ReportGeneratorServiceTest {
         assertTrue(size > 0, "Saved report should not be empty");
     }
 
+    @Test
+    void generateCompanyStatisticsReport_rewritesFileOnlyWhenContentChanges() throws IOException {
+        com.techcorp.employee.service.EmployeeService mockEmp = org.mockito.Mockito.mock(com.techcorp.employee.service.EmployeeService.class);
+        ReportGeneratorService svc = new ReportGeneratorService(mockEmp, reportsDir.toString());
+
+        Path first = svc.generateCompanyStatisticsReport("Acme");
+        var firstModified = Files.getLastModifiedTime(first);
+        byte[] firstBytes = Files.readAllBytes(first);
+        Path second = svc.generateCompanyStatisticsReport("Acme");
+        assertEquals(first, second);
+        assertArrayEquals(firstBytes, Files.readAllBytes(second));
+        assertEquals(firstModified, Files.getLastModifiedTime(second));
+
+        org.mockito.Mockito.when(mockEmp.getCompanyStatistics("Acme"))
+                .thenReturn(java.util.Optional.of(new com.techcorp.employee.model.CompanyStatistics(3, 5000.0, "Jan Kowalski")));
+        assertFalse(java.util.Arrays.equals(firstBytes, Files.readAllBytes(svc.generateCompanyStatisticsReport("Acme"))));
+    }
+
+    @Test
+    void generateCompanyStatisticsPdf_reusesCachedFontAcrossReportsAndThreads() throws Exception {
+        EmployeeService mockEmp = org.mockito.Mockito.mock(EmployeeService.class);
+        org.mockito.Mockito.when(mockEmp.getCompanyStatistics(org.mockito.ArgumentMatchers.anyString()))
+                .thenReturn(java.util.Optional.of(new com.techcorp.employee.model.CompanyStatistics("Spółka Łódź", 2, 9000.0, 12000.0, "Łukasz Żółć")));
+        ReportGeneratorService svc = new ReportGeneratorService(mockEmp, reportsDir.toString());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(extractText(svc.generateCompanyStatisticsPdf("Spółka Łódź")).contains("Highest earner: Łukasz Żółć"));
+        }
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(4);
+        try {
+            List<java.util.concurrent.Future<byte[]>> futures = new java.util.ArrayList<>();
+            for (int i = 0; i < 8; i++) futures.add(pool.submit(() -> svc.generateCompanyStatisticsPdf("Spółka Łódź")));
+            for (java.util.concurrent.Future<byte[]> future : futures) {
+                assertTrue(extractText(future.get()).contains("Employees: 2"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void parsedFontsAreBoundedByPoolSizeNotByCallingThreads() throws Exception {
+        EmployeeService mockEmp = org.mockito.Mockito.mock(EmployeeService.class);
+        org.mockito.Mockito.when(mockEmp.getCompanyStatistics(org.mockito.ArgumentMatchers.anyString()))
+                .thenReturn(java.util.Optional.of(new com.techcorp.employee.model.CompanyStatistics("Acme", 2, 9000.0, 12000.0, "Jan Kowalski")));
+        ReportGeneratorService svc = new ReportGeneratorService(mockEmp, reportsDir.toString(),
+                new org.springframework.core.io.DefaultResourceLoader().getResource(ReportGeneratorService.DEFAULT_FONT), 2);
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(8);
+        try {
+            List<java.util.concurrent.Future<byte[]>> futures = new java.util.ArrayList<>();
+            for (int i = 0; i < 32; i++) futures.add(pool.submit(() -> svc.generateCompanyStatisticsPdf("Acme")));
+            byte[] first = futures.get(0).get();
+            for (java.util.concurrent.Future<byte[]> future : futures) {
+                assertArrayEquals(first, future.get());
+            }
+            assertTrue(svc.parsedFontCount() <= 2, "parsed fonts: " + svc.parsedFontCount());
+        } finally {
+            pool.shutdownNow();
+            svc.shutdown();
+        }
+    }
+
+    @Test
+    void bulkReports_renderEveryCompanyOnceFromSingleStatisticsQuery() throws Exception {
+        EmployeeService mockEmp = org.mockito.Mockito.mock(EmployeeService.class);
+        java.util.Map<String, com.techcorp.employee.model.CompanyStatistics> stats = new java.util.LinkedHashMap<>();
+        for (int i = 0; i < 12; i++) {
+            stats.put("Company-" + i, new com.techcorp.employee.model.CompanyStatistics("Company-" + i, i + 1, 5000.0, 9000.0, "Jan Kowalski"));
+        }
+        org.mockito.Mockito.when(mockEmp.getCompanyStatistics()).thenReturn(stats);
+        ReportGeneratorService svc = new ReportGeneratorService(mockEmp, reportsDir.toString(),
+                new org.springframework.core.io.DefaultResourceLoader().getResource(ReportGeneratorService.DEFAULT_FONT), 3);
+
+        java.io.ByteArrayOutputStream zipBytes = new java.io.ByteArrayOutputStream();
+        assertEquals(12, svc.writeAllReportsZip(zipBytes));
+        List<String> names = new java.util.ArrayList<>();
+        try (java.util.zip.ZipInputStream zip = new java.util.zip.ZipInputStream(new java.io.ByteArrayInputStream(zipBytes.toByteArray()))) {
+            for (java.util.zip.ZipEntry entry; (entry = zip.getNextEntry()) != null; ) names.add(entry.getName());
+        }
+        assertEquals(12, names.size());
+        assertEquals("statistics_Company-0.pdf", names.get(0));
+
+        com.techcorp.employee.model.BulkReportStatus started = svc.startBulkReport();
+        assertEquals(12, started.total());
+        com.techcorp.employee.model.BulkReportStatus status = started;
+        for (int i = 0; i < 200 && !status.isFinished(); i++) {
+            Thread.sleep(50);
+            status = svc.getBulkReportStatus(started.jobId()).orElseThrow();
+        }
+        assertEquals("FINISHED", status.state());
+        assertEquals(12, status.completed());
+        assertTrue(Files.exists(reportsDir.resolve("statistics_Company-11.pdf")));
+        org.mockito.Mockito.verify(mockEmp, org.mockito.Mockito.times(2)).getCompanyStatistics();
+        svc.shutdown();
+    }
+
+    private static String extractText(byte[] pdf) throws IOException {
+        try (org.apache.pdfbox.pdmodel.PDDocument doc = org.apache.pdfbox.Loader.loadPDF(pdf)) {
+            return new org.apache.pdfbox.text.PDFTextStripper().getText(doc);
+        }
+    }
+
+    @Test
+    void reportFileNamesAreDistinctForDistinctCompanies() {
+        assertEquals("statistics_Company-0.pdf", ReportGeneratorService.reportFileName("Company-0"));
+        assertNotEquals(ReportGeneratorService.reportFileName("A&B"), ReportGeneratorService.reportFileName("A_B"));
+        assertEquals("statistics_A_26_B.pdf", ReportGeneratorService.reportFileName("A&B"));
+        assertEquals("statistics_A_5f_B.pdf", ReportGeneratorService.reportFileName("A_B"));
+        assertNotEquals(ReportGeneratorService.reportFileName(null), ReportGeneratorService.reportFileName("all"));
+        assertEquals("statistics_.._2f_x.pdf", ReportGeneratorService.reportFileName("../x"));
+    }
 }
@@ -0,0 +1,171 @@
+package com.techcorp.employee.service;
+
+import com.techcorp.employee.model.CompanyStatistics;
+import com.techcorp.employee.model.Employee;
+import com.techcorp.employee.model.EmploymentStatus;
+import com.techcorp.employee.model.Position;
+import com.techcorp.employee.repository.EmployeeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsIndexTest {
+
+    private EmployeeRepository repository;
+    private StatisticsIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(EmployeeRepository.class);
+        index = new StatisticsIndex(repository);
+    }
+
+    @Test
+    void incrementalUpdatesKeepCountersInSync() {
+        Employee jan = new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000);
+        Employee anna = new Employee("Anna Nowak", "anna@tech.com", "TechCorp", Position.MANAGER, 12000);
+        Employee piotr = new Employee("Piotr Zielinski", "piotr@other.com", "OtherCo", Position.PROGRAMISTA, 4000);
+        index.add(jan);
+        index.add(anna);
+        index.add(piotr);
+
+        assertEquals(3, index.count());
+        assertEquals(8000.0, index.averageSalary(), 0.001);
+        assertEquals(10000.0, index.averageSalary("TechCorp"), 0.001);
+        assertEquals(2, index.count(Position.PROGRAMISTA));
+        assertEquals(3, index.count(EmploymentStatus.ACTIVE));
+
+        index.statusChanged(EmploymentStatus.ACTIVE, EmploymentStatus.ON_LEAVE);
+        assertEquals(2, index.count(EmploymentStatus.ACTIVE));
+        assertEquals(1, index.count(EmploymentStatus.ON_LEAVE));
+
+        CompanyStatistics tech = index.companyStatistics("TechCorp").orElseThrow();
+        assertEquals(2, tech.getEmployeeCount());
+        assertEquals(12000.0, tech.getHighestSalary(), 0.001);
+        assertEquals("Anna Nowak", tech.getHighestPaidFullName());
+
+        index.remove(piotr);
+        assertTrue(index.companyStatistics("OtherCo").isEmpty());
+        assertEquals(2, index.count());
+    }
+
+    @Test
+    void removingTopEarnerRefreshesMaximumFromDatabase() {
+        Employee jan = new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000);
+        Employee anna = new Employee("Anna Nowak", "anna@tech.com", "TechCorp", Position.MANAGER, 12000);
+        index.add(jan);
+        index.add(anna);
+        Mockito.when(repository.aggregateCompanyStatistics("TechCorp"))
+                .thenReturn(Optional.of(new CompanyStatistics("TechCorp", 1L, 8000.0, 8000.0, "Jan Kowalski")));
+
+        index.remove(anna);
+
+        CompanyStatistics tech = index.companyStatistics("TechCorp").orElseThrow();
+        assertEquals(8000.0, tech.getHighestSalary(), 0.001);
+        assertEquals("Jan Kowalski", tech.getHighestPaidFullName());
+    }
+
+    @Test
+    void rebuildAndVerifyAgainstFullScan() {
+        Employee jan = new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000);
+        Employee anna = new Employee("Anna Nowak", "anna@tech.com", "TechCorp", Position.MANAGER, 12000);
+        Mockito.when(repository.aggregateCompanyStatistics())
+                .thenReturn(List.of(new CompanyStatistics("TechCorp", 2L, 10000.0, 12000.0, "Anna Nowak")));
+        Mockito.when(repository.countGroupedByPosition())
+                .thenReturn(List.of(new Object[]{Position.PROGRAMISTA, 1L}, new Object[]{Position.MANAGER, 1L}));
+        Mockito.when(repository.countGroupedByStatus())
+                .thenReturn(List.<Object[]>of(new Object[]{EmploymentStatus.ACTIVE, 2L}));
+        Mockito.when(repository.findAll()).thenReturn(List.of(jan, anna));
+
+        index.rebuild();
+        assertEquals(2, index.count());
+        assertTrue(index.verify().isEmpty());
+
+        index.add(new Employee("Ghost", "ghost@tech.com", "TechCorp", Position.STAZYSTA, 3000));
+        assertFalse(index.verify().isEmpty());
+    }
+
+    @Test
+    void repeatedReadsShareSnapshotUntilCompanyChanges() {
+        index.add(new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000));
+        Optional<CompanyStatistics> first = index.companyStatistics("TechCorp");
+        assertSame(first, index.companyStatistics("TechCorp"));
+
+        index.add(new Employee("Anna Nowak", "anna@tech.com", "TechCorp", Position.MANAGER, 12000));
+        Optional<CompanyStatistics> second = index.companyStatistics("TechCorp");
+        assertNotSame(first, second);
+        assertEquals(2, second.orElseThrow().getEmployeeCount());
+        assertEquals(1, first.orElseThrow().getEmployeeCount());
+    }
+
+    @Test
+    void refreshingMaximumDoesNotBlockOtherReaders() throws Exception {
+        Employee jan = new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000);
+        Employee anna = new Employee("Anna Nowak", "anna@tech.com", "TechCorp", Position.MANAGER, 12000);
+        index.add(jan);
+        index.add(anna);
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        Mockito.when(repository.aggregateCompanyStatistics("TechCorp")).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await(5, TimeUnit.SECONDS);
+            return Optional.of(new CompanyStatistics("TechCorp", 1L, 8000.0, 8000.0, "Jan Kowalski"));
+        });
+        index.remove(anna);
+
+        CompletableFuture<Optional<CompanyStatistics>> slowRead =
+                CompletableFuture.supplyAsync(() -> index.companyStatistics("TechCorp"));
+        assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+        // zapytanie do bazy w toku - pozostałe odczyty i zapisy indeksu nie czekają na nie
+        CompletableFuture<Long> count = CompletableFuture.supplyAsync(() -> index.count());
+        assertEquals(1L, count.get(1, TimeUnit.SECONDS));
+        releaseQuery.countDown();
+
+        CompanyStatistics tech = slowRead.get(5, TimeUnit.SECONDS).orElseThrow();
+        assertEquals(8000.0, tech.getHighestSalary(), 0.001);
+        assertEquals("Jan Kowalski", tech.getHighestPaidFullName());
+    }
+
+    @Test
+    void distributionsAreSharedUntilCountersChange() {
+        index.add(new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000));
+        Map<Position, Long> positions = index.positionDistribution();
+        Map<EmploymentStatus, Long> statuses = index.statusDistribution();
+        assertSame(positions, index.positionDistribution());
+        assertSame(statuses, index.statusDistribution());
+        assertThrows(UnsupportedOperationException.class, () -> positions.put(Position.MANAGER, 1L));
+
+        index.statusChanged(EmploymentStatus.ACTIVE, EmploymentStatus.ON_LEAVE);
+        assertSame(positions, index.positionDistribution());
+        assertEquals(Map.of(EmploymentStatus.ON_LEAVE, 1L), index.statusDistribution());
+
+        index.add(new Employee("Anna Nowak", "anna@tech.com", "TechCorp", Position.MANAGER, 12000));
+        assertEquals(Map.of(Position.PROGRAMISTA, 1L, Position.MANAGER, 1L), index.positionDistribution());
+    }
+
+    @Test
+    void verifyOnlyReportsAndLeavesIndexUntouched() {
+        Employee jan = new Employee("Jan Kowalski", "jan@tech.com", "TechCorp", Position.PROGRAMISTA, 8000);
+        Employee anna = new Employee("Anna Nowak", "anna@tech.com", "TechCorp", Position.MANAGER, 12000);
+        index.add(jan);
+        index.add(anna);
+        index.remove(anna);
+        // w bazie został jeszcze pracownik usunięty poza indeksem
+        Mockito.when(repository.findAll()).thenReturn(List.of(jan, anna));
+
+        List<String> mismatches = index.verify();
+
+        assertFalse(mismatches.isEmpty());
+        assertEquals(1, index.count());
+        Mockito.verify(repository, Mockito.never()).aggregateCompanyStatistics("TechCorp");
+    }
+}